@@ -0,0 +1,106 @@
+package com.bookreview.controller;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.ReviewSummary;
+import com.bookreview.model.Book;
+import com.bookreview.model.Review;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of one list page, entity vs. projection, with the object mapper
+ * configured as Spring MVC does: a 20-book page of {@code /books} and a 50-review page
+ * of {@code /reviews/book/{id}}. Setup prints the response size of each.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ListSerializationBenchmark {
+
+    private ObjectMapper mapper;
+    private List<Book> books;
+    private List<BookSummary> bookSummaries;
+    private List<Review> reviews;
+    private List<ReviewSummary> reviewSummaries;
+
+    @Setup
+    public void setUp() {
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+        String blurb = "An epic of politics, ecology and prophecy on a desert planet. ".repeat(24);
+        books = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Book book = new Book();
+            book.setId((long) i);
+            book.setTitle("Book title number " + i);
+            book.setAuthor("Author " + i);
+            book.setDescription(blurb);
+            book.setCoverUrl("https://covers.example.com/" + i + ".jpg");
+            book.setGenres("Science Fiction, Classics");
+            book.setYear(1965 + i);
+            book.setAvgRating(4.2);
+            book.setReviewCount(120L + i);
+            books.add(book);
+        }
+        bookSummaries = books.stream().map(BookSummary::of).toList();
+
+        User reader = new User("reader@example.com", "$2a$10$abcdefghijklmnopqrstuuN5b3pYgkz9rJ7d0XwQkFz0lV7Qq1G2e",
+                "Reader", Set.of(Role.USER));
+        reader.setId(7L);
+        reviews = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            Review review = new Review();
+            review.setId((long) i);
+            review.setBook(books.get(0));
+            review.setUser(reader);
+            review.setText("Loved the world building, the pacing drags in the middle. " + i);
+            review.setRating(4.0);
+            review.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0).plusHours(i));
+            review.setUpdatedAt(review.getCreatedAt());
+            reviews.add(review);
+        }
+        reviewSummaries = reviews.stream().map(ReviewSummary::of).toList();
+
+        try {
+            System.out.printf("%nPayload bytes: books %d -> %d, reviews %d -> %d%n",
+                    mapper.writeValueAsBytes(books).length, mapper.writeValueAsBytes(bookSummaries).length,
+                    mapper.writeValueAsBytes(reviews).length, mapper.writeValueAsBytes(reviewSummaries).length);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public byte[] bookPageEntities() throws Exception {
+        return mapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] bookPageSummaries() throws Exception {
+        return mapper.writeValueAsBytes(bookSummaries);
+    }
+
+    @Benchmark
+    public byte[] reviewListEntities() throws Exception {
+        return mapper.writeValueAsBytes(reviews);
+    }
+
+    @Benchmark
+    public byte[] reviewListSummaries() throws Exception {
+        return mapper.writeValueAsBytes(reviewSummaries);
+    }
+}
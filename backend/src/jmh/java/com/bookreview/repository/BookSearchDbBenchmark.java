@@ -0,0 +1,146 @@
+package com.bookreview.repository;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Old ({@code like}) versus new ({@code fulltext}) /books search latency on a real
+ * PostgreSQL catalog. Needs a database with the application schema and
+ * {@code db/book-search.sql} applied; excluded from the default JMH run:
+ * <pre>
+ * mvn -Pjmh -DskipTests verify -Djmh.args="-f 1 -wi 3 -i 5 BookSearchDb \
+ *   -jvmArgs -Dbench.db.url=jdbc:postgresql://localhost/bookreview -jvmArgs -Dbench.db.user=... \
+ *   -jvmArgs -Dbench.db.password=... -jvmArgs -Dbench.db.rows=1000000"
+ * </pre>
+ * With {@code bench.db.rows} set, the books table is topped up with synthetic rows first.
+ * Each invocation runs the page query plus the count query, as a page request does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BookSearchDbBenchmark {
+
+    private static final Pattern NAMED_PARAM = Pattern.compile("(?<!:):([A-Za-z]\\w*)");
+
+    @Param({"like", "fulltext"})
+    public String mode;
+
+    @Param({"dune", "lord rings", "fondation"})
+    public String title;
+
+    private Connection connection;
+    private PreparedStatement select;
+    private PreparedStatement count;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        String url = System.getProperty("bench.db.url");
+        if (url == null) {
+            throw new IllegalStateException("Set -Dbench.db.url (and bench.db.user / bench.db.password)");
+        }
+        connection = DriverManager.getConnection(url,
+                System.getProperty("bench.db.user"), System.getProperty("bench.db.password"));
+        String rows = System.getProperty("bench.db.rows");
+        if (rows != null) {
+            seed(Long.parseLong(rows));
+        }
+        if ("like".equals(mode)) {
+            // Same shape as the Specification query Hibernate issues today
+            select = connection.prepareStatement(
+                    "SELECT " + BookSearchSql.SUMMARY_COLUMNS + " FROM books b WHERE lower(b.title) LIKE ? ORDER BY b.title ASC LIMIT 20 OFFSET 0");
+            count = connection.prepareStatement("SELECT count(b.id) FROM books b WHERE lower(b.title) LIKE ?");
+            String pattern = "%" + title.toLowerCase(Locale.ROOT) + "%";
+            select.setString(1, pattern);
+            count.setString(1, pattern);
+        } else {
+            BookSearchSql sql = BookSearchSql.build(title, null, null, false, null, PageRequest.of(0, 20, Sort.by("title")));
+            select = prepare(sql.selectSql, sql.params);
+            count = prepare(sql.countSql, sql.params);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public void searchPage(Blackhole blackhole) throws Exception {
+        try (ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong("id"));
+            }
+        }
+        try (ResultSet rs = count.executeQuery()) {
+            rs.next();
+            blackhole.consume(rs.getLong(1));
+        }
+    }
+
+    private PreparedStatement prepare(String namedSql, Map<String, Object> params) throws Exception {
+        List<Object> values = new ArrayList<>();
+        Matcher matcher = NAMED_PARAM.matcher(namedSql);
+        StringBuilder sql = new StringBuilder();
+        while (matcher.find()) {
+            values.add(params.get(matcher.group(1)));
+            matcher.appendReplacement(sql, "?");
+        }
+        matcher.appendTail(sql);
+        PreparedStatement statement = connection.prepareStatement(sql.toString());
+        for (int i = 0; i < values.size(); i++) {
+            statement.setObject(i + 1, values.get(i));
+        }
+        return statement;
+    }
+
+    private void seed(long targetRows) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT count(*) FROM books")) {
+            rs.next();
+            long missing = targetRows - rs.getLong(1);
+            if (missing <= 0) {
+                return;
+            }
+            statement.executeUpdate("""
+                    INSERT INTO books (title, author, genres, year, review_count)
+                    SELECT w[1 + (random() * 15)::int] || ' ' || w[1 + (random() * 15)::int] || ' ' || g,
+                           a[1 + (random() * 7)::int] || ' ' || g % 5000,
+                           genre[1 + (random() * 4)::int],
+                           1900 + (random() * 125)::int,
+                           0
+                    FROM generate_series(1, %d) g,
+                         LATERAL (SELECT ARRAY['Dune','Lord','Rings','Foundation','Empire','Night','River','Shadow',
+                                               'Garden','Winter','Stone','Fire','Ocean','Silent','Crown','Glass'] AS w,
+                                         ARRAY['Herbert','Tolkien','Asimov','Le Guin','Atwood','Morrison','Pratchett','Banks'] AS a,
+                                         ARRAY['Sci-Fi','Fantasy','Mystery','Romance','History'] AS genre) words
+                    """.formatted(missing));
+            statement.execute("ANALYZE books");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.bookreview.security;
+
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.service.CustomUserDetailsService;
+import com.bookreview.support.InMemoryRepositories;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One full {@link JwtAuthFilter#doFilterInternal} pass per invocation with mock servlet
+ * objects: verify, denylist and epoch checks, principal resolution and context setup.
+ * {@code stateless=false} resolves the principal through the user-details cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"false", "true"})
+    public boolean stateless;
+
+    private JwtAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain chain;
+
+    @Setup
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        User user = new User("reader@example.com", "hash", "Reader", Set.of(Role.USER));
+        user.setId(42L);
+        JwtService jwtService = JwtServiceBenchmark.newJwtService();
+        SecurityEpochRegistry epochRegistry = new SecurityEpochRegistry(InMemoryRepositories.users(List.of(user)));
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(
+                InMemoryRepositories.users(List.of(user)), epochRegistry, registry, 10_000, 300);
+        RevokedTokenRegistry revokedTokens = new RevokedTokenRegistry(
+                InMemoryRepositories.noRevokedTokens(), registry, 10_000, 0.001);
+        filter = new JwtAuthFilter(jwtService, userDetailsService, epochRegistry, revokedTokens, stateless);
+
+        request = new MockHttpServletRequest("GET", "/favourites/my");
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(user));
+        response = new MockHttpServletResponse();
+        chain = (req, res) -> { };
+    }
+
+    @Benchmark
+    public void doFilterInternal(Blackhole blackhole) throws Exception {
+        SecurityContextHolder.clearContext();
+        filter.doFilterInternal(request, response, chain);
+        blackhole.consume(SecurityContextHolder.getContext().getAuthentication());
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookreview.security;
+
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification costs. {@code *Cached} variants hit the verified-token
+ * cache as repeat requests do; {@code extractUsernameUncached} pays the full
+ * parse and HMAC check that a first request with a token pays.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class JwtServiceBenchmark {
+
+    static final String SECRET = "dGVzdC1zZWNyZXQta2V5LWZvci1qd3QtYmVuY2htYXJrcy0xMjM0NTY3ODkw";
+
+    private JwtService jwtService;
+    private AuthenticatedUser principal;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtService = newJwtService();
+        User user = new User("reader@example.com", "hash", "Reader", Set.of(Role.USER));
+        user.setId(42L);
+        principal = AuthenticatedUser.from(user);
+        token = jwtService.generateToken(principal);
+    }
+
+    static JwtService newJwtService() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        JwtService service = new JwtService(new VerifiedTokenCache(10_000, registry), registry);
+        ReflectionTestUtils.setField(service, "secret", SECRET);
+        ReflectionTestUtils.setField(service, "expirationMillis", 3_600_000L);
+        return service;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(principal);
+    }
+
+    @Benchmark
+    public String extractUsernameCached() {
+        return jwtService.extractUsername(token);
+    }
+
+    @Benchmark
+    public String extractUsernameUncached() {
+        return jwtService.extractClaim(token, Claims::getSubject);
+    }
+
+    @Benchmark
+    public boolean isTokenValidCached() {
+        return jwtService.isTokenValid(token, "reader@example.com");
+    }
+}
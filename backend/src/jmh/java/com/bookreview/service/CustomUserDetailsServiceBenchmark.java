@@ -0,0 +1,67 @@
+package com.bookreview.service;
+
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.SecurityEpochRegistry;
+import com.bookreview.support.InMemoryRepositories;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * User-details lookups against an in-memory repository: a warm cache hit versus a miss
+ * that rebuilds the immutable principal (the repository cost itself is excluded).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CustomUserDetailsServiceBenchmark {
+
+    private static final int USERS = 1_000;
+
+    private CustomUserDetailsService service;
+    private String[] emails;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<User> users = new ArrayList<>();
+        emails = new String[USERS];
+        for (int i = 0; i < USERS; i++) {
+            User user = new User("reader" + i + "@example.com", "hash", "Reader " + i, Set.of(Role.USER));
+            user.setId((long) i);
+            users.add(user);
+            emails[i] = user.getEmail();
+        }
+        UserRepository userRepository = InMemoryRepositories.users(users);
+        service = new CustomUserDetailsService(userRepository, new SecurityEpochRegistry(userRepository),
+                new SimpleMeterRegistry(), 10_000, 300);
+        for (String email : emails) {
+            service.loadCachedUser(email);
+        }
+    }
+
+    @Benchmark
+    public UserDetails loadCachedUserHit() {
+        return service.loadCachedUser(emails[next++ & 511]);
+    }
+
+    @Benchmark
+    public UserDetails loadCachedUserMiss() {
+        int i = next++ % USERS;
+        service.evict((long) i, emails[i]);
+        return service.loadCachedUser(emails[i]);
+    }
+}
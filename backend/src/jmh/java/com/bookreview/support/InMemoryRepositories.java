@@ -0,0 +1,57 @@
+package com.bookreview.support;
+
+import com.bookreview.model.User;
+import com.bookreview.repository.RevokedTokenRepository;
+import com.bookreview.repository.UserRepository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Repository stubs for benchmarks: only the finders on the authentication path are
+ * implemented, backed by plain maps so that measurements exclude any database.
+ */
+public final class InMemoryRepositories {
+
+    private InMemoryRepositories() {}
+
+    public static UserRepository users(Collection<User> users) {
+        Map<String, User> byEmail = new ConcurrentHashMap<>();
+        users.forEach(user -> byEmail.put(user.getEmail(), user));
+        return proxy(UserRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "findByEmail" -> Optional.ofNullable(byEmail.get((String) args[0]));
+            case "existsByEmail" -> byEmail.containsKey((String) args[0]);
+            case "findBySecurityEpochGreaterThan" -> List.of();
+            default -> objectMethod(proxy, method.getName(), args, UserRepository.class);
+        });
+    }
+
+    public static RevokedTokenRepository noRevokedTokens() {
+        return proxy(RevokedTokenRepository.class, (proxy, method, args) -> switch (method.getName()) {
+            case "existsById" -> false;
+            case "countByExpiresAtAfter" -> 0L;
+            case "deleteExpired" -> 0;
+            case "findLiveTokenIds" -> List.of();
+            default -> objectMethod(proxy, method.getName(), args, RevokedTokenRepository.class);
+        });
+    }
+
+    private static Object objectMethod(Object proxy, String name, Object[] args, Class<?> type) {
+        return switch (name) {
+            case "toString" -> "InMemory" + type.getSimpleName();
+            case "hashCode" -> System.identityHashCode(proxy);
+            case "equals" -> proxy == args[0];
+            default -> throw new UnsupportedOperationException(type.getSimpleName() + "." + name);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+}
@@ -1,6 +1,9 @@
 package com.bookreview.config;
 
+import com.bookreview.security.BoundedBCryptPasswordEncoder;
 import com.bookreview.security.JwtAuthFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -8,7 +11,6 @@ import org.springframework.security.config.annotation.authentication.configurati
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -66,9 +68,16 @@ public class SecurityConfig {
         return http.build();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    // BCrypt runs on its own bounded pool so a login burst cannot starve request threads
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt.strength:10}") int strength,
+                                           @Value("${app.security.password-hashing.threads:0}") int threads,
+                                           @Value("${app.security.password-hashing.queueCapacity:64}") int queueCapacity,
+                                           @Value("${app.security.password-hashing.maxWaitMillis:5000}") long maxWaitMillis,
+                                           @Value("${app.security.password-hashing.retryAfterSeconds:2}") long retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        return new BoundedBCryptPasswordEncoder(strength, threads, queueCapacity,
+                maxWaitMillis, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
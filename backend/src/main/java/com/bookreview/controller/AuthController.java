@@ -2,13 +2,21 @@ package com.bookreview.controller;
 
 import com.bookreview.dto.AuthResponse;
 import com.bookreview.dto.LoginRequest;
+import com.bookreview.dto.RefreshTokenRequest;
 import com.bookreview.dto.SignupRequest;
 import com.bookreview.model.Role;
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
 import com.bookreview.security.JwtService;
-import com.bookreview.service.EmailService;
+import com.bookreview.security.PasswordHashingRejectedException;
+import com.bookreview.security.RevokedTokenRegistry;
+import com.bookreview.service.AuthService;
+import com.bookreview.service.RefreshTokenService;
+import io.jsonwebtoken.JwtException;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -27,18 +35,24 @@ public class AuthController {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
-    private final EmailService emailService;
+    private final AuthService authService;
+    private final RefreshTokenService refreshTokenService;
+    private final RevokedTokenRegistry revokedTokens;
 
     public AuthController(AuthenticationManager authenticationManager,
                           UserRepository userRepository,
                           PasswordEncoder passwordEncoder,
                           JwtService jwtService,
-                          EmailService emailService) {
+                          AuthService authService,
+                          RefreshTokenService refreshTokenService,
+                          RevokedTokenRegistry revokedTokens) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.jwtService = jwtService;
-        this.emailService = emailService;
+        this.authService = authService;
+        this.refreshTokenService = refreshTokenService;
+        this.revokedTokens = revokedTokens;
     }
 
     @PostMapping("/signup")
@@ -49,14 +63,15 @@ public class AuthController {
         User user = new User();
         user.setEmail(request.getEmail());
         user.setName(request.getName());
+        // Hash before the transaction starts: BCrypt must not hold a DB connection
         user.setPasswordHash(passwordEncoder.encode(request.getPassword()));
         user.setRoles(new HashSet<>(Collections.singleton(Role.USER)));
-        userRepository.save(user);
-        // Send welcome email (no-op if disabled)
-        emailService.sendSignupEmail(user.getEmail(), user.getName());
+        // Saves the user and queues the welcome email atomically; no SMTP on the request thread
+        user = authService.register(user);
         // Auto-login: issue token
-        String token = jwtService.generateToken(user.getEmail(), Map.of("roles", List.of("USER")));
-        return ResponseEntity.ok(new AuthResponse(token));
+        String token = jwtService.generateToken(user);
+        String refreshToken = refreshTokenService.issue(user.getId(), user.getSecurityEpoch());
+        return ResponseEntity.ok(new AuthResponse(token, refreshToken));
     }
 
     @PostMapping("/login")
@@ -65,17 +80,50 @@ public class AuthController {
             Authentication auth = authenticationManager.authenticate(
                     new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
             );
-            String username = auth.getName();
-            String token = jwtService.generateToken(username, Map.of());
-            return ResponseEntity.ok(new AuthResponse(token));
+            // The principal already carries id, roles and epoch: no second user lookup
+            AuthenticatedUser principal = (AuthenticatedUser) auth.getPrincipal();
+            String token = jwtService.generateToken(principal);
+            String refreshToken = refreshTokenService.issue(principal.getId(), principal.getSecurityEpoch());
+            return ResponseEntity.ok(new AuthResponse(token, refreshToken));
         } catch (AuthenticationException ex) {
             return ResponseEntity.status(401).body(Map.of("error", "Authentication failed"));
         }
     }
 
+    // New access token from a refresh token: no password, no BCrypt
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        try {
+            RefreshTokenService.Rotation rotation = refreshTokenService.rotate(request.getRefreshToken());
+            String token = jwtService.generateToken(rotation.principal());
+            return ResponseEntity.ok(new AuthResponse(token, rotation.refreshToken()));
+        } catch (AuthenticationException ex) {
+            return ResponseEntity.status(401).body(Map.of("error", "Invalid refresh token"));
+        }
+    }
+
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
-        // Stateless JWT: client discards token
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader,
+                                    @RequestBody(required = false) RefreshTokenRequest request) {
+        // Deny the access token until it expires and end the refresh token's session
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            try {
+                revokedTokens.revoke(jwtService.verify(authHeader.substring(7)));
+            } catch (JwtException | IllegalArgumentException ex) {
+                // Invalid or expired token: nothing left to revoke
+            }
+        }
+        if (request != null && request.getRefreshToken() != null && !request.getRefreshToken().isBlank()) {
+            refreshTokenService.revoke(request.getRefreshToken());
+        }
         return ResponseEntity.ok(Map.of("message", "Logged out"));
     }
+
+    // Hashing pool saturated: shed the request fast instead of queueing it behind the burst
+    @ExceptionHandler(PasswordHashingRejectedException.class)
+    public ResponseEntity<?> handleHashingRejected(PasswordHashingRejectedException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(Map.of("error", "Server busy, please retry"));
+    }
 }
@@ -1,7 +1,14 @@
 package com.bookreview.controller;
 
-import com.bookreview.model.Book;
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ImportJobStatus;
+import com.bookreview.dto.ReconciliationReport;
+import com.bookreview.service.BookAggregateReconciler;
+import com.bookreview.service.BookImportService;
 import com.bookreview.service.BookService;
+import com.bookreview.service.BookSuggestionIndex;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,57 +18,188 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping
 @Tag(name = "Books", description = "Books catalog endpoints")
 public class BookController {
 
     private final BookService bookService;
+    private final BookSuggestionIndex suggestionIndex;
+    private final BookImportService importService;
+    private final CatalogEtags catalogEtags;
+    private final BookAggregateReconciler reconciler;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookSuggestionIndex suggestionIndex, BookImportService importService,
+                          CatalogEtags catalogEtags, BookAggregateReconciler reconciler) {
         this.bookService = bookService;
+        this.suggestionIndex = suggestionIndex;
+        this.importService = importService;
+        this.catalogEtags = catalogEtags;
+        this.reconciler = reconciler;
     }
 
-    @Operation(summary = "Search/list books", description = "Filter by optional title, author, genre, year with pagination")
+    @Operation(summary = "Search/list books", description = "Filter by optional title, author, genre, year with pagination. "
+            + "Items are book cards without the description; fetch /books/{id} for the full record. "
+            + "genre takes one or more comma-separated genres, matched exactly; genreMatch=all requires every one of them. "
+            + "In fulltext search mode, title/author matches are prefix- and typo-tolerant and ranked by relevance before the requested sort")
     @GetMapping("/books")
-    public ResponseEntity<Page<Book>> searchBooks(
+    public ResponseEntity<Page<BookSummary>> searchBooks(
+            @RequestParam(required = false) String title,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "any") String genreMatch,
+            @RequestParam(required = false) Integer year,
+            @Parameter(hidden = true) @PageableDefault(size = 20, sort = {"title"}) Pageable pageable) {
+        return ResponseEntity.ok(bookService.search(title, author, genre, "all".equalsIgnoreCase(genreMatch), year, pageable));
+    }
+
+    @Operation(summary = "Scroll books by cursor (keyset pagination)",
+            description = "Selected when the after parameter is present: pass after= for the first page, then each response's "
+                    + "nextCursor. Seeks on (sort key, id) without OFFSET or count queries; sort by one of title, author, year, "
+                    + "avgRating, reviewCount, id. includeTotal=true adds an estimate from the in-memory genre/year index "
+                    + "(omitted when title or author is filtered)")
+    @GetMapping(value = "/books", params = "after")
+    public ResponseEntity<?> scrollBooks(
             @RequestParam(required = false) String title,
             @RequestParam(required = false) String author,
             @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "any") String genreMatch,
             @RequestParam(required = false) Integer year,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "false") boolean includeTotal,
             @Parameter(hidden = true) @PageableDefault(size = 20, sort = {"title"}) Pageable pageable) {
-        return ResponseEntity.ok(bookService.search(title, author, genre, year, pageable));
+        try {
+            CursorPage<BookSummary> page = bookService.scroll(title, author, genre, "all".equalsIgnoreCase(genreMatch), year,
+                    after, pageable.getPageSize(), pageable.getSort(), includeTotal);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
-    @Operation(summary = "Get book details by ID")
+    @Operation(summary = "Genre and year facet counts",
+            description = "Book counts per genre and per year for the given genre/year selection, computed in memory. "
+                    + "Title and author filters are not applied")
+    @GetMapping("/books/facets")
+    public ResponseEntity<?> bookFacets(
+            @RequestParam(required = false) String genre,
+            @RequestParam(defaultValue = "any") String genreMatch,
+            @RequestParam(required = false) Integer year) {
+        return bookService.facets(genre, "all".equalsIgnoreCase(genreMatch), year)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(503).body(Map.of("error", "Facets are not available yet")));
+    }
+
+    @Operation(summary = "Title/author typeahead", description = "Books whose title or author words start with each word of q, "
+            + "most reviewed and best rated first. Served from memory; at most 50 results")
+    @GetMapping("/books/suggest")
+    public ResponseEntity<List<BookSuggestionIndex.Suggestion>> suggestBooks(
+            @RequestParam(required = false) String q,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(suggestionIndex.suggest(q, limit));
+    }
+
+    @Operation(summary = "Get book details by ID",
+            description = "Served from the in-process book cache. Sends a strong ETag; If-None-Match with the current one "
+                    + "gets 304 without reading the book")
     @GetMapping("/books/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookSnapshot> getBookById(@PathVariable Long id, @Parameter(hidden = true) WebRequest request) {
+        if (request.checkNotModified(catalogEtags.book(id))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogEtags.cacheControl()).build();
+        }
         return bookService
                 .findById(id)
-                .map(ResponseEntity::ok)
+                .map(book -> ResponseEntity.ok().cacheControl(catalogEtags.cacheControl()).body(book))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @Operation(summary = "Import books via CSV (admin-only)",
-            description = "Accepts a CSV file with headers: title, author, description, cover_url, genres, year",
+            description = "Accepts a CSV file with headers: title, author, description, cover_url, genres, year. "
+                    + "The import runs in the background; poll the returned job via GET /admin/books/import/{jobId}",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Import result",
+                    @ApiResponse(responseCode = "202", description = "Import job queued",
                             content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
-                                    schema = @Schema(implementation = ImportResponse.class)))
+                                    schema = @Schema(implementation = ImportJobStatus.class))),
+                    @ApiResponse(responseCode = "503", description = "Too many imports already queued")
             })
     @PreAuthorize("hasRole('ADMIN')")
     @PostMapping(value = "/admin/books/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<ImportResponse> importBooks(@RequestPart("file") MultipartFile file) throws Exception {
-        int count = bookService.importCsv(file);
-        return ResponseEntity.ok(new ImportResponse(count));
+    public ResponseEntity<?> importBooks(@RequestPart("file") MultipartFile file) throws IOException {
+        try {
+            ImportJobStatus job = importService.submit(file);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/admin/books/import/" + job.id()))
+                    .body(job);
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "Too many imports in progress, try again later"));
+        }
+    }
+
+    @Operation(summary = "Import books from a server-local CSV file (admin-only)",
+            description = "For catalogs too large to upload: path is relative to app.books.import.localDir. The file is "
+                    + "memory-mapped and parsed in parallel; poll the returned job like an upload import",
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Import job queued",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ImportJobStatus.class))),
+                    @ApiResponse(responseCode = "400", description = "Local imports disabled or no such file"),
+                    @ApiResponse(responseCode = "503", description = "Too many imports already queued")
+            })
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/books/import/local")
+    public ResponseEntity<?> importLocalBooks(@RequestParam String path) throws IOException {
+        try {
+            ImportJobStatus job = importService.submitLocal(path);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/admin/books/import/" + job.id()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(503).body(Map.of("error", "Too many imports in progress, try again later"));
+        }
     }
 
-    // Simple response DTO for import endpoint
-    public record ImportResponse(int imported) { }
+    @Operation(summary = "CSV import job status (admin-only)",
+            description = "Rows read, inserted, updated, unchanged, skipped (missing title or author) and failed so far; "
+                    + "rowsPerSecondPerCore once finished")
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/admin/books/import/{jobId}")
+    public ResponseEntity<ImportJobStatus> importStatus(@PathVariable String jobId) {
+        return importService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Reconcile book rating aggregates (admin-only)",
+            description = "Recomputes every book's rating sum, review count, average and star counts from its reviews "
+                    + "and corrects the books that differ. Runs on one node at a time",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Books corrected and elapsed time",
+                            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                    schema = @Schema(implementation = ReconciliationReport.class))),
+                    @ApiResponse(responseCode = "409", description = "A reconciliation is already running")
+            })
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/admin/books/aggregates/reconcile")
+    public ResponseEntity<?> reconcileAggregates() {
+        return reconciler.reconcile()
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "A reconciliation is already running")));
+    }
 }
@@ -0,0 +1,47 @@
+package com.bookreview.controller;
+
+import com.bookreview.service.BookVersionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Strong ETags and Cache-Control for the public catalog reads. Tags come from the
+ * in-memory {@link BookVersionRegistry}, so a matching If-None-Match is answered with
+ * 304 before any query runs. A tag is read before the data it describes, so it never
+ * labels older content; a node that has not yet reloaded another node's change may
+ * answer 304 for up to one reload interval. Browsers always revalidate; shared caches
+ * (the CDN) may serve a response for {@code sharedMaxAgeSeconds} before revalidating.
+ */
+@Component
+public class CatalogEtags {
+
+    private final BookVersionRegistry versions;
+
+    @Value("${app.http.catalog.sharedMaxAgeSeconds:60}")
+    private long sharedMaxAgeSeconds = 60;
+
+    public CatalogEtags(BookVersionRegistry versions) {
+        this.versions = versions;
+    }
+
+    public String book(Long bookId) {
+        return "\"book-" + bookId + "-v" + versions.version(bookId) + "\"";
+    }
+
+    public String bookReviews(Long bookId) {
+        return "\"reviews-" + bookId + "-v" + versions.version(bookId) + "\"";
+    }
+
+    public String topRated(int limit) {
+        return "\"top-rated-" + limit + "-v" + versions.catalogVersion() + "\"";
+    }
+
+    public CacheControl cacheControl() {
+        return CacheControl.maxAge(Duration.ZERO)
+                .sMaxAge(Duration.ofSeconds(sharedMaxAgeSeconds))
+                .cachePublic();
+    }
+}
@@ -2,15 +2,17 @@ package com.bookreview.controller;
 
 import com.bookreview.model.Book;
 import com.bookreview.dto.AiRecommendationDto;
-import com.bookreview.service.AuthService;
+import com.bookreview.security.CurrentUserId;
 import com.bookreview.service.RecommendationService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -19,24 +21,31 @@ import java.util.List;
 @Tag(name = "Recommendations", description = "Book recommendation endpoints")
 public class RecommendationController {
 
+    private static final int TOP_RATED_LIMIT = 5;
+
     private final RecommendationService recommendationService;
-    private final AuthService authService;
+    private final CatalogEtags catalogEtags;
 
-    public RecommendationController(RecommendationService recommendationService, AuthService authService) {
+    public RecommendationController(RecommendationService recommendationService, CatalogEtags catalogEtags) {
         this.recommendationService = recommendationService;
-        this.authService = authService;
+        this.catalogEtags = catalogEtags;
     }
 
-    @Operation(summary = "Top-rated books (local)")
+    @Operation(summary = "Top-rated books (local)",
+            description = "Sends a strong ETag that changes with any rating or catalog change; If-None-Match with the "
+                    + "current one gets 304 without a query")
     @GetMapping("/top-rated")
-    public ResponseEntity<List<Book>> topRated() {
-        return ResponseEntity.ok(recommendationService.getTopRated(5));
+    public ResponseEntity<List<Book>> topRated(@Parameter(hidden = true) WebRequest request) {
+        if (request.checkNotModified(catalogEtags.topRated(TOP_RATED_LIMIT))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogEtags.cacheControl()).build();
+        }
+        return ResponseEntity.ok().cacheControl(catalogEtags.cacheControl())
+                .body(recommendationService.getTopRated(TOP_RATED_LIMIT));
     }
 
     @Operation(summary = "AI-based recommendations using user's favourite genres (MVP)")
     @GetMapping("/ai")
-    public ResponseEntity<List<AiRecommendationDto>> aiRecommendations(Authentication auth) {
-        Long userId = authService.extractUserId(auth);
+    public ResponseEntity<List<AiRecommendationDto>> aiRecommendations(@Parameter(hidden = true) @CurrentUserId Long userId) {
         return ResponseEntity.ok(recommendationService.getAiRecommendations(userId, 5));
     }
 }
@@ -1,15 +1,21 @@
 package com.bookreview.controller;
 
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ReviewItem;
+import com.bookreview.dto.ReviewSummary;
 import com.bookreview.model.Review;
-import com.bookreview.service.AuthService;
+import com.bookreview.security.CurrentUserId;
 import com.bookreview.service.ReviewService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/reviews")
@@ -17,52 +23,75 @@ import java.util.List;
 public class    ReviewController {
 
     private final ReviewService reviewService;
-    private final AuthService authService;
+    private final CatalogEtags catalogEtags;
 
-    public ReviewController(ReviewService reviewService, AuthService authService) {
+    public ReviewController(ReviewService reviewService, CatalogEtags catalogEtags) {
         this.reviewService = reviewService;
-        this.authService = authService;
+        this.catalogEtags = catalogEtags;
     }
 
-    @Operation(summary = "Get reviews for a book")
+    @Operation(summary = "Get reviews for a book",
+            description = "Sends a strong ETag; If-None-Match with the current one gets 304 without reading the reviews")
     @GetMapping("/book/{bookId}")
-    public ResponseEntity<List<Review>> getReviewsByBook(@PathVariable Long bookId) {
-        return ResponseEntity.ok(reviewService.findByBookId(bookId));
+    public ResponseEntity<List<ReviewSummary>> getReviewsByBook(@PathVariable Long bookId,
+            @Parameter(hidden = true) WebRequest request) {
+        if (request.checkNotModified(catalogEtags.bookReviews(bookId))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogEtags.cacheControl()).build();
+        }
+        return ResponseEntity.ok().cacheControl(catalogEtags.cacheControl()).body(reviewService.findByBookId(bookId));
+    }
+
+    @Operation(summary = "Scroll a book's reviews by cursor (keyset pagination)",
+            description = "Selected when the after parameter is present: pass after= for the first page, then each "
+                    + "response's nextCursor. sort=recent (default) lists newest first, sort=rating best rated first. "
+                    + "Items carry only id, rating, text, reviewer name and timestamps. Same ETag as the full list")
+    @GetMapping(value = "/book/{bookId}", params = "after")
+    public ResponseEntity<?> scrollReviewsByBook(@PathVariable Long bookId,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "recent") String sort,
+            @RequestParam(defaultValue = "20") int size,
+            @Parameter(hidden = true) WebRequest request) {
+        if (request.checkNotModified(catalogEtags.bookReviews(bookId))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(catalogEtags.cacheControl()).build();
+        }
+        try {
+            CursorPage<ReviewItem> page = reviewService.scrollByBook(bookId, after, sort, size);
+            return ResponseEntity.ok().cacheControl(catalogEtags.cacheControl()).body(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @Operation(summary = "Get user's own reviews")
     @GetMapping("/my")
-    public ResponseEntity<List<Review>> getMyReviews(Authentication auth) {
-        Long userId = authService.extractUserId(auth);
+    public ResponseEntity<List<ReviewSummary>> getMyReviews(@Parameter(hidden = true) @CurrentUserId Long userId) {
         return ResponseEntity.ok(reviewService.findByUserId(userId));
     }
 
     @Operation(summary = "Get user's review for a specific book")
     @GetMapping("/book/{bookId}/my")
-    public ResponseEntity<Review> getMyReviewForBook(@PathVariable Long bookId, Authentication auth) {
-        Long userId = authService.extractUserId(auth);
+    public ResponseEntity<ReviewSummary> getMyReviewForBook(@PathVariable Long bookId,
+            @Parameter(hidden = true) @CurrentUserId Long userId) {
         return reviewService.findByBookIdAndUserId(bookId, userId)
-                .map(ResponseEntity::ok)
+                .map(review -> ResponseEntity.ok(ReviewSummary.of(review)))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @Operation(summary = "Create or update review for a book")
     @PostMapping("/book/{bookId}")
-    public ResponseEntity<Review> createOrUpdateReview(
+    public ResponseEntity<ReviewSummary> createOrUpdateReview(
             @PathVariable Long bookId,
             @RequestBody ReviewRequest request,
-            Authentication auth) {
-        Long userId = authService.extractUserId(auth);
-        
+            @Parameter(hidden = true) @CurrentUserId Long userId) {
         Review review = reviewService.createOrUpdateReview(
                 bookId, userId, request.text(), request.rating());
-        return ResponseEntity.ok(review);
+        return ResponseEntity.ok(ReviewSummary.of(review));
     }
 
     @Operation(summary = "Delete own review")
     @DeleteMapping("/{reviewId}")
-    public ResponseEntity<Void> deleteReview(@PathVariable Long reviewId, Authentication auth) {
-        Long userId = authService.extractUserId(auth);
+    public ResponseEntity<Void> deleteReview(@PathVariable Long reviewId,
+            @Parameter(hidden = true) @CurrentUserId Long userId) {
         reviewService.deleteReview(reviewId, userId);
         return ResponseEntity.noContent().build();
     }
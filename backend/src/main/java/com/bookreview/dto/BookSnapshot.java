@@ -0,0 +1,38 @@
+package com.bookreview.dto;
+
+import com.bookreview.model.Book;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.List;
+
+/**
+ * Immutable copy of a {@link Book} as served by {@code GET /books/{id}}, safe to share
+ * between requests from the book cache. Renders the same JSON as the entity.
+ */
+public record BookSnapshot(Long id, String title, String author, String description, String coverUrl, String genres,
+                           Integer year, Double avgRating, Long reviewCount, List<Long> starCounts,
+                           @JsonIgnore long version) {
+
+    public static BookSnapshot of(Book book) {
+        return new BookSnapshot(book.getId(), book.getTitle(), book.getAuthor(), book.getDescription(),
+                book.getCoverUrl(), book.getGenres(), book.getYear(), book.getAvgRating(), book.getReviewCount(),
+                book.getStarCounts(), book.getVersion() == null ? 0L : book.getVersion());
+    }
+
+    /**
+     * @return this snapshot with the catalog columns a re-import wrote; the import bumped the version once
+     */
+    public BookSnapshot withCatalogColumns(Book imported) {
+        return new BookSnapshot(id, imported.getTitle(), imported.getAuthor(), imported.getDescription(),
+                imported.getCoverUrl(), imported.getGenres(), imported.getYear(), avgRating, reviewCount, starCounts,
+                version + 1);
+    }
+
+    /**
+     * @return this snapshot with the rating aggregates of the given version
+     */
+    public BookSnapshot withRatings(Double avgRating, Long reviewCount, List<Long> starCounts, long version) {
+        return new BookSnapshot(id, title, author, description, coverUrl, genres, year, avgRating, reviewCount,
+                starCounts, version);
+    }
+}
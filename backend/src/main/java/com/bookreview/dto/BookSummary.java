@@ -0,0 +1,21 @@
+package com.bookreview.dto;
+
+import com.bookreview.model.Book;
+
+/**
+ * The columns a book card renders. List endpoints select these directly instead of
+ * loading whole {@link Book} entities with their description text.
+ */
+public record BookSummary(Long id, String title, String author, String coverUrl, String genres, Integer year,
+                          Double avgRating, Long reviewCount) {
+
+    public static BookSummary of(Book book) {
+        return new BookSummary(book.getId(), book.getTitle(), book.getAuthor(), book.getCoverUrl(), book.getGenres(),
+                book.getYear(), book.getAvgRating(), book.getReviewCount());
+    }
+
+    public static BookSummary of(BookSnapshot book) {
+        return new BookSummary(book.id(), book.title(), book.author(), book.coverUrl(), book.genres(),
+                book.year(), book.avgRating(), book.reviewCount());
+    }
+}
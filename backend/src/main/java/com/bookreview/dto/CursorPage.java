@@ -0,0 +1,9 @@
+package com.bookreview.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last
+ * page; {@code estimatedTotal} is only filled in when requested and cheaply known.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, Long estimatedTotal) { }
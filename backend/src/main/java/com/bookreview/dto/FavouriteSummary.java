@@ -0,0 +1,22 @@
+package com.bookreview.dto;
+
+import com.bookreview.model.Favourite;
+
+import java.time.LocalDateTime;
+
+/**
+ * A favourite as rendered in lists: the book card without the owning user, who is
+ * always the caller.
+ */
+public record FavouriteSummary(Long id, LocalDateTime createdAt, BookSummary book) {
+
+    // Flat form for JPQL constructor expressions, which cannot nest
+    public FavouriteSummary(Long id, LocalDateTime createdAt, Long bookId, String title, String author, String coverUrl,
+                            String genres, Integer year, Double avgRating, Long reviewCount) {
+        this(id, createdAt, new BookSummary(bookId, title, author, coverUrl, genres, year, avgRating, reviewCount));
+    }
+
+    public static FavouriteSummary of(Favourite favourite) {
+        return new FavouriteSummary(favourite.getId(), favourite.getCreatedAt(), BookSummary.of(favourite.getBook()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.bookreview.dto;
+
+import java.time.Instant;
+
+/**
+ * Progress of a background CSV import. Every data row read ends up inserted, updated
+ * (same title and author, changed content), unchanged (no write), skipped (missing
+ * title or author) or failed (rejected by the database); {@code error} is only set
+ * when the whole job failed. {@code rowsPerSecondPerCore} is the parse-and-write
+ * throughput per parser thread, set once the job has finished.
+ */
+public record ImportJobStatus(String id, State state, long rowsRead, long inserted, long updated, long unchanged,
+                              long skipped, long failed, Double rowsPerSecondPerCore,
+                              Instant submittedAt, Instant startedAt, Instant finishedAt, String error) {
+
+    public enum State { QUEUED, RUNNING, COMPLETED, FAILED }
+}
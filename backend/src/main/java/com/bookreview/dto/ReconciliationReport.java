@@ -0,0 +1,9 @@
+package com.bookreview.dto;
+
+/**
+ * Outcome of a rating aggregate reconciliation: the book id chunks checked (and how many
+ * of them failed, to be retried by the next run), the books whose stored aggregates
+ * differed from their reviews and were corrected, and the wall-clock time it took.
+ */
+public record ReconciliationReport(long chunks, long failedChunks, long correctedBooks, long elapsedMillis) {
+}
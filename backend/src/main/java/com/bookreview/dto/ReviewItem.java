@@ -0,0 +1,10 @@
+package com.bookreview.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A review as listed under its book: only what the review card displays. The book is
+ * implied by the request and the reviewer is reduced to a display name.
+ */
+public record ReviewItem(Long id, Double rating, String text, String reviewerName,
+                         LocalDateTime createdAt, LocalDateTime updatedAt) { }
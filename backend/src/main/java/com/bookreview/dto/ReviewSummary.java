@@ -0,0 +1,30 @@
+package com.bookreview.dto;
+
+import com.bookreview.model.Review;
+
+import java.time.LocalDateTime;
+
+/**
+ * A review as rendered in lists: same JSON shape as the entity, but the nested book
+ * is a card and the nested user is only id and name (no hash, roles or version).
+ */
+public record ReviewSummary(Long id, String text, Double rating, LocalDateTime createdAt, LocalDateTime updatedAt,
+                            BookSummary book, Reviewer user) {
+
+    public record Reviewer(Long id, String name) { }
+
+    // Flat form for JPQL constructor expressions, which cannot nest
+    public ReviewSummary(Long id, String text, Double rating, LocalDateTime createdAt, LocalDateTime updatedAt,
+                         Long bookId, String title, String author, String coverUrl, String genres, Integer year,
+                         Double avgRating, Long reviewCount, Long userId, String userName) {
+        this(id, text, rating, createdAt, updatedAt,
+                new BookSummary(bookId, title, author, coverUrl, genres, year, avgRating, reviewCount),
+                new Reviewer(userId, userName));
+    }
+
+    public static ReviewSummary of(Review review) {
+        return new ReviewSummary(review.getId(), review.getText(), review.getRating(), review.getCreatedAt(),
+                review.getUpdatedAt(), BookSummary.of(review.getBook()),
+                new Reviewer(review.getUser().getId(), review.getUser().getName()));
+    }
+}
@@ -1,12 +1,24 @@
 package com.bookreview.model;
 
+import com.bookreview.service.BookIndexListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Entity
-@Table(name = "books", indexes = {
-        @Index(name = "idx_books_title", columnList = "title"),
-        @Index(name = "idx_books_author", columnList = "author"),
-        @Index(name = "idx_books_year", columnList = "year")
+@EntityListeners(BookIndexListener.class)
+@Table(name = "books", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_books_natural_key", columnNames = {"natural_key"})
+}, indexes = {
+        // (key, id) pairs serve both filters on the key and keyset pagination sorted by it
+        @Index(name = "idx_books_title_id", columnList = "title, id"),
+        @Index(name = "idx_books_author_id", columnList = "author, id"),
+        @Index(name = "idx_books_year_id", columnList = "year, id"),
+        @Index(name = "idx_books_avg_rating_id", columnList = "avg_rating, id"),
+        @Index(name = "idx_books_review_count_id", columnList = "review_count, id")
 })
 public class Book {
 
@@ -26,20 +38,69 @@ public class Book {
     @Column(name = "cover_url")
     private String coverUrl;
 
-    // Comma-separated genres for MVP; can be normalized later
+    // Comma-separated genres as imported, kept for display; filters use genreSet
     @Column(length = 512)
     private String genres;
 
+    @JsonIgnore
+    @ManyToMany(fetch = FetchType.LAZY)
+    @JoinTable(name = "book_genres",
+            joinColumns = @JoinColumn(name = "book_id"),
+            inverseJoinColumns = @JoinColumn(name = "genre_id"),
+            indexes = @Index(name = "idx_book_genres_genre", columnList = "genre_id"))
+    private Set<Genre> genreSet = new HashSet<>();
+
     @Column(name = "year")
     private Integer year;
 
-    // Rating aggregates
-    @Column(name = "avg_rating")
+    // Rating aggregates: avg_rating is rating_sum / review_count, rounded to 1 decimal place.
+    // Written only by BookRatingWriter's atomic UPDATE, never by entity flushes
+    @Column(name = "avg_rating", updatable = false)
     private Double avgRating;
 
-    @Column(name = "review_count", nullable = true)
+    @Column(name = "review_count", nullable = true, updatable = false)
     private Long reviewCount = 0L;
 
+    @JsonIgnore
+    @Column(name = "rating_sum", nullable = false, updatable = false)
+    private Double ratingSum = 0.0;
+
+    // Number of counted reviews per star (rating rounded half up), served as starCounts
+    @JsonIgnore
+    @Column(name = "stars_1", nullable = false, updatable = false)
+    private Long stars1 = 0L;
+
+    @JsonIgnore
+    @Column(name = "stars_2", nullable = false, updatable = false)
+    private Long stars2 = 0L;
+
+    @JsonIgnore
+    @Column(name = "stars_3", nullable = false, updatable = false)
+    private Long stars3 = 0L;
+
+    @JsonIgnore
+    @Column(name = "stars_4", nullable = false, updatable = false)
+    private Long stars4 = 0L;
+
+    @JsonIgnore
+    @Column(name = "stars_5", nullable = false, updatable = false)
+    private Long stars5 = 0L;
+
+    // Bumped by every rating or catalog change; the HTTP ETags are derived from it
+    @JsonIgnore
+    @Column(name = "version", nullable = false, updatable = false)
+    private Long version = 0L;
+
+    // Set by the CSV import: digest of the normalized (title, author), the re-import upsert key
+    @JsonIgnore
+    @Column(name = "natural_key", length = 32)
+    private String naturalKey;
+
+    // Set by the CSV import: digest of the imported columns, to skip unchanged rows on re-import
+    @JsonIgnore
+    @Column(name = "content_hash")
+    private Long contentHash;
+
     // Getters and setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -59,6 +120,9 @@ public class Book {
     public String getGenres() { return genres; }
     public void setGenres(String genres) { this.genres = genres; }
 
+    public Set<Genre> getGenreSet() { return genreSet; }
+    public void setGenreSet(Set<Genre> genreSet) { this.genreSet = genreSet; }
+
     public Integer getYear() { return year; }
     public void setYear(Integer year) { this.year = year; }
 
@@ -67,4 +131,26 @@ public class Book {
 
     public Long getReviewCount() { return reviewCount; }
     public void setReviewCount(Long reviewCount) { this.reviewCount = reviewCount; }
+
+    public Double getRatingSum() { return ratingSum; }
+    public void setRatingSum(Double ratingSum) { this.ratingSum = ratingSum; }
+
+    /** @return the number of 1- to 5-star reviews, in that order */
+    public List<Long> getStarCounts() { return List.of(stars1, stars2, stars3, stars4, stars5); }
+    public void setStarCounts(List<Long> starCounts) {
+        this.stars1 = starCounts.get(0);
+        this.stars2 = starCounts.get(1);
+        this.stars3 = starCounts.get(2);
+        this.stars4 = starCounts.get(3);
+        this.stars5 = starCounts.get(4);
+    }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    public String getNaturalKey() { return naturalKey; }
+    public void setNaturalKey(String naturalKey) { this.naturalKey = naturalKey; }
+
+    public Long getContentHash() { return contentHash; }
+    public void setContentHash(Long contentHash) { this.contentHash = contentHash; }
 }
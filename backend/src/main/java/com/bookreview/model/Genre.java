@@ -0,0 +1,46 @@
+package com.bookreview.model;
+
+import jakarta.persistence.*;
+
+import java.util.Locale;
+
+/**
+ * A catalog genre. {@code slug} is the case- and spacing-insensitive key used for
+ * lookups and filters; {@code name} keeps the spelling first seen on import.
+ */
+@Entity
+@Table(name = "genres", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_genres_slug", columnNames = {"slug"})
+})
+public class Genre {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    @Column(nullable = false, length = 100)
+    private String slug;
+
+    public Genre() {}
+
+    public Genre(String name) {
+        this.name = name.trim();
+        this.slug = slugOf(name);
+    }
+
+    public static String slugOf(String name) {
+        return name == null ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getSlug() { return slug; }
+    public void setSlug(String slug) { this.slug = slug; }
+}
@@ -7,7 +7,9 @@ import java.time.LocalDateTime;
 @Table(name = "reviews", 
        uniqueConstraints = @UniqueConstraint(name = "uk_reviews_user_book", columnNames = {"user_id", "book_id"}),
        indexes = {
-           @Index(name = "idx_reviews_book", columnList = "book_id"),
+           // Keyset pages of a book's reviews, newest or best rated first; also serve plain book_id lookups
+           @Index(name = "idx_reviews_book_created_id", columnList = "book_id, created_at DESC, id"),
+           @Index(name = "idx_reviews_book_rating_id", columnList = "book_id, rating DESC, id"),
            @Index(name = "idx_reviews_user", columnList = "user_id")
        })
 public class Review {
@@ -29,6 +31,11 @@ public class Review {
     @Column(nullable = false) // For 1 decimal place (e.g., 4.5)
     private Double rating;
 
+    // The rating currently counted in the book's aggregates; null until counted. Differs from
+    // rating only while a coalesced update is pending, so committed reviews are their own journal
+    @Column(name = "counted_rating")
+    private Double countedRating;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -61,6 +68,9 @@ public class Review {
     public Double getRating() { return rating; }
     public void setRating(Double rating) { this.rating = rating; }
 
+    public Double getCountedRating() { return countedRating; }
+    public void setCountedRating(Double countedRating) { this.countedRating = countedRating; }
+
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
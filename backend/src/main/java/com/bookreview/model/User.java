@@ -1,5 +1,6 @@
 package com.bookreview.model;
 
+import com.bookreview.security.UserSecurityListener;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -12,6 +13,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
+@EntityListeners(UserSecurityListener.class)
 @Table(name = "users", uniqueConstraints = {
         @UniqueConstraint(name = "uk_users_email", columnNames = {"email"})
 })
@@ -56,6 +58,10 @@ public class User {
     @Column(nullable = true)
     private Long version = 0L;
 
+    // Bumped on password or role changes; access tokens carrying an older epoch are rejected
+    @Column(name = "security_epoch", nullable = false)
+    private long securityEpoch;
+
     public User() {}
 
     public User(String email, String passwordHash, String name, Set<Role> roles) {
@@ -88,4 +94,23 @@ public class User {
 
     public Long getVersion() { return version; }
     public void setVersion(Long version) { this.version = version; }
+
+    public long getSecurityEpoch() { return securityEpoch; }
+    public void setSecurityEpoch(long securityEpoch) { this.securityEpoch = securityEpoch; }
+
+    /** Replaces the password hash and invalidates every token issued before the change. */
+    public void changePassword(String newPasswordHash) {
+        this.passwordHash = newPasswordHash;
+        invalidateTokens();
+    }
+
+    /** Replaces the roles and invalidates every token issued before the change. */
+    public void changeRoles(Set<Role> newRoles) {
+        this.roles = newRoles;
+        invalidateTokens();
+    }
+
+    public void invalidateTokens() {
+        this.securityEpoch++;
+    }
 }
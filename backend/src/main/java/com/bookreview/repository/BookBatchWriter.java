@@ -0,0 +1,160 @@
+package com.bookreview.repository;
+
+import com.bookreview.model.Book;
+import com.bookreview.model.Genre;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bulk book upserts over plain JDBC batches. {@code Book.id} is an IDENTITY column,
+ * which makes Hibernate flush every insert on its own; here a whole batch goes out in
+ * one round trip and the generated ids come back with it for the genre links.
+ * Bypasses the entity listeners, so callers refresh the in-memory indexes themselves.
+ */
+@Repository
+public class BookBatchWriter {
+
+    static final String INSERT_BOOK = "INSERT INTO books "
+            + "(title, author, description, cover_url, genres, year, natural_key, content_hash, review_count, rating_sum, "
+            + "stars_1, stars_2, stars_3, stars_4, stars_5, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0, 0, 0, 0, 0, 0, 0, 0)";
+    // PostgreSQL: a key inserted meanwhile by another import turns into an update instead of a failure
+    static final String UPSERT_BOOK = INSERT_BOOK + " ON CONFLICT (natural_key) DO UPDATE SET "
+            + "title = EXCLUDED.title, author = EXCLUDED.author, description = EXCLUDED.description, "
+            + "cover_url = EXCLUDED.cover_url, genres = EXCLUDED.genres, year = EXCLUDED.year, "
+            + "content_hash = EXCLUDED.content_hash, version = books.version + 1";
+    static final String UPDATE_BOOK = "UPDATE books SET title = ?, author = ?, description = ?, cover_url = ?, "
+            + "genres = ?, year = ?, natural_key = ?, content_hash = ?, version = version + 1 WHERE id = ?";
+    static final String SELECT_DIGESTS = "SELECT id, natural_key, content_hash FROM books WHERE natural_key IS NOT NULL";
+    static final String DELETE_GENRE_LINKS = "DELETE FROM book_genres WHERE book_id = ?";
+    static final String INSERT_GENRE_LINK = "INSERT INTO book_genres (book_id, genre_id) VALUES (?, ?)";
+
+    /** What a re-import needs to know about a stored book; {@code contentHash} is null until first imported. */
+    public record Digest(long id, Long contentHash) { }
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean onConflictSupported;
+
+    public BookBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Stored books by natural key, streamed in one pass. Run inside a transaction so
+     * PostgreSQL honours the fetch size instead of buffering the whole result. The map
+     * is concurrent so parallel import writers can share it.
+     */
+    public Map<String, Digest> loadDigests() {
+        Map<String, Digest> digests = new ConcurrentHashMap<>();
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SELECT_DIGESTS);
+            ps.setFetchSize(10_000);
+            return ps;
+        }, rs -> {
+            long hash = rs.getLong(3);
+            digests.put(rs.getString(2), new Digest(rs.getLong(1), rs.wasNull() ? null : hash));
+        });
+        return digests;
+    }
+
+    /**
+     * Writes the books and replaces their genre links; genres must already have ids.
+     * Books with an id update that row, the others are inserted (or, on PostgreSQL,
+     * upserted on their natural key). Sets the id on every book. Runs in the caller's
+     * transaction.
+     */
+    public void upsert(List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        if (supportsOnConflict()) {
+            writeReturningIds(UPSERT_BOOK, books);
+        } else {
+            List<Book> updates = books.stream().filter(book -> book.getId() != null).toList();
+            List<Book> inserts = books.stream().filter(book -> book.getId() == null).toList();
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_BOOK, updates, updates.size(), (ps, book) -> {
+                    setColumns(ps, book);
+                    ps.setLong(9, book.getId());
+                });
+            }
+            writeReturningIds(INSERT_BOOK, inserts);
+        }
+
+        List<Object[]> bookIds = new ArrayList<>(books.size());
+        List<Object[]> links = new ArrayList<>();
+        for (Book book : books) {
+            bookIds.add(new Object[]{book.getId()});
+            for (Genre genre : book.getGenreSet()) {
+                links.add(new Object[]{book.getId(), genre.getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_GENRE_LINKS, bookIds);
+        if (!links.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_GENRE_LINK, links);
+        }
+    }
+
+    private void writeReturningIds(String sql, List<Book> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setColumns(ps, books.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return books.size();
+            }
+        }, keys);
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < books.size(); i++) {
+            books.get(i).setId(((Number) generated.get(i).values().iterator().next()).longValue());
+        }
+    }
+
+    private static void setColumns(PreparedStatement ps, Book book) throws SQLException {
+        ps.setString(1, book.getTitle());
+        ps.setString(2, book.getAuthor());
+        ps.setString(3, book.getDescription());
+        ps.setString(4, book.getCoverUrl());
+        ps.setString(5, book.getGenres());
+        if (book.getYear() == null) {
+            ps.setNull(6, Types.INTEGER);
+        } else {
+            ps.setInt(6, book.getYear());
+        }
+        ps.setString(7, book.getNaturalKey());
+        if (book.getContentHash() == null) {
+            ps.setNull(8, Types.BIGINT);
+        } else {
+            ps.setLong(8, book.getContentHash());
+        }
+    }
+
+    private boolean supportsOnConflict() {
+        Boolean supported = onConflictSupported;
+        if (supported == null) {
+            supported = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    "PostgreSQL".equals(con.getMetaData().getDatabaseProductName()));
+            onConflictSupported = supported;
+        }
+        return supported;
+    }
+}
@@ -0,0 +1,289 @@
+package com.bookreview.repository;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * Maintains a book's rating aggregates incrementally: one atomic {@code UPDATE} adds a
+ * review's rating delta to {@code rating_sum}, {@code review_count} and the per-star
+ * counters {@code stars_1} to {@code stars_5}, derives {@code avg_rating} and bumps the
+ * version, whatever the number of reviews.
+ * The row lock taken by the update serializes concurrent reviews of one book; in
+ * coalesced mode {@link #applyPending} folds many reviews into one update per book.
+ * Bypasses the entity listeners, so callers refresh the in-memory indexes themselves.
+ */
+@Repository
+public class BookRatingWriter {
+
+    // Columns on the right-hand side are the values before this update. The quotient is
+    // cast to NUMERIC before rounding so both databases round half up, as BigDecimal does
+    static final String ADJUST = "UPDATE books SET rating_sum = rating_sum + ?, review_count = review_count + ?, "
+            + "stars_1 = stars_1 + ?, stars_2 = stars_2 + ?, stars_3 = stars_3 + ?, stars_4 = stars_4 + ?, "
+            + "stars_5 = stars_5 + ?, "
+            + "avg_rating = CASE WHEN review_count + ? > 0 "
+            + "THEN ROUND(CAST((rating_sum + ?) / (review_count + ?) AS NUMERIC(20, 10)), 1) END, "
+            + "version = version + 1 WHERE id = ?";
+    static final String COLUMNS = "rating_sum, review_count, avg_rating, stars_1, stars_2, stars_3, stars_4, stars_5, version";
+    static final String SELECT_AGGREGATES = "SELECT " + COLUMNS + " FROM books WHERE id = ?";
+    static final String SELECT_PENDING = "SELECT id FROM reviews "
+            + "WHERE counted_rating IS NULL OR counted_rating <> rating ORDER BY id LIMIT ?";
+    // Locked in id order, so flushes on different nodes cannot deadlock on shared reviews
+    static final String LOCK_REVIEWS = "SELECT id, book_id, rating, counted_rating FROM reviews "
+            + "WHERE id IN (%s) ORDER BY id FOR UPDATE";
+    static final String MARK_COUNTED = "UPDATE reviews SET counted_rating = rating WHERE id IN (%s)";
+    // Reconciliation: the books of a chunk are locked first, so the recompute (a new
+    // statement) sees every review counted into them by a committed writer
+    static final String LOCK_BOOKS = "SELECT id FROM books WHERE id >= ? AND id < ? ORDER BY id FOR UPDATE";
+    static final String RECOMPUTE = "SELECT b.id, b.rating_sum, b.review_count, b.avg_rating, "
+            + "b.stars_1, b.stars_2, b.stars_3, b.stars_4, b.stars_5, b.version, "
+            + "coalesce(r.rating_sum, 0), coalesce(r.review_count, 0), r.avg_rating, "
+            + "coalesce(r.stars_1, 0), coalesce(r.stars_2, 0), coalesce(r.stars_3, 0), coalesce(r.stars_4, 0), "
+            + "coalesce(r.stars_5, 0) "
+            + "FROM books b LEFT JOIN ("
+            + "SELECT book_id, sum(counted_rating) AS rating_sum, count(*) AS review_count, "
+            + "ROUND(CAST(sum(counted_rating) / count(*) AS NUMERIC(20, 10)), 1) AS avg_rating, "
+            + "sum(CASE WHEN counted_rating < 1.5 THEN 1 ELSE 0 END) AS stars_1, "
+            + "sum(CASE WHEN counted_rating >= 1.5 AND counted_rating < 2.5 THEN 1 ELSE 0 END) AS stars_2, "
+            + "sum(CASE WHEN counted_rating >= 2.5 AND counted_rating < 3.5 THEN 1 ELSE 0 END) AS stars_3, "
+            + "sum(CASE WHEN counted_rating >= 3.5 AND counted_rating < 4.5 THEN 1 ELSE 0 END) AS stars_4, "
+            + "sum(CASE WHEN counted_rating >= 4.5 THEN 1 ELSE 0 END) AS stars_5 "
+            + "FROM reviews WHERE counted_rating IS NOT NULL AND book_id >= ? AND book_id < ? GROUP BY book_id"
+            + ") r ON r.book_id = b.id WHERE b.id >= ? AND b.id < ?";
+    static final String CORRECT = "UPDATE books SET rating_sum = ?, review_count = ?, avg_rating = ?, "
+            + "stars_1 = ?, stars_2 = ?, stars_3 = ?, stars_4 = ?, stars_5 = ?, version = version + 1 WHERE id = ?";
+    static final String TRY_ADVISORY_LOCK = "SELECT pg_try_advisory_lock(?)";
+    static final String ADVISORY_UNLOCK = "SELECT pg_advisory_unlock(?)";
+    // Arbitrary, but the same on every node
+    static final long RECONCILE_LOCK_KEY = 0x626f6f6b61676772L;
+
+    /**
+     * A book's rating columns as they stand after an adjustment; {@code starCounts} holds
+     * the number of 1- to 5-star reviews.
+     */
+    public record Aggregates(double ratingSum, long reviewCount, Double avgRating, List<Long> starCounts, long version) { }
+
+    /** The change of a book's rating columns: ratings that stop counting and ratings that start. */
+    public static final class Delta {
+        private double sum;
+        private long count;
+        private final long[] stars = new long[5];
+
+        public Delta add(double rating) {
+            return shift(rating, 1);
+        }
+
+        public Delta remove(double rating) {
+            return shift(rating, -1);
+        }
+
+        public double sum() {
+            return sum;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /** @return the change in the number of reviews with the given number of stars, 1 to 5 */
+        public long stars(int star) {
+            return stars[star - 1];
+        }
+
+        private Delta shift(double rating, int sign) {
+            sum += sign * rating;
+            count += sign;
+            stars[star(rating) - 1] += sign;
+            return this;
+        }
+    }
+
+    private static final RowMapper<Aggregates> AGGREGATES = (rs, rowNum) -> {
+        double avgRating = rs.getDouble(3);
+        Double avg = rs.wasNull() ? null : avgRating;
+        List<Long> starCounts = List.of(rs.getLong(4), rs.getLong(5), rs.getLong(6), rs.getLong(7), rs.getLong(8));
+        return new Aggregates(rs.getDouble(1), rs.getLong(2), avg, starCounts, rs.getLong(9));
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgreSql;
+
+    public BookRatingWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies the delta to the book's rating sum, review count and star counts. Runs in
+     * the caller's transaction.
+     *
+     * @return the new aggregates, or empty if the book does not exist
+     */
+    public Optional<Aggregates> adjust(long bookId, Delta delta) {
+        Object[] args = {delta.sum(), delta.count(), delta.stars(1), delta.stars(2), delta.stars(3), delta.stars(4),
+                delta.stars(5), delta.count(), delta.sum(), delta.count(), bookId};
+        if (isPostgreSql()) {
+            List<Aggregates> rows = jdbcTemplate.query(ADJUST + " RETURNING " + COLUMNS, AGGREGATES, args);
+            return rows.stream().findFirst();
+        }
+        if (jdbcTemplate.update(ADJUST, args) == 0) {
+            return Optional.empty();
+        }
+        // The row stays locked by the update, so this reads exactly what it wrote
+        return jdbcTemplate.query(SELECT_AGGREGATES, AGGREGATES, bookId).stream().findFirst();
+    }
+
+    /**
+     * Ids of reviews whose current rating is not yet counted in their book's aggregates,
+     * lowest first.
+     */
+    public List<Long> findPendingReviewIds(int limit) {
+        return jdbcTemplate.queryForList(SELECT_PENDING, Long.class, limit);
+    }
+
+    /**
+     * Counts the current rating of each given review into its book's aggregates, with one
+     * adjustment per book, and marks the reviews counted. The deltas come from the locked
+     * review rows, so reviews already counted (by another flush, or deleted meanwhile)
+     * are skipped and nothing is applied twice. Runs in the caller's transaction.
+     *
+     * @return the new aggregates of every book that changed, by book id
+     */
+    public Map<Long, Aggregates> applyPending(List<Long> reviewIds) {
+        if (reviewIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, Delta> deltas = new TreeMap<>();
+        List<Long> pending = new ArrayList<>();
+        jdbcTemplate.query(LOCK_REVIEWS.formatted(placeholders(reviewIds.size())), rs -> {
+            double rating = rs.getDouble(3);
+            double counted = rs.getDouble(4);
+            boolean uncounted = rs.wasNull();
+            if (!uncounted && counted == rating) {
+                return;
+            }
+            pending.add(rs.getLong(1));
+            Delta delta = deltas.computeIfAbsent(rs.getLong(2), id -> new Delta());
+            if (!uncounted) {
+                delta.remove(counted);
+            }
+            delta.add(rating);
+        }, reviewIds.toArray());
+        if (pending.isEmpty()) {
+            return Map.of();
+        }
+        jdbcTemplate.update(MARK_COUNTED.formatted(placeholders(pending.size())), pending.toArray());
+        Map<Long, Aggregates> changed = new LinkedHashMap<>();
+        deltas.forEach((bookId, delta) ->
+                adjust(bookId, delta).ifPresent(aggregates -> changed.put(bookId, aggregates)));
+        return changed;
+    }
+
+    /**
+     * Recomputes the aggregates of the books with ids in {@code [fromId, toId)} from the
+     * ratings counted in them, with one grouped pass over their reviews, and writes only
+     * the books whose stored values differ. Runs in the caller's transaction and keeps the
+     * chunk's books locked until it ends.
+     *
+     * @return the corrected aggregates, by book id
+     */
+    public Map<Long, Aggregates> reconcile(long fromId, long toId) {
+        jdbcTemplate.queryForList(LOCK_BOOKS, Long.class, fromId, toId);
+        Map<Long, Aggregates> corrected = new LinkedHashMap<>();
+        jdbcTemplate.query(RECOMPUTE, rs -> {
+            double storedAvg = rs.getDouble(4);
+            Double storedAvgRating = rs.wasNull() ? null : storedAvg;
+            long storedCount = rs.getLong(3);
+            Long storedReviewCount = rs.wasNull() ? null : storedCount;
+            double avg = rs.getDouble(13);
+            Double avgRating = rs.wasNull() ? null : avg;
+            List<Long> storedStars = List.of(rs.getLong(5), rs.getLong(6), rs.getLong(7), rs.getLong(8), rs.getLong(9));
+            List<Long> starCounts = List.of(rs.getLong(14), rs.getLong(15), rs.getLong(16), rs.getLong(17),
+                    rs.getLong(18));
+            double ratingSum = rs.getDouble(11);
+            long reviewCount = rs.getLong(12);
+            // Sums of the same ratings can differ in the last bits with the order of addition
+            boolean same = Math.abs(rs.getDouble(2) - ratingSum) < 1e-6
+                    && Objects.equals(storedReviewCount, reviewCount)
+                    && Objects.equals(storedAvgRating, avgRating)
+                    && storedStars.equals(starCounts);
+            if (!same) {
+                corrected.put(rs.getLong(1), new Aggregates(ratingSum, reviewCount, avgRating, starCounts,
+                        rs.getLong(10) + 1));
+            }
+        }, fromId, toId, fromId, toId);
+        if (!corrected.isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(corrected.size());
+            corrected.forEach((bookId, aggregates) -> {
+                List<Long> stars = aggregates.starCounts();
+                rows.add(new Object[]{aggregates.ratingSum(), aggregates.reviewCount(), aggregates.avgRating(),
+                        stars.get(0), stars.get(1), stars.get(2), stars.get(3), stars.get(4), bookId});
+            });
+            jdbcTemplate.batchUpdate(CORRECT, rows);
+        }
+        return corrected;
+    }
+
+    /**
+     * Runs the job unless a reconciliation is running on another node. On PostgreSQL this
+     * holds a session-level advisory lock for the duration of the job; other databases
+     * have no cross-node lock, and callers only guard against concurrent runs locally.
+     *
+     * @return the job's result, or empty if another node holds the lock
+     */
+    public <T> Optional<T> underReconcileLock(Supplier<T> job) {
+        if (!isPostgreSql()) {
+            return Optional.of(job.get());
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Optional<T>>) con -> {
+            try (PreparedStatement lock = con.prepareStatement(TRY_ADVISORY_LOCK)) {
+                lock.setLong(1, RECONCILE_LOCK_KEY);
+                try (ResultSet rs = lock.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        return Optional.empty();
+                    }
+                }
+            }
+            try {
+                return Optional.of(job.get());
+            } finally {
+                try (PreparedStatement unlock = con.prepareStatement(ADVISORY_UNLOCK)) {
+                    unlock.setLong(1, RECONCILE_LOCK_KEY);
+                    unlock.execute();
+                }
+            }
+        });
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    /** @return the star bucket of a rating: 1 to 5, rounded half up */
+    static int star(double rating) {
+        return (int) Math.max(1, Math.min(5, Math.round(rating)));
+    }
+
+    // PostgreSQL has RETURNING and advisory locks
+    private boolean isPostgreSql() {
+        Boolean detected = postgreSql;
+        if (detected == null) {
+            detected = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    "PostgreSQL".equals(con.getMetaData().getDatabaseProductName()));
+            postgreSql = detected;
+        }
+        return detected;
+    }
+}
@@ -7,8 +7,49 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.domain.Pageable;
 import java.util.List;
 
-public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book> {
+public interface BookRepository extends JpaRepository<Book, Long>, JpaSpecificationExecutor<Book>, BookSearchRepository {
     
     @Query("SELECT b FROM Book b WHERE b.avgRating IS NOT NULL ORDER BY b.avgRating DESC, b.reviewCount DESC")
     List<Book> findTopRated(Pageable pageable);
+
+    // Only the columns the typeahead index needs; skips descriptions and covers
+    List<SuggestionView> findAllSuggestionViewsBy();
+
+    @Query("SELECT b.id FROM Book b")
+    List<Long> findAllIds();
+
+    @Query("SELECT b.id AS bookId, g.id AS genreId FROM Book b JOIN b.genreSet g")
+    List<GenreLinkView> findAllGenreLinks();
+
+    @Query("SELECT b.id AS bookId, b.year AS year FROM Book b WHERE b.year IS NOT NULL")
+    List<YearView> findAllYears();
+
+    @Query("SELECT max(b.id) FROM Book b")
+    Long findMaxId();
+
+    // Only books changed since they were added; the others are at version 0
+    List<VersionView> findByVersionGreaterThan(Long version);
+
+    interface VersionView {
+        Long getId();
+        Long getVersion();
+    }
+
+    interface GenreLinkView {
+        Long getBookId();
+        Long getGenreId();
+    }
+
+    interface YearView {
+        Long getBookId();
+        Integer getYear();
+    }
+
+    interface SuggestionView {
+        Long getId();
+        String getTitle();
+        String getAuthor();
+        Double getAvgRating();
+        Long getReviewCount();
+    }
 }
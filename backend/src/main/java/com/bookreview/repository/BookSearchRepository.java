@@ -0,0 +1,32 @@
+package com.bookreview.repository;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.model.Book;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface BookSearchRepository {
+
+    /**
+     * Relevance-ranked, typo-tolerant search. PostgreSQL only: requires the
+     * {@code search_vector} column and indexes from {@code db/book-search.sql}.
+     * Genres are matched exactly by slug, any of them or all with {@code matchAllGenres}.
+     */
+    Page<BookSummary> fullTextSearch(String title, String author, List<String> genreSlugs, boolean matchAllGenres,
+                                     Integer year, Pageable pageable);
+
+    /**
+     * Like {@code findAll(spec, pageable)}, but selects only the {@link BookSummary} columns.
+     * The count query is skipped when the page already shows the total.
+     */
+    Page<BookSummary> findSummaries(Specification<Book> spec, Pageable pageable);
+
+    /**
+     * The first {@code limit} matching rows in {@code sort} order, without a count.
+     */
+    List<BookSummary> findSummaries(Specification<Book> spec, Sort sort, int limit);
+}
@@ -0,0 +1,102 @@
+package com.bookreview.repository;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.model.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.util.List;
+
+class BookSearchRepositoryImpl implements BookSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Page<BookSummary> fullTextSearch(String title, String author, List<String> genreSlugs, boolean matchAllGenres,
+                                            Integer year, Pageable pageable) {
+        BookSearchSql sql = BookSearchSql.build(title, author, genreSlugs, matchAllGenres, year, pageable);
+
+        Query select = entityManager.createNativeQuery(sql.selectSql);
+        sql.params.forEach(select::setParameter);
+        List<BookSummary> content = ((List<Object[]>) select.getResultList()).stream()
+                .map(BookSearchRepositoryImpl::toSummary)
+                .toList();
+
+        // Skip the count when the first page is already short
+        if (pageable.isUnpaged() || (pageable.getOffset() == 0 && content.size() < pageable.getPageSize())) {
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        Query count = entityManager.createNativeQuery(sql.countSql);
+        sql.params.forEach(count::setParameter);
+        long total = ((Number) count.getSingleResult()).longValue();
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    @Override
+    public Page<BookSummary> findSummaries(Specification<Book> spec, Pageable pageable) {
+        TypedQuery<BookSummary> query = summaryQuery(spec, pageable.getSort());
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable, () -> count(spec));
+    }
+
+    @Override
+    public List<BookSummary> findSummaries(Specification<Book> spec, Sort sort, int limit) {
+        return summaryQuery(spec, sort).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<BookSummary> summaryQuery(Specification<Book> spec, Sort sort) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookSummary> query = cb.createQuery(BookSummary.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(cb.construct(BookSummary.class,
+                root.get("id"), root.get("title"), root.get("author"), root.get("coverUrl"),
+                root.get("genres"), root.get("year"), root.get("avgRating"), root.get("reviewCount")));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        return entityManager.createQuery(query);
+    }
+
+    private long count(Specification<Book> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Book> root = query.from(Book.class);
+        query.select(cb.count(root));
+        Predicate predicate = spec == null ? null : spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static BookSummary toSummary(Object[] row) {
+        return new BookSummary(toLong(row[0]), (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                row[5] == null ? null : ((Number) row[5]).intValue(),
+                row[6] == null ? null : ((Number) row[6]).doubleValue(),
+                toLong(row[7]));
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : ((Number) value).longValue();
+    }
+}
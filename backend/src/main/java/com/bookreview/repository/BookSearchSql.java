@@ -0,0 +1,140 @@
+package com.bookreview.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Builds the native PostgreSQL statements behind full-text book search. Every filter
+ * can be served by an index from {@code db/book-search.sql}: weighted prefix matches
+ * go through the GIN index on {@code search_vector}; substring and typo-tolerant
+ * matches go through the {@code gin_trgm_ops} indexes.
+ */
+final class BookSearchSql {
+
+    // Sortable entity properties and their columns; anything else is ignored
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "b.id",
+            "title", "b.title",
+            "author", "b.author",
+            "year", "b.year",
+            "avgRating", "b.avg_rating",
+            "reviewCount", "b.review_count");
+
+    // BookSummary fields, in constructor order
+    static final String SUMMARY_COLUMNS = "b.id, b.title, b.author, b.cover_url, b.genres, b.year, b.avg_rating, b.review_count";
+
+    final String selectSql;
+    final String countSql;
+    final Map<String, Object> params;
+
+    private BookSearchSql(String selectSql, String countSql, Map<String, Object> params) {
+        this.selectSql = selectSql;
+        this.countSql = countSql;
+        this.params = params;
+    }
+
+    // Exact genre match through the book_genres join (primary key on book_id, genre_id)
+    private static final String GENRE_MATCHES = "SELECT %s FROM book_genres bg JOIN genres g ON g.id = bg.genre_id"
+            + " WHERE bg.book_id = b.id AND g.slug IN (:genreSlugs)";
+
+    static BookSearchSql build(String title, String author, List<String> genreSlugs, boolean matchAllGenres,
+                               Integer year, Pageable pageable) {
+        StringBuilder where = new StringBuilder(" WHERE 1=1");
+        List<String> rankTerms = new ArrayList<>();
+        Map<String, Object> params = new LinkedHashMap<>();
+
+        textFilter("title", title, 'A', where, rankTerms, params);
+        textFilter("author", author, 'B', where, rankTerms, params);
+        if (genreSlugs != null && !genreSlugs.isEmpty()) {
+            if (matchAllGenres) {
+                where.append(" AND (").append(GENRE_MATCHES.formatted("count(*)")).append(") = :genreCount");
+                params.put("genreCount", (long) genreSlugs.size());
+            } else {
+                where.append(" AND EXISTS (").append(GENRE_MATCHES.formatted("1")).append(")");
+            }
+            params.put("genreSlugs", genreSlugs);
+        }
+        if (year != null) {
+            where.append(" AND b.year = :year");
+            params.put("year", year);
+        }
+
+        StringBuilder order = new StringBuilder(" ORDER BY ");
+        if (!rankTerms.isEmpty()) {
+            order.append(String.join(" + ", rankTerms)).append(" DESC, ");
+        }
+        for (Sort.Order sortOrder : pageable.getSort()) {
+            String column = SORT_COLUMNS.get(sortOrder.getProperty());
+            if (column != null) {
+                order.append(column).append(sortOrder.isAscending() ? " ASC" : " DESC").append(", ");
+            }
+        }
+        order.append("b.id");
+
+        String select = "SELECT " + SUMMARY_COLUMNS + " FROM books b" + where + order;
+        if (pageable.isPaged()) {
+            select += " LIMIT " + pageable.getPageSize() + " OFFSET " + pageable.getOffset();
+        }
+        return new BookSearchSql(select, "SELECT count(*) FROM books b" + where, params);
+    }
+
+    private static void textFilter(String column, String value, char weight,
+                                   StringBuilder where, List<String> rankTerms, Map<String, Object> params) {
+        if (!hasText(value)) {
+            return;
+        }
+        String term = value.trim();
+        String tsQuery = prefixTsQuery(term, weight);
+        where.append(" AND (b.").append(column).append(" ILIKE :").append(column).append("Like")
+                .append(" OR :").append(column).append(" <% b.").append(column);
+        if (tsQuery != null) {
+            where.append(" OR b.search_vector @@ to_tsquery('simple', :").append(column).append("Tsq)");
+            rankTerms.add("ts_rank(b.search_vector, to_tsquery('simple', :" + column + "Tsq))");
+            params.put(column + "Tsq", tsQuery);
+        }
+        where.append(")");
+        rankTerms.add("word_similarity(:" + column + ", b." + column + ")");
+        params.put(column, term);
+        params.put(column + "Like", likePattern(term));
+    }
+
+    /**
+     * Turns free text into an AND of prefix lexemes restricted to one weight, e.g.
+     * {@code "Lord of the Ri"} with weight A becomes {@code lord:*A & of:*A & the:*A & ri:*A}.
+     * Only letters and digits survive, so the result is always valid tsquery syntax.
+     * @return null if the input has no searchable tokens
+     */
+    static String prefixTsQuery(String text, char weight) {
+        List<String> lexemes = new ArrayList<>();
+        StringBuilder token = new StringBuilder();
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (int i = 0; i <= lower.length(); i++) {
+            char c = i < lower.length() ? lower.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (!token.isEmpty()) {
+                lexemes.add(token + ":*" + weight);
+                token.setLength(0);
+            }
+        }
+        return lexemes.isEmpty() ? null : String.join(" & ", lexemes);
+    }
+
+    static String likePattern(String term) {
+        String escaped = term.trim()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -0,0 +1,35 @@
+package com.bookreview.repository;
+
+import com.bookreview.model.EmailOutboxMessage;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailOutboxRepository extends JpaRepository<EmailOutboxMessage, Long> {
+
+    /**
+     * Due messages, locked FOR UPDATE SKIP LOCKED (lock timeout -2) so that several
+     * dispatchers can claim disjoint batches without waiting on each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select m from EmailOutboxMessage m where m.status = :status and m.nextAttemptAt <= :now order by m.nextAttemptAt")
+    List<EmailOutboxMessage> findDueForUpdate(@Param("status") EmailOutboxMessage.Status status,
+                                              @Param("now") Instant now,
+                                              Pageable page);
+
+    long countByStatus(EmailOutboxMessage.Status status);
+
+    @Modifying
+    @Query("delete from EmailOutboxMessage m where m.status = :status and m.sentAt < :cutoff")
+    int deleteByStatusSentBefore(@Param("status") EmailOutboxMessage.Status status, @Param("cutoff") Instant cutoff);
+}
@@ -1,7 +1,10 @@
 package com.bookreview.repository;
 
+import com.bookreview.dto.FavouriteSummary;
 import com.bookreview.model.Favourite;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -12,6 +15,11 @@ public interface FavouriteRepository extends JpaRepository<Favourite, Long> {
 
     List<Favourite> findByUserIdOrderByCreatedAtDesc(Long userId);
 
+    @Query("SELECT new com.bookreview.dto.FavouriteSummary(f.id, f.createdAt, "
+            + "b.id, b.title, b.author, b.coverUrl, b.genres, b.year, b.avgRating, b.reviewCount) "
+            + "FROM Favourite f JOIN f.book b WHERE f.user.id = :userId ORDER BY f.createdAt DESC")
+    List<FavouriteSummary> findSummariesByUserId(@Param("userId") Long userId);
+
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
 
     void deleteByUserIdAndBookId(Long userId, Long bookId);
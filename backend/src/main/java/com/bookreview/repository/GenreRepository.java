@@ -0,0 +1,10 @@
+package com.bookreview.repository;
+
+import com.bookreview.model.Genre;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface GenreRepository extends JpaRepository<Genre, Long> {
+    Optional<Genre> findBySlug(String slug);
+}
@@ -1,21 +1,67 @@
 package com.bookreview.repository;
 
+import com.bookreview.dto.ReviewItem;
+import com.bookreview.dto.ReviewSummary;
 import com.bookreview.model.Review;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 public interface ReviewRepository extends JpaRepository<Review, Long> {
     
     Optional<Review> findByBookIdAndUserId(Long bookId, Long userId);
+
+    // Rating writes lock the review they replace, so two edits cannot both apply their delta from the same old rating
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.book.id = :bookId AND r.user.id = :userId")
+    Optional<Review> findByBookIdAndUserIdForUpdate(@Param("bookId") Long bookId, @Param("userId") Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Review r WHERE r.id = :id")
+    Optional<Review> findByIdForUpdate(@Param("id") Long id);
+
+    // List views: only the columns the review cards render, newest first
+    String SUMMARY = "SELECT new com.bookreview.dto.ReviewSummary(r.id, r.text, r.rating, r.createdAt, r.updatedAt, "
+            + "b.id, b.title, b.author, b.coverUrl, b.genres, b.year, b.avgRating, b.reviewCount, u.id, u.name) "
+            + "FROM Review r JOIN r.book b JOIN r.user u ";
+
+    @Query(SUMMARY + "WHERE b.id = :bookId ORDER BY r.createdAt DESC")
+    List<ReviewSummary> findSummariesByBookId(@Param("bookId") Long bookId);
+
+    @Query(SUMMARY + "WHERE u.id = :userId ORDER BY r.createdAt DESC")
+    List<ReviewSummary> findSummariesByUserId(@Param("userId") Long userId);
     
-    List<Review> findByBookIdOrderByCreatedAtDesc(Long bookId);
-    
-    List<Review> findByUserIdOrderByCreatedAtDesc(Long userId);
-    
+    // Keyset pages of one book's reviews: display columns only, no book and no user entity
+    String ITEM = "SELECT new com.bookreview.dto.ReviewItem(r.id, r.rating, r.text, u.name, r.createdAt, r.updatedAt) "
+            + "FROM Review r JOIN r.user u WHERE r.book.id = :bookId ";
+
+    @Query(ITEM + "ORDER BY r.createdAt DESC, r.id")
+    List<ReviewItem> findRecentItems(@Param("bookId") Long bookId, Limit limit);
+
+    // The redundant "<=" bound lets the (book_id, created_at DESC, id) index seek to the cursor;
+    // the OR alone, with its mixed sort directions, is only a filter
+    @Query(ITEM + "AND r.createdAt <= :createdAt "
+            + "AND (r.createdAt < :createdAt OR (r.createdAt = :createdAt AND r.id > :id)) "
+            + "ORDER BY r.createdAt DESC, r.id")
+    List<ReviewItem> findRecentItemsAfter(@Param("bookId") Long bookId, @Param("createdAt") LocalDateTime createdAt,
+                                          @Param("id") Long id, Limit limit);
+
+    @Query(ITEM + "ORDER BY r.rating DESC, r.id")
+    List<ReviewItem> findTopRatedItems(@Param("bookId") Long bookId, Limit limit);
+
+    @Query(ITEM + "AND r.rating <= :rating AND (r.rating < :rating OR (r.rating = :rating AND r.id > :id)) "
+            + "ORDER BY r.rating DESC, r.id")
+    List<ReviewItem> findTopRatedItemsAfter(@Param("bookId") Long bookId, @Param("rating") Double rating,
+                                            @Param("id") Long id, Limit limit);
+
+    // Full recomputes, for checks against the incrementally maintained book columns
     @Query("SELECT AVG(r.rating) FROM Review r WHERE r.book.id = :bookId")
     Double getAverageRatingByBookId(@Param("bookId") Long bookId);
     
@@ -3,9 +3,17 @@ package com.bookreview.repository;
 import com.bookreview.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    List<SecurityEpochView> findBySecurityEpochGreaterThan(Long securityEpoch);
+
+    interface SecurityEpochView {
+        Long getId();
+        Long getSecurityEpoch();
+    }
 }
@@ -0,0 +1,105 @@
+package com.bookreview.security;
+
+import com.bookreview.model.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable security principal that carries the numeric user id, so controllers
+ * never need a second lookup to find out who is calling. It deliberately does not
+ * implement {@code CredentialsContainer}: instances may be shared across requests.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final Long id;
+    private final String email;
+    private final String passwordHash;
+    private final Set<GrantedAuthority> authorities;
+    private final long securityEpoch;
+
+    public AuthenticatedUser(Long id, String email, String passwordHash,
+                             Collection<? extends GrantedAuthority> authorities, long securityEpoch) {
+        this.id = id;
+        this.email = email;
+        this.passwordHash = passwordHash;
+        this.authorities = Set.copyOf(authorities);
+        this.securityEpoch = securityEpoch;
+    }
+
+    public static AuthenticatedUser from(User user) {
+        Set<GrantedAuthority> authorities = user.getRoles().stream()
+                .map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role.name()))
+                .collect(Collectors.toSet());
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPasswordHash(),
+                authorities, user.getSecurityEpoch());
+    }
+
+    /** Builds a principal purely from verified token claims; it carries no password. */
+    public static AuthenticatedUser from(VerifiedToken token) {
+        Set<GrantedAuthority> authorities = token.roles().stream()
+                .map(role -> new SimpleGrantedAuthority(ROLE_PREFIX + role))
+                .collect(Collectors.toSet());
+        return new AuthenticatedUser(token.userId(), token.subject(), null, authorities, token.epoch());
+    }
+
+    public Long getId() { return id; }
+
+    public long getSecurityEpoch() { return securityEpoch; }
+
+    /** Role names without the {@code ROLE_} prefix, as stored in the token. */
+    public List<String> getRoleNames() {
+        return authorities.stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(a -> a.startsWith(ROLE_PREFIX))
+                .map(a -> a.substring(ROLE_PREFIX.length()))
+                .sorted()
+                .toList();
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() { return authorities; }
+
+    @Override
+    public String getPassword() { return passwordHash; }
+
+    @Override
+    public String getUsername() { return email; }
+
+    @Override
+    public boolean isAccountNonExpired() { return true; }
+
+    @Override
+    public boolean isAccountNonLocked() { return true; }
+
+    @Override
+    public boolean isCredentialsNonExpired() { return true; }
+
+    @Override
+    public boolean isEnabled() { return true; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuthenticatedUser other)) return false;
+        return Objects.equals(email, other.email);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(email);
+    }
+
+    @Override
+    public String toString() {
+        return "AuthenticatedUser[id=" + id + ", email=" + email + ", authorities=" + authorities + "]";
+    }
+}
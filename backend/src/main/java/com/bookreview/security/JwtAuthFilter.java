@@ -5,6 +5,7 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -20,10 +21,20 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
+    private final SecurityEpochRegistry epochRegistry;
+    private final RevokedTokenRegistry revokedTokens;
+    private final boolean statelessAuth;
 
-    public JwtAuthFilter(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService,
+                         CustomUserDetailsService userDetailsService,
+                         SecurityEpochRegistry epochRegistry,
+                         RevokedTokenRegistry revokedTokens,
+                         @Value("${app.jwt.stateless:false}") boolean statelessAuth) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.epochRegistry = epochRegistry;
+        this.revokedTokens = revokedTokens;
+        this.statelessAuth = statelessAuth;
     }
 
     @Override
@@ -32,7 +43,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                                     FilterChain filterChain) throws ServletException, IOException {
         final String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
         final String jwt;
-        final String userEmail;
+        final VerifiedToken token;
 
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             filterChain.doFilter(request, response);
@@ -41,15 +52,31 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         jwt = authHeader.substring(7);
         try {
-            userEmail = jwtService.extractUsername(jwt);
+            // Single parse + signature/expiry check; repeat tokens are served from the cache
+            token = jwtService.verify(jwt);
         } catch (Exception e) {
             filterChain.doFilter(request, response);
             return;
         }
 
+        if (revokedTokens.isRevoked(token)) {
+            // Logged out before expiry; the Bloom filter keeps this check off the database
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (token.isSelfContained() && !epochRegistry.isCurrent(token.userId(), token.epoch())) {
+            // Issued before a password reset or role change
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final String userEmail = token.subject();
         if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
-            if (jwtService.isTokenValid(jwt, userDetails.getUsername())) {
+            UserDetails userDetails = statelessAuth && token.isSelfContained()
+                    ? AuthenticatedUser.from(token)
+                    : this.userDetailsService.loadCachedUser(userEmail);
+            if (userEmail.equals(userDetails.getUsername())) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails,
                         null,
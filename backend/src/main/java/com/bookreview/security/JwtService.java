@@ -1,16 +1,23 @@
 package com.bookreview.security;
 
+import com.bookreview.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -22,8 +29,37 @@ public class JwtService {
     @Value("${app.jwt.expirationMillis:3600000}")
     private long expirationMillis;
 
+    private final VerifiedTokenCache tokenCache;
+    private final Timer verifyTimer;
+
+    // Derived lazily from the secret; the decoded key and parser are thread-safe and reused
+    private volatile Key signingKey;
+    private volatile JwtParser parser;
+
+    public JwtService(VerifiedTokenCache tokenCache, MeterRegistry meterRegistry) {
+        this.tokenCache = tokenCache;
+        this.verifyTimer = Timer.builder("jwt.verify")
+                .description("Time spent parsing and verifying JWT signatures (cache misses only)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Parses and verifies the token once and returns its typed claims. Repeat calls
+     * with the same token are served from the cache until the token's expiry.
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, forged or expired
+     */
+    public VerifiedToken verify(String token) {
+        VerifiedToken cached = tokenCache.get(token);
+        if (cached != null) {
+            return cached;
+        }
+        VerifiedToken verified = verifyTimer.record(() -> VerifiedToken.from(extractAllClaims(token)));
+        tokenCache.put(token, verified);
+        return verified;
+    }
+
     public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+        return verify(token).subject();
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -31,11 +67,29 @@ public class JwtService {
         return claimsResolver.apply(claims);
     }
 
+    /**
+     * Issues a self-contained access token carrying the user id, roles and security
+     * epoch, so requests can be authenticated without loading the user.
+     */
+    public String generateToken(User user) {
+        return generateToken(AuthenticatedUser.from(user));
+    }
+
+    public String generateToken(AuthenticatedUser principal) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(VerifiedToken.USER_ID_CLAIM, principal.getId());
+        claims.put(VerifiedToken.ROLES_CLAIM, principal.getRoleNames());
+        claims.put(VerifiedToken.EPOCH_CLAIM, principal.getSecurityEpoch());
+        return generateToken(principal.getUsername(), claims);
+    }
+
     public String generateToken(String username, Map<String, Object> extraClaims) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + expirationMillis);
         return Jwts.builder()
                 .setClaims(extraClaims)
+                // Unique id so a single token can be revoked on logout
+                .setId(UUID.randomUUID().toString())
                 .setSubject(username)
                 .setIssuedAt(now)
                 .setExpiration(expiry)
@@ -44,28 +98,34 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, String username) {
-        final String tokenUsername = extractUsername(token);
-        return (tokenUsername.equals(username) && !isTokenExpired(token));
-    }
-
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+        final VerifiedToken verified = verify(token);
+        return verified.subject().equals(username) && !verified.isExpired(Instant.now());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignInKey())
-                .build()
+        return getParser()
                 .parseClaimsJws(token)
                 .getBody();
     }
 
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder()
+                    .setSigningKey(getSignInKey())
+                    .build();
+            parser = current;
+        }
+        return current;
+    }
+
     private Key getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key current = signingKey;
+        if (current == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(secret);
+            current = Keys.hmacShaKeyFor(keyBytes);
+            signingKey = current;
+        }
+        return current;
     }
 }
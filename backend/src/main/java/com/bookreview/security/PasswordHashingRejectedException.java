@@ -0,0 +1,19 @@
+package com.bookreview.security;
+
+/**
+ * Thrown when the password hashing pool is saturated and the request was shed
+ * instead of queued. Callers should answer with 503 and a Retry-After header.
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
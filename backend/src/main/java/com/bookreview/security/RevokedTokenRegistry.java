@@ -0,0 +1,98 @@
+package com.bookreview.security;
+
+import com.bookreview.model.RevokedToken;
+import com.bookreview.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Denylist of access tokens revoked before expiry, keyed by {@code jti}.
+ * Requests are screened against an in-memory Bloom filter; the revocation table is
+ * only queried on a filter hit, i.e. for revoked tokens and rare false positives.
+ * The filter is rebuilt periodically from the live rows, which also picks up
+ * revocations made on other nodes and lets expired entries fall out.
+ */
+@Component
+public class RevokedTokenRegistry {
+    private static final Logger log = LoggerFactory.getLogger(RevokedTokenRegistry.class);
+
+    private final RevokedTokenRepository repository;
+    private final long minCapacity;
+    private final double falsePositiveRate;
+    private final Counter confirmedHits;
+    private final Counter falsePositives;
+
+    private volatile RevocationBloomFilter filter;
+    // Filter being filled by a rebuild; revocations made meanwhile go into both
+    private volatile RevocationBloomFilter building;
+
+    public RevokedTokenRegistry(RevokedTokenRepository repository,
+                                MeterRegistry meterRegistry,
+                                @Value("${app.jwt.denylist.minCapacity:10000}") long minCapacity,
+                                @Value("${app.jwt.denylist.falsePositiveRate:0.001}") double falsePositiveRate) {
+        this.repository = repository;
+        this.minCapacity = minCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = RevocationBloomFilter.create(minCapacity, falsePositiveRate);
+        this.confirmedHits = Counter.builder("jwt.denylist.hits")
+                .tag("result", "revoked")
+                .register(meterRegistry);
+        this.falsePositives = Counter.builder("jwt.denylist.hits")
+                .tag("result", "false_positive")
+                .register(meterRegistry);
+    }
+
+    public boolean isRevoked(VerifiedToken token) {
+        String tokenId = token.tokenId();
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        boolean revoked = repository.existsById(tokenId);
+        (revoked ? confirmedHits : falsePositives).increment();
+        return revoked;
+    }
+
+    public void revoke(VerifiedToken token) {
+        if (token.tokenId() == null || token.expiresAt() == null || token.isExpired(Instant.now())) {
+            return;
+        }
+        repository.save(new RevokedToken(token.tokenId(), token.expiresAt()));
+        filter.put(token.tokenId());
+        RevocationBloomFilter pending = building;
+        if (pending != null) {
+            pending.put(token.tokenId());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.jwt.denylist.refreshMillis:30000}",
+            fixedDelayString = "${app.jwt.denylist.refreshMillis:30000}")
+    public synchronized void rebuild() {
+        try {
+            Instant now = Instant.now();
+            repository.deleteExpired(now);
+            long live = repository.countByExpiresAtAfter(now);
+            // Headroom for revocations until the next rebuild
+            RevocationBloomFilter fresh = RevocationBloomFilter.create(Math.max(minCapacity, live * 2), falsePositiveRate);
+            building = fresh;
+            for (String tokenId : repository.findLiveTokenIds(now)) {
+                fresh.put(tokenId);
+            }
+            filter = fresh;
+        } catch (Exception e) {
+            // Keep the previous filter: it can only over-report, never miss a local revocation
+            log.warn("Failed to rebuild revoked token filter: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+}
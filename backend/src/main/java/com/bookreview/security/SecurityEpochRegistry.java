@@ -0,0 +1,60 @@
+package com.bookreview.security;
+
+import com.bookreview.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory table of per-user security epochs. Only users whose epoch was ever
+ * raised (password reset, role change) have an entry, so the table stays small.
+ * Local changes are recorded on commit; changes made by other nodes are picked up
+ * by the periodic reload.
+ */
+@Component
+public class SecurityEpochRegistry {
+    private static final Logger log = LoggerFactory.getLogger(SecurityEpochRegistry.class);
+
+    private final UserRepository userRepository;
+    private volatile Map<Long, Long> epochs = new ConcurrentHashMap<>();
+
+    public SecurityEpochRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    /**
+     * @return true if a token issued at {@code tokenEpoch} is still acceptable for the user
+     */
+    public boolean isCurrent(Long userId, long tokenEpoch) {
+        return tokenEpoch >= epochs.getOrDefault(userId, 0L);
+    }
+
+    public void record(Long userId, long epoch) {
+        if (userId == null || epoch <= 0) {
+            return;
+        }
+        epochs.merge(userId, epoch, Math::max);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.security.epoch.refreshMillis:30000}",
+            fixedDelayString = "${app.security.epoch.refreshMillis:30000}")
+    public void reload() {
+        try {
+            Map<Long, Long> loaded = new ConcurrentHashMap<>();
+            for (UserRepository.SecurityEpochView view : userRepository.findBySecurityEpochGreaterThan(0L)) {
+                loaded.put(view.getId(), view.getSecurityEpoch());
+            }
+            epochs = loaded;
+        } catch (Exception e) {
+            // Keep serving with the previous table; the next refresh will retry
+            log.warn("Failed to reload security epochs: {}", e.getMessage());
+        }
+    }
+}
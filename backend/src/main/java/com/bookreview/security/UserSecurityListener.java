@@ -0,0 +1,62 @@
+package com.bookreview.security;
+
+import com.bookreview.model.User;
+import com.bookreview.service.CustomUserDetailsService;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA listener on {@link User} that publishes security-relevant changes to the
+ * in-memory registries once the surrounding transaction commits. Collaborators are
+ * resolved lazily: they depend on repositories, which depend on the entity manager
+ * factory that creates this listener.
+ */
+public class UserSecurityListener {
+
+    private final ObjectProvider<SecurityEpochRegistry> epochRegistry;
+    private final ObjectProvider<CustomUserDetailsService> userDetailsService;
+
+    public UserSecurityListener(ObjectProvider<SecurityEpochRegistry> epochRegistry,
+                                ObjectProvider<CustomUserDetailsService> userDetailsService) {
+        this.epochRegistry = epochRegistry;
+        this.userDetailsService = userDetailsService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(User user) {
+        Long userId = user.getId();
+        long epoch = user.getSecurityEpoch();
+        afterCommit(() -> epochRegistry.ifAvailable(registry -> registry.record(userId, epoch)));
+        evictCachedDetails(user);
+    }
+
+    @PostRemove
+    public void onRemove(User user) {
+        evictCachedDetails(user);
+    }
+
+    // Any flushed change (roles, password hash, version) makes the cached principal stale
+    private void evictCachedDetails(User user) {
+        Long userId = user.getId();
+        String email = user.getEmail();
+        afterCommit(() -> userDetailsService.ifAvailable(service -> service.evict(userId, email)));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
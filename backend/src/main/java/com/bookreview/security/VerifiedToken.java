@@ -0,0 +1,52 @@
+package com.bookreview.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Typed view of a JWT whose signature and expiry have already been verified.
+ * Instances are immutable so they can be shared through the verified-token cache.
+ */
+public record VerifiedToken(String tokenId, String subject, Long userId, List<String> roles, long epoch,
+                            Instant issuedAt, Instant expiresAt) {
+
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLES_CLAIM = "roles";
+    static final String EPOCH_CLAIM = "epoch";
+
+    /** Tokens issued by {@link JwtService#generateToken(com.bookreview.model.User)} carry everything needed to authenticate. */
+    public boolean isSelfContained() {
+        return userId != null;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !expiresAt.isAfter(now);
+    }
+
+    static VerifiedToken from(Claims claims) {
+        return new VerifiedToken(
+                claims.getId(),
+                claims.getSubject(),
+                longValue(claims.get(USER_ID_CLAIM)),
+                stringList(claims.get(ROLES_CLAIM)),
+                Optional.ofNullable(longValue(claims.get(EPOCH_CLAIM))).orElse(0L),
+                claims.getIssuedAt() == null ? null : claims.getIssuedAt().toInstant(),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant()
+        );
+    }
+
+    private static Long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static List<String> stringList(Object value) {
+        if (value instanceof Collection<?> values) {
+            return values.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+}
@@ -2,21 +2,37 @@ package com.bookreview.service;
 
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthService {
 
     private final UserRepository userRepository;
+    private final EmailService emailService;
 
-    public AuthService(UserRepository userRepository) {
+    public AuthService(UserRepository userRepository, EmailService emailService) {
         this.userRepository = userRepository;
+        this.emailService = emailService;
     }
 
     /**
-     * Extracts the user ID from the current authentication context
+     * Persists a new user together with the welcome email in one transaction. The
+     * password must already be hashed: BCrypt should not run while a connection is held.
+     */
+    @Transactional
+    public User register(User user) {
+        User saved = userRepository.save(user);
+        emailService.queueSignupEmail(saved.getEmail(), saved.getName());
+        return saved;
+    }
+
+    /**
+     * Extracts the user ID from the current authentication context. Principals set by
+     * the JWT filter already carry the id; other principals fall back to a lookup by email.
      * @param auth The authentication object from the security context
      * @return The user ID of the authenticated user
      * @throws RuntimeException if user is not found or authentication is invalid
@@ -26,6 +42,10 @@ public class AuthService {
             throw new RuntimeException("User not authenticated");
         }
 
+        if (auth.getPrincipal() instanceof AuthenticatedUser principal && principal.getId() != null) {
+            return principal.getId();
+        }
+
         String email;
         if (auth.getPrincipal() instanceof UserDetails userDetails) {
             email = userDetails.getUsername();
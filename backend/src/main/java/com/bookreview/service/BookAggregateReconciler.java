@@ -0,0 +1,138 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ReconciliationReport;
+import com.bookreview.repository.BookRatingWriter;
+import com.bookreview.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Repairs book rating aggregates that drifted from the reviews table, after manual SQL
+ * fixes, bulk deletes or partial failures. The catalog is cut into book id chunks that
+ * are recomputed in parallel, each with one grouped pass over its reviews in its own
+ * transaction; only books whose stored values differ are written and republished.
+ * <p>
+ * Triggered by an admin, or on {@code app.reviews.aggregates.reconcile.cron} (off by
+ * default). One run at a time across all nodes, through a PostgreSQL advisory lock.
+ */
+@Service
+public class BookAggregateReconciler {
+    private static final Logger log = LoggerFactory.getLogger(BookAggregateReconciler.class);
+
+    private final BookRepository bookRepository;
+    private final BookRatingWriter ratingWriter;
+    private final BookSuggestionIndex suggestionIndex;
+    private final BookVersionRegistry versionRegistry;
+    private final BookCache bookCache;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${app.reviews.aggregates.reconcile.chunkSize:5000}")
+    private int chunkSize = 5000;
+
+    @Value("${app.reviews.aggregates.reconcile.parallelism:4}")
+    private int parallelism = 4;
+
+    public BookAggregateReconciler(BookRepository bookRepository,
+                                   BookRatingWriter ratingWriter,
+                                   BookSuggestionIndex suggestionIndex,
+                                   BookVersionRegistry versionRegistry,
+                                   BookCache bookCache,
+                                   PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.ratingWriter = ratingWriter;
+        this.suggestionIndex = suggestionIndex;
+        this.versionRegistry = versionRegistry;
+        this.bookCache = bookCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * @return the report, or empty if a reconciliation is already running on this or another node
+     */
+    public Optional<ReconciliationReport> reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            Optional<ReconciliationReport> report = ratingWriter.underReconcileLock(this::run);
+            report.ifPresent(done -> log.info(
+                    "Reconciled rating aggregates: {} books corrected in {} ms ({} of {} chunks failed)",
+                    done.correctedBooks(), done.elapsedMillis(), done.failedChunks(), done.chunks()));
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    @Scheduled(cron = "${app.reviews.aggregates.reconcile.cron:-}")
+    public void scheduledReconcile() {
+        try {
+            if (reconcile().isEmpty()) {
+                log.info("Skipped rating aggregate reconciliation: already running elsewhere");
+            }
+        } catch (Exception e) {
+            // Retried on the next schedule
+            log.warn("Failed to reconcile rating aggregates: {}", e.getMessage());
+        }
+    }
+
+    private ReconciliationReport run() {
+        long started = System.nanoTime();
+        Long maxId = bookRepository.findMaxId();
+        int size = Math.max(1, chunkSize);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<Integer>> chunks = new ArrayList<>();
+            for (long from = 1; maxId != null && from <= maxId; from += size) {
+                long fromId = from;
+                chunks.add(pool.submit(() -> reconcileChunk(fromId, fromId + size)));
+            }
+            long corrected = 0;
+            long failed = 0;
+            for (Future<Integer> chunk : chunks) {
+                try {
+                    corrected += chunk.get();
+                } catch (ExecutionException e) {
+                    // Each chunk commits on its own; the others are kept
+                    failed++;
+                    log.warn("Failed to reconcile a chunk of rating aggregates: {}", e.getCause().getMessage());
+                }
+            }
+            return new ReconciliationReport(chunks.size(), failed, corrected, (System.nanoTime() - started) / 1_000_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reconciling rating aggregates", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private int reconcileChunk(long fromId, long toId) {
+        Map<Long, BookRatingWriter.Aggregates> corrected =
+                transactionTemplate.execute(status -> ratingWriter.reconcile(fromId, toId));
+        // Committed: publish like any other rating change
+        corrected.forEach((bookId, aggregates) -> {
+            suggestionIndex.putRatings(bookId, aggregates.avgRating(), aggregates.reviewCount());
+            versionRegistry.record(bookId, aggregates.version());
+            bookCache.putRatings(bookId, aggregates.avgRating(), aggregates.reviewCount(), aggregates.starCounts(),
+                    aggregates.version());
+        });
+        return corrected.size();
+    }
+}
@@ -0,0 +1,134 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.model.Book;
+import com.bookreview.repository.BookRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded near cache of {@link BookSnapshot}s by id, with Caffeine's frequency-aware
+ * eviction so popular books stay resident. Written through on commit by
+ * {@link BookIndexListener} and by the importer, so local changes never wait for a
+ * reload. A snapshot older than the version in {@link BookVersionRegistry} was
+ * changed on another node and is reloaded on read. Hit ratio and evictions are
+ * published as the {@code books} cache metrics.
+ */
+@Component
+public class BookCache {
+
+    static final String CACHE_NAME = "books";
+
+    private final BookRepository bookRepository;
+    private final BookVersionRegistry versions;
+    private final Cache<Long, BookSnapshot> cache;
+
+    public BookCache(BookRepository bookRepository,
+                     BookVersionRegistry versions,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.books.cache.maxSize:100000}") long maxSize) {
+        this.bookRepository = bookRepository;
+        this.versions = versions;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<BookSnapshot> get(Long id) {
+        // Unknown ids load to null, which Caffeine does not cache
+        BookSnapshot snapshot = cache.get(id, this::load);
+        if (snapshot != null && snapshot.version() < versions.version(id)) {
+            snapshot = load(id);
+            if (snapshot == null) {
+                cache.invalidate(id);
+            } else {
+                put(snapshot);
+            }
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    /**
+     * Snapshots of the given books in the given order, loading all misses in one query.
+     * Books that no longer exist are left out.
+     */
+    public List<BookSnapshot> getAll(List<Long> ids) {
+        Map<Long, BookSnapshot> found = new HashMap<>(cache.getAll(ids, this::loadAll));
+        List<Long> stale = found.values().stream()
+                .filter(snapshot -> snapshot.version() < versions.version(snapshot.id()))
+                .map(BookSnapshot::id)
+                .toList();
+        if (!stale.isEmpty()) {
+            stale.forEach(found::remove);
+            Map<Long, BookSnapshot> reloaded = loadAll(stale);
+            reloaded.values().forEach(this::put);
+            found.putAll(reloaded);
+        }
+        List<BookSnapshot> snapshots = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookSnapshot snapshot = found.get(id);
+            if (snapshot != null) {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    /**
+     * Caches the snapshot unless a newer version of the book is already cached, so
+     * commits applied out of order cannot roll a book back.
+     */
+    public void put(BookSnapshot snapshot) {
+        cache.asMap().merge(snapshot.id(), snapshot,
+                (cached, fresh) -> fresh.version() >= cached.version() ? fresh : cached);
+    }
+
+    /**
+     * Applies a re-imported book's catalog columns to its cached snapshot, if any. Books
+     * not cached are left to load on first read.
+     */
+    public void putImported(Book imported) {
+        cache.asMap().computeIfPresent(imported.getId(), (id, cached) -> cached.withCatalogColumns(imported));
+    }
+
+    /**
+     * Applies new rating aggregates to the book's cached snapshot, if any and if older.
+     */
+    public void putRatings(Long id, Double avgRating, Long reviewCount, List<Long> starCounts, long version) {
+        cache.asMap().computeIfPresent(id, (key, cached) -> version > cached.version()
+                ? cached.withRatings(avgRating, reviewCount, starCounts, version) : cached);
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private BookSnapshot load(Long id) {
+        return bookRepository.findById(id).map(BookSnapshot::of).orElse(null);
+    }
+
+    private Map<Long, BookSnapshot> loadAll(Collection<? extends Long> ids) {
+        Map<Long, BookSnapshot> loaded = new HashMap<>();
+        for (Book book : bookRepository.findAllById(List.copyOf(ids))) {
+            loaded.put(book.getId(), BookSnapshot.of(book));
+        }
+        return loaded;
+    }
+}
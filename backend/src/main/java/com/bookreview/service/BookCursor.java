@@ -0,0 +1,84 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSummary;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Position of the last row of a keyset page: the sort key value and id of that row,
+ * plus the sort it belongs to. Serialized as an opaque URL-safe token; clients only
+ * hand it back.
+ */
+record BookCursor(String property, Sort.Direction direction, Object key, long id) {
+
+    // Sort keys that keyset paging supports, with their value type; each has a (column, id) index
+    static final Map<String, Class<?>> KEY_TYPES = Map.of(
+            "id", Long.class,
+            "title", String.class,
+            "author", String.class,
+            "year", Integer.class,
+            "avgRating", Double.class,
+            "reviewCount", Long.class);
+
+    private static final Map<String, Function<BookSummary, Object>> KEY_GETTERS = Map.of(
+            "id", BookSummary::id,
+            "title", BookSummary::title,
+            "author", BookSummary::author,
+            "year", BookSummary::year,
+            "avgRating", BookSummary::avgRating,
+            "reviewCount", BookSummary::reviewCount);
+
+    static BookCursor after(BookSummary book, String property, Sort.Direction direction) {
+        return new BookCursor(property, direction, KEY_GETTERS.get(property).apply(book), book.id());
+    }
+
+    String encode() {
+        String value = key == null ? "-" : "=" + key;
+        String raw = property + ":" + (direction.isAscending() ? "a" : "d") + ":" + id + ":" + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    static BookCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+            Class<?> type = KEY_TYPES.get(parts[0]);
+            if (parts.length != 4 || type == null || !("a".equals(parts[1]) || "d".equals(parts[1]))) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Sort.Direction direction = "a".equals(parts[1]) ? Sort.Direction.ASC : Sort.Direction.DESC;
+            Object key;
+            if ("-".equals(parts[3])) {
+                key = null;
+            } else if (parts[3].startsWith("=")) {
+                key = parse(type, parts[3].substring(1));
+            } else {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new BookCursor(parts[0], direction, key, Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // Also covers bad Base64 and NumberFormatException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    private static Object parse(Class<?> type, String value) {
+        if (type == Long.class) {
+            return Long.parseLong(value);
+        }
+        if (type == Integer.class) {
+            return Integer.parseInt(value);
+        }
+        if (type == Double.class) {
+            return Double.parseDouble(value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,60 @@
+package com.bookreview.service;
+
+import com.bookreview.model.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * SHA-256 based keys for catalog re-imports. The natural key identifies a book by its
+ * case- and spacing-insensitive (title, author) and must stay in step with the SQL
+ * backfill in {@code db/book-natural-key.sql}; the content hash changes whenever any
+ * imported column does.
+ */
+final class BookDigests {
+
+    // Unit separator: cannot occur in trimmed CSV values, so ("a b", "c") != ("a", "b c")
+    private static final char SEPARATOR = '\u001f';
+
+    private BookDigests() {}
+
+    /**
+     * @return the first 128 bits of SHA-256 over the normalized title and author, as 32 hex chars
+     */
+    static String naturalKey(String title, String author) {
+        byte[] hash = sha256(normalize(title) + SEPARATOR + normalize(author));
+        return HexFormat.of().formatHex(hash, 0, 16);
+    }
+
+    /**
+     * @return the first 64 bits of SHA-256 over every imported column, as written
+     */
+    static long contentHash(Book book) {
+        String content = String.join(String.valueOf(SEPARATOR),
+                book.getTitle(), book.getAuthor(),
+                nullToEmpty(book.getDescription()), nullToEmpty(book.getCoverUrl()), nullToEmpty(book.getGenres()),
+                book.getYear() == null ? "" : book.getYear().toString());
+        return ByteBuffer.wrap(sha256(content)).getLong();
+    }
+
+    // Same steps as the SQL: lower(btrim(regexp_replace(value, '\s+', ' ', 'g')))
+    static String normalize(String value) {
+        return value == null ? "" : value.replaceAll("\\s+", " ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.bookreview.service;
+
+import com.bookreview.model.Genre;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.GenreRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Genre → book-id and year → book-id bitmaps for the whole catalog. Genre filters
+ * and facet counts become bitmap intersections in memory instead of scans over the
+ * comma-separated {@code books.genres} column. Built on startup, kept current by
+ * {@link BookIndexListener} after each committed book change, and rebuilt
+ * periodically to pick up writes made by other nodes.
+ */
+@Component
+public class BookGenreIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookGenreIndex.class);
+
+    public record GenreRef(Long id, String slug, String name) { }
+
+    /**
+     * Facet counts for a genre/year selection. Genre counts honour both the genre
+     * and the year filter; year counts honour only the genre filter, so every
+     * other year stays selectable.
+     */
+    public record Facets(int total, Map<String, Integer> genres, Map<Integer, Integer> years) { }
+
+    private final BookRepository bookRepository;
+    private final GenreRepository genreRepository;
+    // Bitmaps are mutated in place by live updates; readers take the read lock
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private State state = new State();
+    private boolean ready;
+    // Live updates seen while a rebuild is loading; replayed onto the fresh state before the swap
+    private List<Consumer<State>> pendingReplay;
+
+    public BookGenreIndex(BookRepository bookRepository, GenreRepository genreRepository) {
+        this.bookRepository = bookRepository;
+        this.genreRepository = genreRepository;
+    }
+
+    /**
+     * @return ids of books having any (or, with {@code matchAll}, every) of the genres;
+     * empty if the index has not been loaded yet
+     */
+    public Optional<RoaringBitmap> match(Collection<String> slugs, boolean matchAll) {
+        lock.readLock().lock();
+        try {
+            return ready ? Optional.of(state.match(slugs, matchAll)) : Optional.empty();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return facet counts for the selection; empty if the index has not been loaded yet
+     */
+    public Optional<Facets> facets(Collection<String> slugs, boolean matchAll, Integer year) {
+        lock.readLock().lock();
+        try {
+            if (!ready) {
+                return Optional.empty();
+            }
+            RoaringBitmap byGenre = slugs.isEmpty() ? state.all.clone() : state.match(slugs, matchAll);
+            RoaringBitmap selected = byGenre;
+            if (year != null) {
+                RoaringBitmap yearBits = state.years.get(year);
+                selected = yearBits == null ? new RoaringBitmap() : RoaringBitmap.and(byGenre, yearBits);
+            }
+
+            List<Map.Entry<String, Integer>> genreCounts = new ArrayList<>();
+            for (GenreBits genre : state.genres.values()) {
+                int count = RoaringBitmap.andCardinality(selected, genre.books);
+                if (count > 0) {
+                    genreCounts.add(Map.entry(genre.name, count));
+                }
+            }
+            genreCounts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                    .thenComparing(Map.Entry.comparingByKey(String.CASE_INSENSITIVE_ORDER)));
+            Map<String, Integer> genres = new LinkedHashMap<>();
+            genreCounts.forEach(entry -> genres.put(entry.getKey(), entry.getValue()));
+
+            Map<Integer, Integer> years = new LinkedHashMap<>();
+            state.years.entrySet().stream()
+                    .sorted(Map.Entry.<Integer, RoaringBitmap>comparingByKey().reversed())
+                    .forEach(entry -> {
+                        int count = RoaringBitmap.andCardinality(byGenre, entry.getValue());
+                        if (count > 0) {
+                            years.put(entry.getKey(), count);
+                        }
+                    });
+            return Optional.of(new Facets(selected.getCardinality(), genres, years));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param genres the book's genres, or null if they did not change
+     */
+    public void put(Long bookId, Integer year, List<GenreRef> genres) {
+        if (bookId == null) {
+            return;
+        }
+        apply(current -> current.put(bitOf(bookId), year, genres));
+    }
+
+    public void remove(Long bookId) {
+        if (bookId == null) {
+            return;
+        }
+        apply(current -> current.remove(bitOf(bookId)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.books.genres.refreshMillis:300000}",
+            fixedDelayString = "${app.books.genres.refreshMillis:300000}")
+    public synchronized void rebuild() {
+        lock.writeLock().lock();
+        try {
+            pendingReplay = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        State fresh = null;
+        try {
+            fresh = load();
+        } catch (Exception e) {
+            // Keep serving the previous index; the next refresh will retry
+            log.warn("Failed to rebuild book genre index: {}", e.getMessage());
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (fresh != null) {
+                pendingReplay.forEach(fresh::apply);
+                state = fresh;
+                ready = true;
+                log.info("Book genre index built: {} books, {} genres", fresh.all.getCardinality(), fresh.genres.size());
+            }
+        } finally {
+            pendingReplay = null;
+            lock.writeLock().unlock();
+        }
+    }
+
+    private State load() {
+        State fresh = new State();
+        Map<Long, GenreBits> byId = new HashMap<>();
+        for (Genre genre : genreRepository.findAll()) {
+            GenreBits bits = new GenreBits(genre.getName());
+            fresh.genres.put(genre.getSlug(), bits);
+            byId.put(genre.getId(), bits);
+        }
+        for (BookRepository.GenreLinkView link : bookRepository.findAllGenreLinks()) {
+            GenreBits bits = byId.get(link.getGenreId());
+            if (bits != null) {
+                bits.books.add(bitOf(link.getBookId()));
+            }
+        }
+        for (BookRepository.YearView view : bookRepository.findAllYears()) {
+            fresh.years.computeIfAbsent(view.getYear(), y -> new RoaringBitmap()).add(bitOf(view.getBookId()));
+        }
+        for (Long bookId : bookRepository.findAllIds()) {
+            fresh.all.add(bitOf(bookId));
+        }
+        fresh.genres.values().forEach(bits -> bits.books.runOptimize());
+        fresh.years.values().forEach(RoaringBitmap::runOptimize);
+        fresh.all.runOptimize();
+        return fresh;
+    }
+
+    private void apply(Consumer<State> update) {
+        lock.writeLock().lock();
+        try {
+            state.apply(update);
+            if (pendingReplay != null) {
+                pendingReplay.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Roaring bitmaps hold 32-bit values; book ids come from an identity column well below that
+    private static int bitOf(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+
+    private static final class GenreBits {
+        final String name;
+        final RoaringBitmap books = new RoaringBitmap();
+
+        GenreBits(String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class State {
+        final Map<String, GenreBits> genres = new HashMap<>();
+        final Map<Integer, RoaringBitmap> years = new HashMap<>();
+        final RoaringBitmap all = new RoaringBitmap();
+
+        void apply(Consumer<State> update) {
+            update.accept(this);
+        }
+
+        RoaringBitmap match(Collection<String> slugs, boolean matchAll) {
+            RoaringBitmap result = null;
+            for (String slug : slugs) {
+                GenreBits genre = genres.get(slug);
+                if (genre == null) {
+                    if (matchAll) {
+                        return new RoaringBitmap();
+                    }
+                    continue;
+                }
+                if (result == null) {
+                    result = genre.books.clone();
+                } else if (matchAll) {
+                    result.and(genre.books);
+                } else {
+                    result.or(genre.books);
+                }
+            }
+            return result == null ? new RoaringBitmap() : result;
+        }
+
+        void put(int bookId, Integer year, List<GenreRef> bookGenres) {
+            all.add(bookId);
+            years.values().forEach(bits -> bits.remove(bookId));
+            if (year != null) {
+                years.computeIfAbsent(year, y -> new RoaringBitmap()).add(bookId);
+            }
+            if (bookGenres == null) {
+                return;
+            }
+            genres.values().forEach(bits -> bits.books.remove(bookId));
+            for (GenreRef ref : bookGenres) {
+                genres.computeIfAbsent(ref.slug(), slug -> new GenreBits(ref.name())).books.add(bookId);
+            }
+        }
+
+        void remove(int bookId) {
+            all.remove(bookId);
+            years.values().forEach(bits -> bits.remove(bookId));
+            genres.values().forEach(bits -> bits.books.remove(bookId));
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ImportJobStatus;
+import com.bookreview.model.Book;
+import com.bookreview.model.Genre;
+import com.bookreview.repository.BookBatchWriter;
+import com.bookreview.repository.GenreRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs CSV imports as background jobs. The upload is spooled to a temp file, then
+ * streamed row by row and written in JDBC batches of {@code batchSize}, one short
+ * transaction each, so memory stays flat whatever the file size. A batch the database
+ * rejects is retried row by row to count the failing rows without losing the rest.
+ * Imports are idempotent: books are matched on their normalized (title, author) and
+ * only new or changed rows are written, so re-importing a catalog costs its delta.
+ * Jobs run one at a time; their status is kept in memory on the node that ran them.
+ */
+@Service
+public class BookImportService {
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    private final BookBatchWriter batchWriter;
+    private final GenreRepository genreRepository;
+    private final BookSuggestionIndex suggestionIndex;
+    private final BookGenreIndex genreIndex;
+    private final BookVersionRegistry versionRegistry;
+    private final BookCache bookCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor executor;
+    private final Cache<String, Job> jobs;
+
+    @Value("${app.books.import.batchSize:1000}")
+    private int batchSize = 1000;
+
+    // Server-local imports: files must live under localDir (disabled when blank)
+    @Value("${app.books.import.localDir:}")
+    private String localDir = "";
+
+    // Parser threads for local imports; 0 means one per core
+    @Value("${app.books.import.parallelism:0}")
+    private int parallelism = 0;
+
+    @Value("${app.books.import.writers:2}")
+    private int writers = 2;
+
+    @Value("${app.books.import.chunkBytes:67108864}")
+    private long chunkBytes = 64L * 1024 * 1024;
+
+    @Autowired
+    public BookImportService(BookBatchWriter batchWriter,
+                             GenreRepository genreRepository,
+                             BookSuggestionIndex suggestionIndex,
+                             BookGenreIndex genreIndex,
+                             BookVersionRegistry versionRegistry,
+                             BookCache bookCache,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.books.import.queueCapacity:4}") int queueCapacity,
+                             @Value("${app.books.import.retentionMinutes:1440}") long retentionMinutes) {
+        this(batchWriter, genreRepository, suggestionIndex, genreIndex, versionRegistry, bookCache, transactionManager,
+                new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                        new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "book-import");
+                            thread.setDaemon(true);
+                            return thread;
+                        }),
+                retentionMinutes);
+    }
+
+    BookImportService(BookBatchWriter batchWriter, GenreRepository genreRepository,
+                      BookSuggestionIndex suggestionIndex, BookGenreIndex genreIndex, BookVersionRegistry versionRegistry,
+                      BookCache bookCache, PlatformTransactionManager transactionManager, Executor executor, long retentionMinutes) {
+        this.batchWriter = batchWriter;
+        this.genreRepository = genreRepository;
+        this.suggestionIndex = suggestionIndex;
+        this.genreIndex = genreIndex;
+        this.versionRegistry = versionRegistry;
+        this.bookCache = bookCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.executor = executor;
+        this.jobs = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMinutes(retentionMinutes))
+                .build();
+    }
+
+    /**
+     * Queues an import of the uploaded CSV (headers: title, author, description,
+     * cover_url, genres, year).
+     *
+     * @throws RejectedExecutionException if too many imports are already queued
+     */
+    public ImportJobStatus submit(MultipartFile file) throws IOException {
+        Path spool = Files.createTempFile("book-import-", ".csv");
+        try {
+            file.transferTo(spool);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, spool));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            Files.deleteIfExists(spool);
+            throw e;
+        }
+        return job.status();
+    }
+
+    /**
+     * Queues an import of a CSV file already on this server, for catalogs too large to
+     * upload. {@code path} is resolved against {@code app.books.import.localDir}; the
+     * feature is off while that is unset.
+     *
+     * @throws IllegalArgumentException if local imports are disabled or the path is not a file in that directory
+     * @throws RejectedExecutionException if too many imports are already queued
+     */
+    public ImportJobStatus submitLocal(String path) throws IOException {
+        Path csv = resolveLocal(path);
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> runLocal(job, csv));
+        } catch (RejectedExecutionException e) {
+            jobs.invalidate(job.id);
+            throw e;
+        }
+        return job.status();
+    }
+
+    Path resolveLocal(String path) throws IOException {
+        if (localDir == null || localDir.isBlank()) {
+            throw new IllegalArgumentException("Server-local imports are disabled");
+        }
+        if (path == null || path.isBlank()) {
+            throw new IllegalArgumentException("path is required");
+        }
+        Path base = Path.of(localDir).toRealPath();
+        Path csv = base.resolve(path).normalize();
+        if (!csv.startsWith(base) || !Files.isRegularFile(csv) || !csv.toRealPath().startsWith(base)) {
+            throw new IllegalArgumentException("No such file in the import directory: " + path);
+        }
+        return csv.toRealPath();
+    }
+
+    public Optional<ImportJobStatus> find(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService service) {
+            service.shutdownNow();
+        }
+    }
+
+    void run(Job job, Path csv) {
+        runJob(job, 1, () -> {
+            try (Reader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8);
+                 CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
+                         .withFirstRecordAsHeader()
+                         .withIgnoreHeaderCase()
+                         .withTrim())) {
+                Batch batch = new Batch(job, transactionTemplate.execute(status -> batchWriter.loadDigests()), new HashMap<>());
+                for (CSVRecord record : parser) {
+                    job.rowsRead.incrementAndGet();
+                    Book book = toBook(record);
+                    if (book == null) {
+                        job.skipped.incrementAndGet();
+                        continue;
+                    }
+                    batch.add(book);
+                }
+                batch.flush();
+            }
+        }, () -> {
+            try {
+                Files.deleteIfExists(csv);
+            } catch (IOException e) {
+                log.warn("Could not delete import spool file {}: {}", csv, e.getMessage());
+            }
+        });
+    }
+
+    void runLocal(Job job, Path csv) {
+        runJob(job, parserThreads(), () -> importChunks(job, csv), () -> { });
+    }
+
+    private void runJob(Job job, int cores, ImportBody body, Runnable cleanup) {
+        job.startedAt = Instant.now();
+        job.state = ImportJobStatus.State.RUNNING;
+        ImportJobStatus.State outcome = ImportJobStatus.State.COMPLETED;
+        try {
+            body.run();
+        } catch (Exception e) {
+            log.warn("Book import {} failed after {} rows: {}", job.id, job.rowsRead.get(), e.getMessage());
+            job.error = e.getMessage();
+            outcome = ImportJobStatus.State.FAILED;
+        } finally {
+            cleanup.run();
+            double seconds = Math.max(1, Duration.between(job.startedAt, Instant.now()).toMillis()) / 1000.0;
+            job.rowsPerSecondPerCore = job.rowsRead.get() / seconds / cores;
+            log.info("Book import {} read {} rows in {}s on {} parser thread(s): {} rows/s per core",
+                    job.id, job.rowsRead.get(), seconds, cores, Math.round(job.rowsPerSecondPerCore));
+            if (job.inserted.get() > 0 || job.updated.get() > 0) {
+                // Rows went in over JDBC, past the entity listener that keeps these current
+                suggestionIndex.rebuild();
+                genreIndex.rebuild();
+                versionRegistry.reload();
+            }
+            // Only report the job finished once its books are searchable
+            job.finishedAt = Instant.now();
+            job.state = outcome;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ImportBody {
+        void run() throws Exception;
+    }
+
+    /**
+     * Parses record-aligned chunks of the mapped file on a fork-join pool. Parsers hand
+     * full batches to a bounded queue, so they stall rather than run ahead of the
+     * database; {@code writers} threads drain it, sharing the digest map and genre cache.
+     */
+    private void importChunks(Job job, Path csv) throws Exception {
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            CsvChunker.Plan plan = CsvChunker.plan(channel, chunkBytes);
+            String[] header = readHeader(channel, plan.header());
+            if (header.length == 0 || plan.chunks().isEmpty()) {
+                return;
+            }
+            Map<String, BookBatchWriter.Digest> stored = transactionTemplate.execute(status -> batchWriter.loadDigests());
+            Map<String, Genre> genreCache = new ConcurrentHashMap<>();
+            BlockingQueue<List<Book>> queue = new ArrayBlockingQueue<>(2 * writers);
+            AtomicBoolean parsed = new AtomicBoolean();
+            AtomicReference<Exception> failure = new AtomicReference<>();
+
+            ForkJoinPool parserPool = new ForkJoinPool(parserThreads());
+            ExecutorService writerPool = Executors.newFixedThreadPool(writers, runnable -> {
+                Thread thread = new Thread(runnable, "book-import-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                List<Future<?>> writing = new ArrayList<>();
+                for (int i = 0; i < writers; i++) {
+                    writing.add(writerPool.submit(() -> drain(job, queue, parsed, failure, stored, genreCache)));
+                }
+                List<ForkJoinTask<?>> parsing = new ArrayList<>();
+                for (CsvChunker.Chunk chunk : plan.chunks()) {
+                    parsing.add(parserPool.submit(() -> parseChunk(job, channel, chunk, header, queue, failure)));
+                }
+                try {
+                    for (ForkJoinTask<?> task : parsing) {
+                        task.get();
+                    }
+                } catch (ExecutionException e) {
+                    failure.compareAndSet(null, e.getCause() instanceof Exception cause ? cause : e);
+                } finally {
+                    parsed.set(true);
+                }
+                for (Future<?> writer : writing) {
+                    writer.get();
+                }
+            } finally {
+                parserPool.shutdownNow();
+                writerPool.shutdownNow();
+            }
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+        }
+    }
+
+    private static String[] readHeader(FileChannel channel, CsvChunker.Chunk header) throws IOException {
+        try (Reader reader = new InputStreamReader(CsvChunker.open(channel, header), StandardCharsets.UTF_8);
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT.withTrim())) {
+            Iterator<CSVRecord> records = parser.iterator();
+            return records.hasNext() ? records.next().values() : new String[0];
+        }
+    }
+
+    private Void parseChunk(Job job, FileChannel channel, CsvChunker.Chunk chunk, String[] header,
+                            BlockingQueue<List<Book>> queue, AtomicReference<Exception> failure) throws Exception {
+        try (Reader reader = new InputStreamReader(CsvChunker.open(channel, chunk), StandardCharsets.UTF_8);
+             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
+                     .withHeader(header)
+                     .withIgnoreHeaderCase()
+                     .withTrim())) {
+            List<Book> books = new ArrayList<>(batchSize);
+            for (CSVRecord record : parser) {
+                job.rowsRead.incrementAndGet();
+                Book book = toBook(record);
+                if (book == null) {
+                    job.skipped.incrementAndGet();
+                    continue;
+                }
+                books.add(book);
+                if (books.size() >= batchSize) {
+                    handOff(queue, books, failure);
+                    books = new ArrayList<>(batchSize);
+                }
+            }
+            if (!books.isEmpty()) {
+                handOff(queue, books, failure);
+            }
+        }
+        return null;
+    }
+
+    private static void handOff(BlockingQueue<List<Book>> queue, List<Book> books, AtomicReference<Exception> failure)
+            throws InterruptedException {
+        while (!queue.offer(books, 100, TimeUnit.MILLISECONDS)) {
+            if (failure.get() != null) {
+                throw new CancellationException("Import aborted");
+            }
+        }
+    }
+
+    private void drain(Job job, BlockingQueue<List<Book>> queue, AtomicBoolean parsed, AtomicReference<Exception> failure,
+                       Map<String, BookBatchWriter.Digest> stored, Map<String, Genre> genreCache) {
+        Batch batch = new Batch(job, stored, genreCache);
+        try {
+            while (failure.get() == null) {
+                List<Book> books = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (books != null) {
+                    books.forEach(batch::add);
+                } else if (parsed.get() && queue.isEmpty()) {
+                    batch.flush();
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+        }
+    }
+
+    private int parserThreads() {
+        return parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Rows waiting to be written, plus what the database holds per natural key: loaded
+     * once per import and kept current as batches commit, so unchanged rows are
+     * dropped without a write and a key repeated later in the file updates its row.
+     */
+    private final class Batch {
+        private final Job job;
+        private final Map<String, BookBatchWriter.Digest> stored;
+        private final Map<String, Genre> genreCache;
+        private final List<Book> books = new ArrayList<>(batchSize);
+        private final Set<String> keys = new HashSet<>();
+
+        Batch(Job job, Map<String, BookBatchWriter.Digest> stored, Map<String, Genre> genreCache) {
+            this.job = job;
+            this.stored = stored;
+            this.genreCache = genreCache;
+        }
+
+        void add(Book book) {
+            book.setNaturalKey(BookDigests.naturalKey(book.getTitle(), book.getAuthor()));
+            book.setContentHash(BookDigests.contentHash(book));
+            if (keys.contains(book.getNaturalKey())) {
+                // Same book twice in one batch: write the first so the second updates it
+                flush();
+            }
+            BookBatchWriter.Digest digest = stored.get(book.getNaturalKey());
+            if (digest != null && book.getContentHash().equals(digest.contentHash())) {
+                job.unchanged.incrementAndGet();
+                return;
+            }
+            books.add(book);
+            keys.add(book.getNaturalKey());
+            if (books.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (books.isEmpty()) {
+                return;
+            }
+            // Genres commit on their own, before they are shared with the other writers: a genre
+            // id in the cache must never point at a row another transaction cannot see yet
+            Map<String, String> missing = new LinkedHashMap<>();
+            for (Book book : books) {
+                for (String name : BookService.splitGenres(book.getGenres())) {
+                    String slug = Genre.slugOf(name);
+                    if (!genreCache.containsKey(slug)) {
+                        missing.putIfAbsent(slug, name);
+                    }
+                }
+            }
+            if (!missing.isEmpty()) {
+                findOrCreateGenres(missing).forEach(genreCache::putIfAbsent);
+            }
+            for (Book book : books) {
+                book.setGenreSet(cachedGenres(book.getGenres(), genreCache));
+            }
+            try {
+                books.forEach(this::resetId);
+                transactionTemplate.executeWithoutResult(status -> batchWriter.upsert(books));
+                books.forEach(this::written);
+            } catch (DataAccessException batchFailure) {
+                for (Book book : books) {
+                    try {
+                        resetId(book);
+                        transactionTemplate.executeWithoutResult(status -> batchWriter.upsert(List.of(book)));
+                        written(book);
+                    } catch (DataAccessException rowFailure) {
+                        job.failed.incrementAndGet();
+                        log.debug("Book import {} rejected \"{}\": {}", job.id, book.getTitle(), rowFailure.getMessage());
+                    }
+                }
+            }
+            books.clear();
+            keys.clear();
+        }
+
+        // Stored row to update, or null to insert; undoes ids handed out by a rolled-back batch
+        private void resetId(Book book) {
+            BookBatchWriter.Digest digest = stored.get(book.getNaturalKey());
+            book.setId(digest == null ? null : digest.id());
+        }
+
+        private void written(Book book) {
+            BookBatchWriter.Digest previous = stored.put(book.getNaturalKey(),
+                    new BookBatchWriter.Digest(book.getId(), book.getContentHash()));
+            (previous == null ? job.inserted : job.updated).incrementAndGet();
+            bookCache.putImported(book);
+        }
+    }
+
+    private static Set<Genre> cachedGenres(String genres, Map<String, Genre> cache) {
+        Set<Genre> resolved = new LinkedHashSet<>();
+        for (String name : BookService.splitGenres(genres)) {
+            resolved.add(cache.get(Genre.slugOf(name)));
+        }
+        return resolved;
+    }
+
+    /**
+     * Finds or creates the genres (by slug), committed by the time this returns. A writer
+     * racing to create the same genre makes the first attempt fail on the slug constraint;
+     * the retry then finds its committed row.
+     */
+    private Map<String, Genre> findOrCreateGenres(Map<String, String> namesBySlug) {
+        try {
+            return transactionTemplate.execute(status -> findOrCreate(namesBySlug));
+        } catch (DataIntegrityViolationException e) {
+            return transactionTemplate.execute(status -> findOrCreate(namesBySlug));
+        }
+    }
+
+    private Map<String, Genre> findOrCreate(Map<String, String> namesBySlug) {
+        Map<String, Genre> genres = new HashMap<>();
+        namesBySlug.forEach((slug, name) -> genres.put(slug, genreRepository.findBySlug(slug)
+                .orElseGet(() -> genreRepository.save(new Genre(name)))));
+        return genres;
+    }
+
+    /**
+     * @return the row as a book, or null when title or author is missing
+     */
+    private static Book toBook(CSVRecord record) {
+        Book b = new Book();
+        b.setTitle(getValue(record, "title"));
+        b.setAuthor(getValue(record, "author"));
+        b.setDescription(getValue(record, "description"));
+        b.setCoverUrl(getValue(record, "cover_url"));
+        b.setGenres(getValue(record, "genres"));
+        String yearStr = getValue(record, "year");
+        if (!yearStr.isEmpty()) {
+            try { b.setYear(Integer.parseInt(yearStr)); } catch (NumberFormatException ignored) { b.setYear(null); }
+        }
+        if (b.getTitle().isEmpty() || b.getAuthor().isEmpty()) {
+            return null;
+        }
+        return b;
+    }
+
+    private static String getValue(CSVRecord record, String header) {
+        try {
+            if (record.isMapped(header)) {
+                String val = record.get(header);
+                return val == null ? "" : val.trim();
+            }
+        } catch (IllegalArgumentException ignored) {
+            // header not present; fall through
+        }
+        return "";
+    }
+
+    static final class Job {
+        final String id;
+        final Instant submittedAt = Instant.now();
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong inserted = new AtomicLong();
+        final AtomicLong updated = new AtomicLong();
+        final AtomicLong unchanged = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        volatile ImportJobStatus.State state = ImportJobStatus.State.QUEUED;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String error;
+        volatile Double rowsPerSecondPerCore;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        ImportJobStatus status() {
+            return new ImportJobStatus(id, state, rowsRead.get(), inserted.get(), updated.get(), unchanged.get(), skipped.get(), failed.get(),
+                    rowsPerSecondPerCore,
+                    submittedAt, startedAt, finishedAt, error);
+        }
+    }
+}
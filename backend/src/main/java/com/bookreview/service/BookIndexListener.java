@@ -0,0 +1,88 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.model.Book;
+import com.bookreview.model.Genre;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * JPA listener on {@link Book} that applies inserts and updates (rating aggregates)
+ * to the in-memory book indexes, version registry and book cache once the transaction
+ * commits. The indexes are resolved lazily for the same reason as in the user security
+ * listener.
+ */
+public class BookIndexListener {
+
+    private final ObjectProvider<BookSuggestionIndex> suggestionIndex;
+    private final ObjectProvider<BookGenreIndex> genreIndex;
+    private final ObjectProvider<BookVersionRegistry> versionRegistry;
+    private final ObjectProvider<BookCache> bookCache;
+
+    public BookIndexListener(ObjectProvider<BookSuggestionIndex> suggestionIndex,
+                             ObjectProvider<BookGenreIndex> genreIndex,
+                             ObjectProvider<BookVersionRegistry> versionRegistry,
+                             ObjectProvider<BookCache> bookCache) {
+        this.suggestionIndex = suggestionIndex;
+        this.genreIndex = genreIndex;
+        this.versionRegistry = versionRegistry;
+        this.bookCache = bookCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onChange(Book book) {
+        Long id = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        Double avgRating = book.getAvgRating();
+        Long reviewCount = book.getReviewCount();
+        Integer year = book.getYear();
+        Long version = book.getVersion();
+        BookSnapshot snapshot = BookSnapshot.of(book);
+        // An uninitialized collection was not touched in this transaction: leave genres as they are
+        List<BookGenreIndex.GenreRef> genres = Hibernate.isInitialized(book.getGenreSet())
+                ? book.getGenreSet().stream().map(BookIndexListener::ref).toList()
+                : null;
+        afterCommit(() -> {
+            suggestionIndex.ifAvailable(index -> index.put(id, title, author, avgRating, reviewCount));
+            genreIndex.ifAvailable(index -> index.put(id, year, genres));
+            versionRegistry.ifAvailable(registry -> registry.record(id, version));
+            bookCache.ifAvailable(cache -> cache.put(snapshot));
+        });
+    }
+
+    @PostRemove
+    public void onRemove(Book book) {
+        Long id = book.getId();
+        afterCommit(() -> {
+            suggestionIndex.ifAvailable(index -> index.remove(id));
+            genreIndex.ifAvailable(index -> index.remove(id));
+            bookCache.ifAvailable(cache -> cache.evict(id));
+        });
+    }
+
+    private static BookGenreIndex.GenreRef ref(Genre genre) {
+        return new BookGenreIndex.GenreRef(genre.getId(), genre.getSlug(), genre.getName());
+    }
+
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,173 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRatingWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Opt-in coalescing of book rating aggregates ({@code app.reviews.aggregates.mode=coalesced}).
+ * Instead of every review write updating (and row-locking) its book, committed reviews are
+ * recorded in striped in-memory accumulators, per book and per stripe, so concurrent
+ * writers of one trending book do not contend. A scheduled flush drains them and applies
+ * each book's reviews with one {@code UPDATE}; aggregates lag by up to one flush interval.
+ * <p>
+ * The accumulators are only a hint: each review keeps the rating counted in its book's
+ * aggregates, and the flush derives the deltas from the locked review rows. If a node dies
+ * with reviews still queued, the recovery sweep finds them by that column and applies them,
+ * and a review applied by two nodes is only counted once.
+ */
+@Component
+public class BookRatingCoalescer {
+    private static final Logger log = LoggerFactory.getLogger(BookRatingCoalescer.class);
+
+    static final String COALESCED = "coalesced";
+
+    private static final class Stripe {
+        // book id -> ids of its reviews changed since the last flush
+        Map<Long, Set<Long>> pending = new HashMap<>();
+    }
+
+    private final BookRatingWriter ratingWriter;
+    private final BookSuggestionIndex suggestionIndex;
+    private final BookVersionRegistry versionRegistry;
+    private final BookCache bookCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean coalescing;
+    private final Stripe[] stripes;
+
+    @Value("${app.reviews.aggregates.batchSize:1000}")
+    private int batchSize = 1000;
+
+    public BookRatingCoalescer(BookRatingWriter ratingWriter,
+                               BookSuggestionIndex suggestionIndex,
+                               BookVersionRegistry versionRegistry,
+                               BookCache bookCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.reviews.aggregates.mode:immediate}") String mode,
+                               @Value("${app.reviews.aggregates.stripes:16}") int stripes) {
+        this.ratingWriter = ratingWriter;
+        this.suggestionIndex = suggestionIndex;
+        this.versionRegistry = versionRegistry;
+        this.bookCache = bookCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.coalescing = COALESCED.equalsIgnoreCase(mode);
+        this.stripes = new Stripe[Math.max(1, stripes)];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    public boolean isCoalescing() {
+        return coalescing;
+    }
+
+    /**
+     * Queues a review whose rating changed for the next flush, once the caller's
+     * transaction commits.
+     */
+    public void record(Long bookId, Long reviewId) {
+        BookIndexListener.afterCommit(() -> {
+            // Writers on different threads mostly land on different stripes
+            Stripe stripe = stripes[(int) (Thread.currentThread().getId() % stripes.length)];
+            synchronized (stripe) {
+                stripe.pending.computeIfAbsent(bookId, id -> new LinkedHashSet<>()).add(reviewId);
+            }
+        });
+    }
+
+    /**
+     * @return the number of review writes queued for the next flush; a review queued on two stripes counts twice
+     */
+    public int pendingCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                for (Set<Long> reviewIds : stripe.pending.values()) {
+                    count += reviewIds.size();
+                }
+            }
+        }
+        return count;
+    }
+
+    @Scheduled(initialDelayString = "${app.reviews.aggregates.flushMillis:250}",
+            fixedDelayString = "${app.reviews.aggregates.flushMillis:250}")
+    public void flush() {
+        Map<Long, Set<Long>> drained = new TreeMap<>();
+        for (Stripe stripe : stripes) {
+            Map<Long, Set<Long>> pending;
+            synchronized (stripe) {
+                if (stripe.pending.isEmpty()) {
+                    continue;
+                }
+                pending = stripe.pending;
+                stripe.pending = new HashMap<>();
+            }
+            pending.forEach((bookId, reviewIds) ->
+                    drained.computeIfAbsent(bookId, id -> new LinkedHashSet<>()).addAll(reviewIds));
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        List<Long> reviewIds = new ArrayList<>();
+        drained.values().forEach(reviewIds::addAll);
+        try {
+            apply(reviewIds);
+        } catch (Exception e) {
+            // The reviews still carry their uncounted ratings; the recovery sweep applies them
+            log.warn("Failed to flush rating aggregates for {} books: {}", drained.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Applies reviews whose rating is not counted yet, whichever node queued them: after
+     * a crash, a failed flush, or a switch from coalesced back to immediate mode.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.reviews.aggregates.recoveryMillis:60000}",
+            fixedDelayString = "${app.reviews.aggregates.recoveryMillis:60000}")
+    public void recover() {
+        try {
+            List<Long> reviewIds;
+            do {
+                reviewIds = ratingWriter.findPendingReviewIds(batchSize);
+                apply(reviewIds);
+            } while (reviewIds.size() == batchSize);
+        } catch (Exception e) {
+            // Retried on the next sweep
+            log.warn("Failed to recover pending rating aggregates: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<Long> reviewIds) {
+        for (int from = 0; from < reviewIds.size(); from += batchSize) {
+            List<Long> batch = reviewIds.subList(from, Math.min(reviewIds.size(), from + batchSize));
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<Long, BookRatingWriter.Aggregates> changed = ratingWriter.applyPending(batch);
+                BookIndexListener.afterCommit(() -> changed.forEach(this::publish));
+            });
+        }
+    }
+
+    private void publish(Long bookId, BookRatingWriter.Aggregates aggregates) {
+        suggestionIndex.putRatings(bookId, aggregates.avgRating(), aggregates.reviewCount());
+        versionRegistry.record(bookId, aggregates.version());
+        bookCache.putRatings(bookId, aggregates.avgRating(), aggregates.reviewCount(), aggregates.starCounts(),
+                aggregates.version());
+    }
+}
@@ -0,0 +1,98 @@
+package com.bookreview.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of book search results: the ordered ids of one page and the total,
+ * keyed on the normalized query. Keys carry the catalog version from
+ * {@link BookVersionRegistry}, so any catalog or rating change makes every earlier
+ * entry unreachable (it then ages out). Concurrent misses on one key share a single
+ * query: the first caller runs it on its own thread while the others wait for its
+ * result. A failed query is not cached.
+ */
+@Component
+public class BookSearchCache {
+
+    static final String CACHE_NAME = "bookSearches";
+
+    /**
+     * A search as the database sees it: title and author lowercased (matching is
+     * case-insensitive in both search modes), genre slugs sorted, blank filters null.
+     */
+    record Query(String mode, String title, String author, List<String> genreSlugs, boolean matchAllGenres,
+                 Integer year, long offset, int size, String sort) {
+
+        static Query of(String mode, String title, String author, List<String> genreSlugs, boolean matchAllGenres,
+                        Integer year, Pageable pageable) {
+            return new Query(mode.toLowerCase(Locale.ROOT), normalize(title), normalize(author),
+                    genreSlugs.stream().sorted().toList(), matchAllGenres && !genreSlugs.isEmpty(), year,
+                    pageable.getOffset(), pageable.getPageSize(), pageable.getSort().toString());
+        }
+
+        private static String normalize(String text) {
+            return text == null || text.isBlank() ? null : text.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** One page of results: book ids in result order and the total match count. */
+    record Result(List<Long> ids, long total) { }
+
+    private record Key(Query query, long catalogVersion) { }
+
+    private final BookVersionRegistry versions;
+    private final AsyncCache<Key, Result> cache;
+
+    public BookSearchCache(BookVersionRegistry versions,
+                           MeterRegistry meterRegistry,
+                           @Value("${app.books.search-cache.maxSize:10000}") long maxSize,
+                           @Value("${app.books.search-cache.ttlSeconds:30}") long ttlSeconds) {
+        this.versions = versions;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), CACHE_NAME);
+    }
+
+    /**
+     * @param loader runs the query on the calling thread, at most once per key at a time
+     */
+    Result get(Query query, Supplier<Result> loader) {
+        CompletableFuture<Result> created = new CompletableFuture<>();
+        CompletableFuture<Result> shared = cache.get(new Key(query, versions.catalogVersion()), (key, executor) -> created);
+        if (shared == created) {
+            try {
+                created.complete(loader.get());
+            } catch (RuntimeException | Error e) {
+                created.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return shared.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public long size() {
+        return cache.synchronous().estimatedSize();
+    }
+}
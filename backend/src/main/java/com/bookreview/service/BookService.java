@@ -1,49 +1,241 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.CursorPage;
 import com.bookreview.model.Book;
+import com.bookreview.model.Genre;
 import com.bookreview.repository.BookRepository;
 import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Root;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import jakarta.persistence.criteria.Subquery;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.persistence.criteria.Predicate;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class BookService {
 
+    // Up to this many genre matches are filtered by id; larger sets join book_genres in SQL
+    static final int GENRE_ID_FILTER_LIMIT = 1000;
+    static final int MAX_SCROLL_SIZE = 100;
+    // Keyset sort keys that may be NULL; the database sorts NULLs after every value
+    private static final Set<String> NULLABLE_KEYS = Set.of("year", "avgRating", "reviewCount");
+
     private final BookRepository bookRepository;
+    private final BookGenreIndex genreIndex;
+    private final BookCache bookCache;
+    private final BookSearchCache searchCache;
+
+    // "like" (portable, unindexed substring match) or "fulltext" (PostgreSQL, see db/book-search.sql)
+    @Value("${app.books.search.mode:like}")
+    private String searchMode = "like";
 
-    public BookService(BookRepository bookRepository) {
+    public BookService(BookRepository bookRepository, BookGenreIndex genreIndex, BookCache bookCache,
+                       BookSearchCache searchCache) {
         this.bookRepository = bookRepository;
+        this.genreIndex = genreIndex;
+        this.bookCache = bookCache;
+        this.searchCache = searchCache;
+    }
+
+    public Optional<BookSnapshot> findById(Long id) {
+        return bookCache.get(id);
+    }
+
+    public Page<BookSummary> search(String title, String author, String genre, Integer year, Pageable pageable) {
+        return search(title, author, genre, false, year, pageable);
+    }
+
+    /**
+     * Paged results are cached briefly per normalized query as ids plus total, and served
+     * from the book cache on a hit (see {@link BookSearchCache}).
+     *
+     * @param genre one or more comma-separated genres, matched exactly (case-insensitive)
+     * @param matchAllGenres require every listed genre instead of any of them
+     */
+    public Page<BookSummary> search(String title, String author, String genre, boolean matchAllGenres, Integer year, Pageable pageable) {
+        GenreFilter genres = resolveGenres(genre, matchAllGenres);
+        if (genres.matchesNothing()) {
+            return Page.empty(pageable);
+        }
+        if (pageable.isUnpaged()) {
+            return query(title, author, genres, year, pageable);
+        }
+        BookSearchCache.Query query = BookSearchCache.Query.of(searchMode, title, author, genres.slugs(), matchAllGenres,
+                year, pageable);
+        AtomicReference<Page<BookSummary>> queried = new AtomicReference<>();
+        BookSearchCache.Result result = searchCache.get(query, () -> {
+            Page<BookSummary> page = query(title, author, genres, year, pageable);
+            queried.set(page);
+            return new BookSearchCache.Result(page.map(BookSummary::id).getContent(), page.getTotalElements());
+        });
+        if (queried.get() != null) {
+            return queried.get();
+        }
+        // Cached ids: the cards come from the book cache, with current ratings
+        List<BookSummary> content = bookCache.getAll(result.ids()).stream().map(BookSummary::of).toList();
+        return new PageImpl<>(content, pageable, result.total());
+    }
+
+    private Page<BookSummary> query(String title, String author, GenreFilter genres, Integer year, Pageable pageable) {
+        if ("fulltext".equalsIgnoreCase(searchMode)) {
+            return bookRepository.fullTextSearch(title, author, genres.slugs(), genres.matchAll(), year, pageable);
+        }
+        return bookRepository.findSummaries(filterSpec(title, author, genres, year), pageable);
+    }
+
+    /**
+     * Keyset ("seek") pagination: continues strictly after the row encoded in {@code after}
+     * using the (sort key, id) order, so no page ever needs an OFFSET or a count query.
+     * Only the first supported sort property is used; the default is title.
+     *
+     * @param after cursor from the previous page, or blank for the first page
+     * @param includeTotal add an estimated total; only available without title/author filters
+     * @throws IllegalArgumentException if the cursor is malformed or was issued for another sort
+     */
+    public CursorPage<BookSummary> scroll(String title, String author, String genre, boolean matchAllGenres, Integer year,
+                                   String after, int size, Sort sort, boolean includeTotal) {
+        Sort.Order order = sort.stream()
+                .filter(o -> BookCursor.KEY_TYPES.containsKey(o.getProperty()))
+                .findFirst()
+                .orElse(Sort.Order.asc("title"));
+        BookCursor cursor = null;
+        if (after != null && !after.isBlank()) {
+            cursor = BookCursor.decode(after);
+            if (!cursor.property().equals(order.getProperty()) || cursor.direction() != order.getDirection()) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+
+        GenreFilter genres = resolveGenres(genre, matchAllGenres);
+        Long estimatedTotal = includeTotal ? estimateTotal(title, author, genres, year) : null;
+        if (genres.matchesNothing()) {
+            return new CursorPage<>(List.of(), null, estimatedTotal);
+        }
+
+        Sort seekSort = "id".equals(order.getProperty())
+                ? Sort.by(order)
+                : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        Specification<Book> spec = filterSpec(title, author, genres, year).and(seekAfter(cursor));
+        List<BookSummary> rows = bookRepository.findSummaries(spec, seekSort, limit + 1);
+
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, estimatedTotal);
+        }
+        List<BookSummary> items = List.copyOf(rows.subList(0, limit));
+        String next = BookCursor.after(items.get(limit - 1), order.getProperty(), order.getDirection()).encode();
+        return new CursorPage<>(items, next, estimatedTotal);
+    }
+
+    // Exact and free when only genre/year filters apply; text filters would need a count query
+    private Long estimateTotal(String title, String author, GenreFilter genres, Integer year) {
+        if ((title != null && !title.isBlank()) || (author != null && !author.isBlank())) {
+            return null;
+        }
+        if (genres.matchesNothing()) {
+            return 0L;
+        }
+        return genreIndex.facets(genres.slugs(), genres.matchAll(), year)
+                .map(facets -> (long) facets.total())
+                .orElse(null);
     }
 
-    public Optional<Book> findById(Long id) {
-        return bookRepository.findById(id);
+    /**
+     * Rows strictly after the cursor in (key, id) order, with NULL keys sorting after
+     * every value: the last partition when ascending, the first when descending.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Specification<Book> seekAfter(BookCursor cursor) {
+        return (root, query, cb) -> {
+            if (cursor == null) {
+                return null;
+            }
+            boolean ascending = cursor.direction().isAscending();
+            Path<Long> id = root.get("id");
+            Predicate idAfter = ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            if ("id".equals(cursor.property())) {
+                return idAfter;
+            }
+            Path<Comparable> key = root.get(cursor.property());
+            if (cursor.key() == null) {
+                Predicate withinNulls = cb.and(cb.isNull(key), idAfter);
+                return ascending ? withinNulls : cb.or(cb.isNotNull(key), withinNulls);
+            }
+            Comparable value = (Comparable) cursor.key();
+            Predicate beyond = ascending ? cb.greaterThan(key, value) : cb.lessThan(key, value);
+            // The redundant bound is what lets the (key, id) index seek to the cursor; the OR alone is a filter
+            Predicate from = ascending ? cb.greaterThanOrEqualTo(key, value) : cb.lessThanOrEqualTo(key, value);
+            Predicate seek = cb.and(from, cb.or(beyond, cb.and(cb.equal(key, value), idAfter)));
+            return ascending && NULLABLE_KEYS.contains(cursor.property()) ? cb.or(seek, cb.isNull(key)) : seek;
+        };
     }
 
-    public Page<Book> search(String title, String author, String genre, Integer year, Pageable pageable) {
-        Specification<Book> spec = (root, query, cb) -> {
-            List<Predicate> predicates = buildSearchPredicate(title, author, genre, year, root, cb);
+    private Specification<Book> filterSpec(String title, String author, GenreFilter genres, Integer year) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = buildSearchPredicate(title, author, year, root, cb);
+            if (genres.bookIds() != null) {
+                predicates.add(root.get("id").in(genres.bookIds()));
+            } else if (!genres.slugs().isEmpty()) {
+                predicates.addAll(buildGenrePredicate(genres.slugs(), genres.matchAll(), root, query, cb));
+            }
             return cb.and(predicates.toArray(new Predicate[0]));
         };
-        return bookRepository.findAll(spec, pageable);
     }
 
-    public static List<Predicate> buildSearchPredicate(String title, String author, String genre, Integer year, Root<Book> root, CriteriaBuilder cb) {
+    /**
+     * Resolves a genre filter through the bitmap index: small match sets become an id
+     * filter, larger ones (or an index that is still loading) a join on book_genres.
+     */
+    private GenreFilter resolveGenres(String genre, boolean matchAll) {
+        List<String> slugs = genreSlugs(genre);
+        if (slugs.isEmpty()) {
+            return new GenreFilter(slugs, matchAll, null, false);
+        }
+        Optional<RoaringBitmap> matched = genreIndex.match(slugs, matchAll);
+        if (matched.isEmpty()) {
+            return new GenreFilter(slugs, matchAll, null, false);
+        }
+        RoaringBitmap ids = matched.get();
+        if (ids.isEmpty()) {
+            return new GenreFilter(slugs, matchAll, null, true);
+        }
+        if (ids.getCardinality() > GENRE_ID_FILTER_LIMIT) {
+            return new GenreFilter(slugs, matchAll, null, false);
+        }
+        List<Long> bookIds = new ArrayList<>(ids.getCardinality());
+        for (int id : ids) {
+            bookIds.add((long) id);
+        }
+        return new GenreFilter(slugs, matchAll, bookIds, false);
+    }
+
+    private record GenreFilter(List<String> slugs, boolean matchAll, List<Long> bookIds, boolean matchesNothing) { }
+
+    public Optional<BookGenreIndex.Facets> facets(String genre, boolean matchAllGenres, Integer year) {
+        return genreIndex.facets(genreSlugs(genre), matchAllGenres, year);
+    }
+
+    public static List<Predicate> buildSearchPredicate(String title, String author, Integer year, Root<Book> root, CriteriaBuilder cb) {
         List<Predicate> predicates = new ArrayList<>();
         if (title != null && !title.isBlank()) {
             predicates.add(cb.like(cb.lower(root.get("title")), "%" + title.toLowerCase(Locale.ROOT) + "%"));
@@ -51,54 +243,56 @@ public class BookService {
         if (author != null && !author.isBlank()) {
             predicates.add(cb.like(cb.lower(root.get("author")), "%" + author.toLowerCase(Locale.ROOT) + "%"));
         }
-        if (genre != null && !genre.isBlank()) {
-            // simple contains in comma-separated string
-            predicates.add(cb.like(cb.lower(root.get("genres")), "%" + genre.toLowerCase(Locale.ROOT) + "%"));
-        }
         if (year != null) {
             predicates.add(cb.equal(root.get("year"), year));
         }
         return predicates;
     }
 
-    public int importCsv(MultipartFile file) throws Exception {
-        int imported = 0;
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
-             CSVParser parser = new CSVParser(reader, CSVFormat.DEFAULT
-                     .withFirstRecordAsHeader()
-                     .withIgnoreHeaderCase()
-                     .withTrim())) {
-            for (CSVRecord record : parser) {
-                Book b = new Book();
-                b.setTitle(getValue(record, "title"));
-                b.setAuthor(getValue(record, "author"));
-                b.setDescription(getValue(record, "description"));
-                b.setCoverUrl(getValue(record, "cover_url"));
-                b.setGenres(getValue(record, "genres"));
-                String yearStr = getValue(record, "year");
-                if (!yearStr.isEmpty()) {
-                    try { b.setYear(Integer.parseInt(yearStr)); } catch (NumberFormatException ignored) { b.setYear(null); }
-                }
-                if (b.getTitle().isEmpty() || b.getAuthor().isEmpty()) {
-                    // skip invalid row
-                    continue;
-                }
-                bookRepository.save(b);
-                imported++;
+    /**
+     * Exact genre match through the indexed {@code book_genres} join: one EXISTS over
+     * all slugs for "any", one EXISTS per slug for "all".
+     */
+    public static List<Predicate> buildGenrePredicate(List<String> genreSlugs, boolean matchAll,
+                                                      Root<Book> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (matchAll) {
+            for (String slug : genreSlugs) {
+                predicates.add(cb.exists(genreSubquery(List.of(slug), root, query, cb)));
             }
+        } else if (!genreSlugs.isEmpty()) {
+            predicates.add(cb.exists(genreSubquery(genreSlugs, root, query, cb)));
         }
-        return imported;
+        return predicates;
+    }
+
+    private static Subquery<Long> genreSubquery(List<String> slugs, Root<Book> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Subquery<Long> subquery = query.subquery(Long.class);
+        Root<Book> book = subquery.from(Book.class);
+        Join<Book, Genre> genre = book.join("genreSet");
+        return subquery.select(book.get("id"))
+                .where(cb.equal(book.get("id"), root.get("id")), genre.get("slug").in(slugs));
     }
 
-    private static String getValue(CSVRecord record, String header) {
-        try {
-            if (record.isMapped(header)) {
-                String val = record.get(header);
-                return val == null ? "" : val.trim();
+    /**
+     * Splits a comma-, semicolon- or pipe-separated genre list into display names,
+     * dropping blanks and case/spacing duplicates.
+     */
+    static List<String> splitGenres(String genres) {
+        if (genres == null || genres.isBlank()) {
+            return List.of();
+        }
+        Map<String, String> bySlug = new LinkedHashMap<>();
+        for (String part : genres.split("[,;|]")) {
+            String slug = Genre.slugOf(part);
+            if (!slug.isEmpty()) {
+                bySlug.putIfAbsent(slug, part.trim());
             }
-        } catch (IllegalArgumentException ignored) {
-            // header not present; fall through
         }
-        return "";
+        return List.copyOf(bySlug.values());
+    }
+
+    private static List<String> genreSlugs(String genres) {
+        return splitGenres(genres).stream().map(Genre::slugOf).toList();
     }
 }
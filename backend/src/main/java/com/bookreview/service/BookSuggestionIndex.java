@@ -0,0 +1,286 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-process typeahead index over book titles and author names. Every word of a
+ * title or author is stored, normalized, in a sorted map, so a prefix lookup is a
+ * range scan that never touches the database. One- and two-letter prefixes, which
+ * match a large part of the catalog, instead read postings kept sorted by rank and
+ * stop at the first {@code limit} matches. Built on startup, kept current by
+ * {@link BookIndexListener} after each committed book change, and rebuilt
+ * periodically to pick up writes made by other nodes.
+ */
+@Component
+public class BookSuggestionIndex {
+    private static final Logger log = LoggerFactory.getLogger(BookSuggestionIndex.class);
+
+    static final int MAX_LIMIT = 50;
+    private static final int MAX_QUERY_LENGTH = 100;
+    // Prefixes up to this length are served from the ranked postings
+    static final int SHORT_PREFIX = 2;
+    // Bounds a short query whose other terms rarely match; the results are still the best found
+    static final int MAX_SHORT_SCAN = 10_000;
+    // Separates the word from the book id in a key; sorts below any letter or digit
+    private static final char KEY_SEPARATOR = '\u0001';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final Comparator<Suggestion> RANKING = Comparator
+            .comparing((Suggestion s) -> s.reviewCount() == null ? 0L : s.reviewCount())
+            .thenComparing(s -> s.avgRating() == null ? 0.0 : s.avgRating())
+            .reversed()
+            .thenComparing(Suggestion::title, String.CASE_INSENSITIVE_ORDER)
+            .thenComparing(Suggestion::id);
+
+    public record Suggestion(Long id, String title, String author, Double avgRating, Long reviewCount) { }
+
+    private record Entry(Suggestion suggestion, String[] words) { }
+
+    private final BookRepository bookRepository;
+    private volatile Index current = new Index();
+    // Receives live updates while a rebuild is loading so they are not lost on swap
+    private volatile Index building;
+
+    public BookSuggestionIndex(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    /**
+     * @return up to {@code limit} books where every query word is a prefix of some
+     * title or author word, most reviewed and best rated first
+     */
+    public List<Suggestion> suggest(String query, int limit) {
+        List<String> terms = words(query == null || query.length() <= MAX_QUERY_LENGTH
+                ? query : query.substring(0, MAX_QUERY_LENGTH));
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        // Scan the narrowest range: the longest term has the fewest keys
+        String driver = terms.stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        Index index = current;
+        if (driver.length() <= SHORT_PREFIX) {
+            return suggestRanked(index, driver, terms, n);
+        }
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(n + 1, RANKING.reversed());
+        Set<Long> seen = new HashSet<>();
+        for (Entry entry : index.keys.subMap(driver, true, driver + Character.MAX_VALUE, false).values()) {
+            Suggestion suggestion = entry.suggestion();
+            if (!seen.add(suggestion.id()) || !matchesAll(entry.words(), terms)) {
+                continue;
+            }
+            top.offer(suggestion);
+            if (top.size() > n) {
+                top.poll();
+            }
+        }
+        List<Suggestion> result = new ArrayList<>(top);
+        result.sort(RANKING);
+        return result;
+    }
+
+    // Best ranked first, so the first n matches are the answer
+    private static List<Suggestion> suggestRanked(Index index, String prefix, List<String> terms, int n) {
+        Map<Suggestion, Entry> postings = index.ranked.get(prefix);
+        if (postings == null) {
+            return List.of();
+        }
+        List<Suggestion> result = new ArrayList<>(n);
+        int scanned = 0;
+        for (Entry entry : postings.values()) {
+            if (matchesAll(entry.words(), terms)) {
+                result.add(entry.suggestion());
+                if (result.size() == n) {
+                    break;
+                }
+            }
+            if (++scanned == MAX_SHORT_SCAN) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    public void put(Long id, String title, String author, Double avgRating, Long reviewCount) {
+        if (id == null) {
+            return;
+        }
+        Entry entry = entry(id, title, author, avgRating, reviewCount);
+        current.put(entry);
+        Index pending = building;
+        if (pending != null) {
+            pending.override(entry.suggestion().id(), entry);
+        }
+    }
+
+    /**
+     * Re-ranks an indexed book with new rating aggregates; unknown books are left to the next rebuild.
+     */
+    public void putRatings(Long id, Double avgRating, Long reviewCount) {
+        Entry entry = current.byId.get(id);
+        if (entry != null) {
+            Suggestion suggestion = entry.suggestion();
+            put(id, suggestion.title(), suggestion.author(), avgRating, reviewCount);
+        }
+    }
+
+    public void remove(Long id) {
+        current.remove(id);
+        Index pending = building;
+        if (pending != null) {
+            pending.override(id, null);
+        }
+    }
+
+    public int size() {
+        return current.byId.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.books.suggest.refreshMillis:300000}",
+            fixedDelayString = "${app.books.suggest.refreshMillis:300000}")
+    public synchronized void rebuild() {
+        Index fresh = new Index();
+        building = fresh;
+        try {
+            for (BookRepository.SuggestionView view : bookRepository.findAllSuggestionViewsBy()) {
+                fresh.load(entry(view.getId(), view.getTitle(), view.getAuthor(),
+                        view.getAvgRating(), view.getReviewCount()));
+            }
+            fresh.overridden.clear();
+            current = fresh;
+            log.info("Book suggestion index built with {} books", fresh.byId.size());
+        } catch (Exception e) {
+            // Keep serving the previous index; the next refresh will retry
+            log.warn("Failed to rebuild book suggestion index: {}", e.getMessage());
+        } finally {
+            building = null;
+        }
+    }
+
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        Set<String> words = new LinkedHashSet<>();
+        for (String word : NON_WORD.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return List.copyOf(words);
+    }
+
+    private static boolean matchesAll(String[] words, List<String> terms) {
+        for (String term : terms) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Entry entry(Long id, String title, String author, Double avgRating, Long reviewCount) {
+        Set<String> words = new LinkedHashSet<>(words(title));
+        words.addAll(words(author));
+        return new Entry(new Suggestion(id, title, author, avgRating, reviewCount), words.toArray(new String[0]));
+    }
+
+    private static final class Index {
+        final ConcurrentSkipListMap<String, Entry> keys = new ConcurrentSkipListMap<>();
+        final Map<Long, Entry> byId = new ConcurrentHashMap<>();
+        // Books by rank for each one- and two-letter word prefix
+        final Map<String, ConcurrentSkipListMap<Suggestion, Entry>> ranked = new ConcurrentHashMap<>();
+        // Books changed live during a rebuild; the loaded (older) row must not overwrite them
+        final Set<Long> overridden = new HashSet<>();
+
+        // Per-book updates are rare and come from commit callbacks; serialize them
+        synchronized void put(Entry entry) {
+            Long id = entry.suggestion().id();
+            Entry previous = byId.put(id, entry);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+            for (String word : entry.words()) {
+                keys.put(word + KEY_SEPARATOR + id, entry);
+            }
+            for (String prefix : shortPrefixes(entry)) {
+                ranked.computeIfAbsent(prefix, key -> new ConcurrentSkipListMap<>(RANKING)).put(entry.suggestion(), entry);
+            }
+        }
+
+        synchronized void load(Entry entry) {
+            if (!overridden.contains(entry.suggestion().id())) {
+                put(entry);
+            }
+        }
+
+        synchronized void override(Long id, Entry entry) {
+            overridden.add(id);
+            if (entry == null) {
+                remove(id);
+            } else {
+                put(entry);
+            }
+        }
+
+        synchronized void remove(Long id) {
+            Entry previous = byId.remove(id);
+            if (previous != null) {
+                removeKeys(previous);
+            }
+        }
+
+        private void removeKeys(Entry entry) {
+            Long id = entry.suggestion().id();
+            for (String word : entry.words()) {
+                keys.remove(word + KEY_SEPARATOR + id, entry);
+            }
+            for (String prefix : shortPrefixes(entry)) {
+                Map<Suggestion, Entry> postings = ranked.get(prefix);
+                if (postings != null) {
+                    postings.remove(entry.suggestion(), entry);
+                }
+            }
+        }
+
+        private static Set<String> shortPrefixes(Entry entry) {
+            Set<String> prefixes = new HashSet<>();
+            for (String word : entry.words()) {
+                for (int length = 1; length <= Math.min(SHORT_PREFIX, word.length()); length++) {
+                    prefixes.add(word.substring(0, length));
+                }
+            }
+            return prefixes;
+        }
+    }
+}
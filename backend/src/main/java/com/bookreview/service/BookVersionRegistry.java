@@ -0,0 +1,93 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory table of per-book version counters, so conditional GETs can be answered
+ * without touching the database. A book's version is bumped with every rating or
+ * catalog change; only books changed at least once have an entry. The catalog version,
+ * for cross-book views such as top-rated and cached searches, is the sum of all
+ * versions plus the highest book id, so it also moves when books are added.
+ * Local changes are recorded on commit by {@link BookIndexListener}; changes made by
+ * other nodes (and JDBC imports) are picked up by the reload. Versions never move
+ * backwards, so a reload racing a local commit cannot resurrect an old ETag.
+ */
+@Component
+public class BookVersionRegistry {
+    private static final Logger log = LoggerFactory.getLogger(BookVersionRegistry.class);
+
+    private record Table(Map<Long, Long> versions, AtomicLong total, AtomicLong maxId) {
+        Table() {
+            this(new ConcurrentHashMap<>(), new AtomicLong(), new AtomicLong());
+        }
+    }
+
+    private final BookRepository bookRepository;
+    private volatile Table table = new Table();
+
+    public BookVersionRegistry(BookRepository bookRepository) {
+        this.bookRepository = bookRepository;
+    }
+
+    public long version(Long bookId) {
+        return table.versions().getOrDefault(bookId, 0L);
+    }
+
+    public long catalogVersion() {
+        Table current = table;
+        return current.total().get() + current.maxId().get();
+    }
+
+    public void record(Long bookId, Long version) {
+        if (bookId == null) {
+            return;
+        }
+        table.maxId().accumulateAndGet(bookId, Math::max);
+        if (version != null && version > 0) {
+            merge(table, bookId, version);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.books.versions.refreshMillis:30000}",
+            fixedDelayString = "${app.books.versions.refreshMillis:30000}")
+    public void reload() {
+        try {
+            Table loaded = new Table();
+            Long maxId = bookRepository.findMaxId();
+            loaded.maxId().set(maxId == null ? 0L : maxId);
+            for (BookRepository.VersionView view : bookRepository.findByVersionGreaterThan(0L)) {
+                merge(loaded, view.getId(), view.getVersion());
+            }
+            Table previous = table;
+            table = loaded;
+            // Versions recorded meanwhile may be newer than what the queries saw
+            loaded.maxId().accumulateAndGet(previous.maxId().get(), Math::max);
+            previous.versions().forEach((id, version) -> merge(loaded, id, version));
+        } catch (Exception e) {
+            // Keep serving with the previous table; the next refresh will retry
+            log.warn("Failed to reload book versions: {}", e.getMessage());
+        }
+    }
+
+    private static void merge(Table table, Long bookId, long version) {
+        table.versions().compute(bookId, (id, current) -> {
+            long previous = current == null ? 0L : current;
+            if (version <= previous) {
+                return current;
+            }
+            table.total().addAndGet(version - previous);
+            return version;
+        });
+    }
+}
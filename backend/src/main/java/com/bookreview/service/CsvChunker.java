@@ -0,0 +1,100 @@
+package com.bookreview.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a memory-mapped CSV file into byte ranges that each hold whole records, so
+ * they can be parsed independently. One sequential pass tracks whether the scan is
+ * inside a quoted field (an escaped {@code ""} toggles twice) and cuts at the first
+ * unquoted newline past each target offset; newlines inside quoted values never
+ * end a chunk. Cutting at a newline byte is also safe for UTF-8.
+ */
+final class CsvChunker {
+
+    // Mapping window for the boundary scan; chunks themselves are mapped one by one
+    private static final long SCAN_WINDOW = 256L * 1024 * 1024;
+
+    /** Byte range {@code [start, end)} of whole records. */
+    record Chunk(long start, long end) {
+        long length() {
+            return end - start;
+        }
+    }
+
+    /** The header record's range and the data chunks after it. */
+    record Plan(Chunk header, List<Chunk> chunks) { }
+
+    private CsvChunker() {}
+
+    /**
+     * @param targetBytes approximate chunk size; must stay well below 2 GB, the limit of one mapping
+     */
+    static Plan plan(FileChannel channel, long targetBytes) throws IOException {
+        long size = channel.size();
+        List<Long> cuts = new ArrayList<>();
+        boolean inQuotes = false;
+        long nextTarget = -1; // the first cut ends the header record
+        for (long windowStart = 0; windowStart < size; windowStart += SCAN_WINDOW) {
+            long windowLength = Math.min(SCAN_WINDOW, size - windowStart);
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, windowLength);
+            for (int i = 0; i < windowLength; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes && windowStart + i >= nextTarget) {
+                    long cut = windowStart + i + 1;
+                    cuts.add(cut);
+                    nextTarget = cut + targetBytes;
+                }
+            }
+        }
+        if (cuts.isEmpty() || cuts.get(cuts.size() - 1) < size) {
+            cuts.add(size);
+        }
+
+        Chunk header = new Chunk(0, cuts.get(0));
+        List<Chunk> chunks = new ArrayList<>(cuts.size() - 1);
+        for (int i = 1; i < cuts.size(); i++) {
+            chunks.add(new Chunk(cuts.get(i - 1), cuts.get(i)));
+        }
+        return new Plan(header, chunks);
+    }
+
+    static InputStream open(FileChannel channel, Chunk chunk) throws IOException {
+        return new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start(), chunk.length()));
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, n);
+            return n;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -2,36 +2,120 @@ package com.bookreview.service;
 
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import com.bookreview.security.AuthenticatedUser;
+import com.bookreview.security.SecurityEpochRegistry;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
+
+    static final String CACHE_NAME = "userDetails";
 
     private final UserRepository userRepository;
+    private final SecurityEpochRegistry epochRegistry;
+    // Immutable principals keyed by email; unknown emails are never cached
+    private final Cache<String, AuthenticatedUser> cache;
+    // Email each cached user is keyed by, so an eviction by id does not scan the cache
+    private final Map<Long, String> emailsById = new ConcurrentHashMap<>();
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+                                    SecurityEpochRegistry epochRegistry,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${app.security.user-cache.maxSize:10000}") long maxSize,
+                                    @Value("${app.security.user-cache.ttlSeconds:300}") long ttlSeconds) {
         this.userRepository = userRepository;
+        this.epochRegistry = epochRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .evictionListener((String email, AuthenticatedUser principal, RemovalCause cause) ->
+                        emailsById.remove(principal.getId(), email))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
     }
 
+    /**
+     * Login path: the password is checked against what this returns, so it always reads the
+     * stored user. A cached copy could still hold the hash or roles from before a password
+     * reset, role change or delete made on another node.
+     */
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        AuthenticatedUser principal = load(email);
+        cache(principal);
+        return principal;
+    }
+
+    /**
+     * Request path of the JWT filter, where the token already proved the password: served
+     * from the cache as long as the cached principal's security epoch is still current.
+     */
+    public UserDetails loadCachedUser(String email) throws UsernameNotFoundException {
+        AuthenticatedUser cached = cache.getIfPresent(email);
+        if (cached != null && epochRegistry.isCurrent(cached.getId(), cached.getSecurityEpoch())) {
+            return cached;
+        }
+        AuthenticatedUser principal = load(email);
+        cache(principal);
+        return principal;
+    }
+
+    private AuthenticatedUser load(String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + email));
-        Set<GrantedAuthority> authorities = user.getRoles().stream()
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.name()))
-                .collect(Collectors.toSet());
-        return new org.springframework.security.core.userdetails.User(
-                user.getEmail(),
-                user.getPasswordHash(),
-                authorities
-        );
+        return AuthenticatedUser.from(user);
+    }
+
+    private void cache(AuthenticatedUser principal) {
+        String previous = emailsById.put(principal.getId(), principal.getUsername());
+        if (previous != null && !previous.equals(principal.getUsername())) {
+            cache.invalidate(previous);
+        }
+        cache.put(principal.getUsername(), principal);
+    }
+
+    /**
+     * Stores a rehash produced on successful login after the configured BCrypt cost changed.
+     * The password itself is unchanged, so issued tokens stay valid: no epoch bump.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails details, String newPasswordHash) {
+        User user = userRepository.findByEmail(details.getUsername())
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + details.getUsername()));
+        user.setPasswordHash(newPasswordHash);
+        return AuthenticatedUser.from(userRepository.save(user));
+    }
+
+    /**
+     * Drops every cached principal of the given user. Looking up the id as well as the
+     * email also covers an email change, where the old key is no longer known.
+     */
+    public void evict(Long userId, String email) {
+        if (email != null) {
+            cache.invalidate(email);
+        }
+        if (userId != null) {
+            String cachedEmail = emailsById.remove(userId);
+            if (cachedEmail != null) {
+                cache.invalidate(cachedEmail);
+            }
+        }
     }
 }
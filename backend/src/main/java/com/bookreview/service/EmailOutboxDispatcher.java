@@ -0,0 +1,216 @@
+package com.bookreview.service;
+
+import com.bookreview.model.EmailOutboxMessage;
+import com.bookreview.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drains the email outbox in the background. Each batch is claimed in a short
+ * transaction (rows are leased by pushing their next attempt out), sent over a single
+ * SMTP connection with no transaction open, and the outcome recorded in a second
+ * short transaction. Failures are retried with exponential backoff until
+ * {@code maxAttempts}, after which the message is parked as {@code DEAD}.
+ * Delivery is at-least-once: a crash between send and record resends after the lease.
+ */
+@Service
+public class EmailOutboxDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private final EmailOutboxRepository outboxRepository;
+    private final JavaMailSender mailSender;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter sent;
+    private final Counter retried;
+    private final Counter dead;
+
+    @Value("${email.enabled:false}")
+    private boolean emailEnabled;
+
+    @Value("${email.sender:no-reply@example.com}")
+    private String sender;
+
+    @Value("${email.outbox.batchSize:50}")
+    private int batchSize = 50;
+
+    @Value("${email.outbox.maxAttempts:8}")
+    private int maxAttempts = 8;
+
+    @Value("${email.outbox.backoffMillis:30000}")
+    private long backoffMillis = 30_000;
+
+    @Value("${email.outbox.maxBackoffMillis:3600000}")
+    private long maxBackoffMillis = 3_600_000;
+
+    @Value("${email.outbox.leaseMillis:300000}")
+    private long leaseMillis = 300_000;
+
+    @Value("${email.outbox.retentionDays:7}")
+    private long retentionDays = 7;
+
+    public EmailOutboxDispatcher(EmailOutboxRepository outboxRepository,
+                                 JavaMailSender mailSender,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.mailSender = mailSender;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sent = Counter.builder("email.outbox.delivered").tag("outcome", "sent").register(meterRegistry);
+        this.retried = Counter.builder("email.outbox.delivered").tag("outcome", "retry").register(meterRegistry);
+        this.dead = Counter.builder("email.outbox.delivered").tag("outcome", "dead").register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${email.outbox.pollMillis:5000}", fixedDelayString = "${email.outbox.pollMillis:5000}")
+    public void dispatch() {
+        if (!emailEnabled) {
+            return;
+        }
+        int claimed;
+        do {
+            claimed = dispatchBatch();
+        } while (claimed == batchSize);
+    }
+
+    /**
+     * @return number of messages claimed; fewer than the batch size means the outbox is drained
+     */
+    int dispatchBatch() {
+        Instant now = Instant.now();
+        List<EmailOutboxMessage> batch = transactionTemplate.execute(status -> claim(now));
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        Map<Long, String> failures = send(batch);
+        transactionTemplate.executeWithoutResult(status -> record(batch, failures, Instant.now()));
+        return batch.size();
+    }
+
+    @Scheduled(fixedDelayString = "${email.outbox.purgeMillis:3600000}")
+    public void purgeSent() {
+        Instant cutoff = Instant.now().minus(Duration.ofDays(retentionDays));
+        transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteByStatusSentBefore(EmailOutboxMessage.Status.SENT, cutoff));
+    }
+
+    private List<EmailOutboxMessage> claim(Instant now) {
+        List<EmailOutboxMessage> due = outboxRepository.findDueForUpdate(
+                EmailOutboxMessage.Status.PENDING, now, PageRequest.of(0, batchSize));
+        Instant leaseUntil = now.plusMillis(leaseMillis);
+        for (EmailOutboxMessage message : due) {
+            message.setAttempts(message.getAttempts() + 1);
+            message.setNextAttemptAt(leaseUntil);
+        }
+        return due;
+    }
+
+    /**
+     * Sends the batch over one connection.
+     * @return error message per failed outbox id
+     */
+    private Map<Long, String> send(List<EmailOutboxMessage> batch) {
+        Map<Long, String> failures = new HashMap<>();
+        Map<Object, Long> idsByMime = new IdentityHashMap<>();
+        List<MimeMessage> mimeMessages = new ArrayList<>(batch.size());
+        for (EmailOutboxMessage message : batch) {
+            try {
+                MimeMessage mime = toMimeMessage(message);
+                idsByMime.put(mime, message.getId());
+                mimeMessages.add(mime);
+            } catch (Exception e) {
+                failures.put(message.getId(), "Preparation failed: " + e.getMessage());
+            }
+        }
+        if (mimeMessages.isEmpty()) {
+            return failures;
+        }
+        try {
+            mailSender.send(mimeMessages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                idsByMime.values().forEach(id -> failures.put(id, e.getMessage()));
+            } else {
+                e.getFailedMessages().forEach((mime, cause) -> {
+                    Long id = idsByMime.get(mime);
+                    if (id != null) {
+                        failures.put(id, cause.getMessage());
+                    }
+                });
+            }
+        } catch (Exception e) {
+            // Connection or authentication failure: nothing was sent
+            idsByMime.values().forEach(id -> failures.put(id, e.getMessage()));
+        }
+        return failures;
+    }
+
+    private void record(List<EmailOutboxMessage> batch, Map<Long, String> failures, Instant now) {
+        List<Long> ids = batch.stream().map(EmailOutboxMessage::getId).toList();
+        for (EmailOutboxMessage message : outboxRepository.findAllById(ids)) {
+            String error = failures.get(message.getId());
+            if (error == null) {
+                message.setStatus(EmailOutboxMessage.Status.SENT);
+                message.setSentAt(now);
+                message.setLastError(null);
+                sent.increment();
+            } else if (message.getAttempts() >= maxAttempts) {
+                message.setStatus(EmailOutboxMessage.Status.DEAD);
+                message.setLastError(truncate(error));
+                dead.increment();
+                log.warn("Giving up on email {} to {} after {} attempts: {}",
+                        message.getId(), message.getRecipient(), message.getAttempts(), error);
+            } else {
+                message.setNextAttemptAt(now.plus(backoff(message.getAttempts(), backoffMillis, maxBackoffMillis)));
+                message.setLastError(truncate(error));
+                retried.increment();
+            }
+        }
+        if (!failures.isEmpty()) {
+            log.info("Email batch: {} sent, {} failed", batch.size() - failures.size(), failures.size());
+        }
+    }
+
+    static Duration backoff(int attempts, long baseMillis, long maxMillis) {
+        long delay = baseMillis << Math.min(Math.max(attempts - 1, 0), 20);
+        return Duration.ofMillis(Math.min(delay, maxMillis));
+    }
+
+    private MimeMessage toMimeMessage(EmailOutboxMessage message) throws Exception {
+        MimeMessage mime = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mime, true, "UTF-8");
+        helper.setFrom(sender);
+        helper.setTo(message.getRecipient());
+        helper.setSubject(message.getSubject());
+        if (message.getHtmlBody() != null) {
+            helper.setText(message.getTextBody(), message.getHtmlBody());
+        } else {
+            helper.setText(message.getTextBody());
+        }
+        return mime;
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= 500 ? error : error.substring(0, 500);
+    }
+}
@@ -1,13 +1,11 @@
 package com.bookreview.service;
 
+import com.bookreview.model.EmailOutboxMessage;
+import com.bookreview.repository.EmailOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-
-import jakarta.mail.internet.MimeMessage;
 
 @Service
 public class EmailService {
@@ -16,16 +14,17 @@ public class EmailService {
     @Value("${email.enabled:false}")
     private boolean emailEnabled;
 
-    @Value("${email.sender:no-reply@example.com}")
-    private String sender;
-
-    private final JavaMailSender mailSender;
+    private final EmailOutboxRepository outboxRepository;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository outboxRepository) {
+        this.outboxRepository = outboxRepository;
     }
 
-    public void sendSignupEmail(String to, String name) {
+    /**
+     * Writes the welcome email to the outbox in the caller's transaction, so it is only
+     * sent if the signup commits. Delivery is left to {@link EmailOutboxDispatcher}.
+     */
+    public void queueSignupEmail(String to, String name) {
         if (!emailEnabled) {
             log.debug("Email disabled. Skipping signup email to {}", to);
             return;
@@ -35,18 +34,8 @@ public class EmailService {
                 "<p>Your account (" + escape(to) + ") has been created successfully.</p>" +
                 "<p>Happy reading and reviewing!</p>";
         String text = "Welcome, " + name + "!\nYour account (" + to + ") has been created successfully.\nHappy reading and reviewing!";
-        try {
-            MimeMessage message = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
-            helper.setFrom(sender);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(text, html); // plain text and HTML
-            mailSender.send(message);
-            log.info("Sent signup email to {} via SMTP", to);
-        } catch (Exception e) {
-            log.warn("Failed to send signup email to {} via SMTP: {}", to, e.getMessage());
-        }
+        outboxRepository.save(new EmailOutboxMessage(to, subject, text, html));
+        log.debug("Queued signup email to {}", to);
     }
 
     private String escape(String s) {
@@ -1,5 +1,6 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.FavouriteSummary;
 import com.bookreview.model.Book;
 import com.bookreview.model.Favourite;
 import com.bookreview.model.User;
@@ -17,17 +18,24 @@ public class FavouriteService {
     private final FavouriteRepository favouriteRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookCache bookCache;
 
-    public FavouriteService(FavouriteRepository favouriteRepository, BookRepository bookRepository, UserRepository userRepository) {
+    public FavouriteService(FavouriteRepository favouriteRepository, BookRepository bookRepository, UserRepository userRepository,
+                            BookCache bookCache) {
         this.favouriteRepository = favouriteRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.bookCache = bookCache;
     }
 
     public List<Favourite> findByUserId(Long userId) {
         return favouriteRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    public List<FavouriteSummary> findSummariesByUserId(Long userId) {
+        return favouriteRepository.findSummariesByUserId(userId);
+    }
+
     public boolean isFavourite(Long userId, Long bookId) {
         return favouriteRepository.existsByUserIdAndBookId(userId, bookId);
     }
@@ -39,8 +47,11 @@ public class FavouriteService {
             throw new IllegalArgumentException("Book is already favourited by this user");
         }
 
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+        // Existence check from the book cache; the favourite only needs the book's id
+        if (bookCache.get(bookId).isEmpty()) {
+            throw new IllegalArgumentException("Book not found");
+        }
+        Book book = bookRepository.getReferenceById(bookId);
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found"));
 
@@ -0,0 +1,118 @@
+package com.bookreview.service;
+
+import com.bookreview.model.RefreshToken;
+import com.bookreview.model.User;
+import com.bookreview.repository.RefreshTokenRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
+import com.bookreview.security.TokenDigests;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issues and rotates opaque refresh tokens, so clients can obtain new access tokens
+ * without sending the password (and paying for a BCrypt verification) again.
+ */
+@Service
+public class RefreshTokenService {
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+    private final Duration ttl;
+    private final SecureRandom random = new SecureRandom();
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               @Value("${app.jwt.refresh.expirationMillis:2592000000}") long expirationMillis) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.ttl = Duration.ofMillis(expirationMillis);
+    }
+
+    public record Rotation(AuthenticatedUser principal, String refreshToken) {}
+
+    /**
+     * Starts a new token family for a freshly authenticated user.
+     *
+     * @return the raw token; only its digest is persisted
+     */
+    @Transactional
+    public String issue(Long userId, long securityEpoch) {
+        User user = userRepository.getReferenceById(userId);
+        return store(user, UUID.randomUUID().toString(), securityEpoch, Instant.now());
+    }
+
+    /**
+     * Exchanges a refresh token for its successor. A token that was already rotated
+     * revokes its whole family: either the client or an attacker holds a stolen copy.
+     * Revocations must survive the rejection, hence no rollback on auth failures.
+     */
+    @Transactional(noRollbackFor = AuthenticationException.class)
+    public Rotation rotate(String rawToken) {
+        Instant now = Instant.now();
+        RefreshToken current = refreshTokenRepository.findByTokenHash(TokenDigests.sha256(rawToken))
+                .orElseThrow(() -> new BadCredentialsException("Unknown refresh token"));
+        if (current.isRevoked()) {
+            int revoked = refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reuse detected for user {}; revoked {} token(s)",
+                    current.getUser().getId(), revoked);
+            throw new BadCredentialsException("Refresh token already used");
+        }
+        if (current.isExpired(now)) {
+            throw new CredentialsExpiredException("Refresh token expired");
+        }
+        User user = current.getUser();
+        if (current.getSecurityEpoch() < user.getSecurityEpoch()) {
+            // Password or roles changed since this session started
+            refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+            throw new BadCredentialsException("Refresh token invalidated");
+        }
+        current.revoke(now);
+        String next = store(user, current.getFamilyId(), user.getSecurityEpoch(), now);
+        return new Rotation(AuthenticatedUser.from(user), next);
+    }
+
+    /**
+     * Ends the session the token belongs to. Unknown tokens are ignored so logout stays idempotent.
+     */
+    @Transactional
+    public void revoke(String rawToken) {
+        refreshTokenRepository.findByTokenHash(TokenDigests.sha256(rawToken))
+                .ifPresent(token -> refreshTokenRepository.revokeFamily(token.getFamilyId(), Instant.now()));
+    }
+
+    // Rotated tokens are kept until expiry so that replaying them is still detected
+    @Scheduled(fixedDelayString = "${app.jwt.refresh.purgeMillis:3600000}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = refreshTokenRepository.deleteExpiredBefore(Instant.now());
+        if (deleted > 0) {
+            log.info("Purged {} expired refresh token(s)", deleted);
+        }
+    }
+
+    private String store(User user, String familyId, long securityEpoch, Instant now) {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshToken(user, TokenDigests.sha256(raw), familyId,
+                securityEpoch, now.plus(ttl)));
+        return raw;
+    }
+}
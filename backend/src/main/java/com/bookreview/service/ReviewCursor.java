@@ -0,0 +1,63 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ReviewItem;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Position of the last review of a keyset page: its sort key (creation time for
+ * {@code recent}, rating for {@code rating}) and id, plus the sort it belongs to.
+ * Serialized as an opaque URL-safe token; clients only hand it back.
+ */
+record ReviewCursor(ReviewCursor.Order order, Object key, long id) {
+
+    /** Review orders for one book; each has a (book_id, key DESC, id) index. */
+    enum Order {
+        RECENT, RATING;
+
+        /**
+         * @throws IllegalArgumentException if the name is not a supported order
+         */
+        static Order of(String name) {
+            if (name == null || name.isBlank()) {
+                return RECENT;
+            }
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sort: use recent or rating");
+            }
+        }
+    }
+
+    static ReviewCursor after(ReviewItem review, Order order) {
+        return new ReviewCursor(order, order == Order.RECENT ? review.createdAt() : review.rating(), review.id());
+    }
+
+    String encode() {
+        String raw = order.name().toLowerCase(Locale.ROOT) + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    static ReviewCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 3);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            Order order = Order.of(parts[0]);
+            Object key = order == Order.RECENT ? LocalDateTime.parse(parts[2]) : Double.valueOf(parts[2]);
+            return new ReviewCursor(order, key, Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            // Also covers bad Base64, NumberFormatException and DateTimeParseException
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
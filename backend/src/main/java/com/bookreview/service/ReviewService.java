@@ -1,42 +1,99 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ReviewItem;
+import com.bookreview.dto.ReviewSummary;
 import com.bookreview.model.Book;
 import com.bookreview.model.Review;
 import com.bookreview.model.User;
+import com.bookreview.repository.BookRatingWriter;
 import com.bookreview.repository.BookRepository;
 import com.bookreview.repository.ReviewRepository;
 import com.bookreview.repository.UserRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class ReviewService {
 
+    static final int MAX_SCROLL_SIZE = 100;
+
     private final ReviewRepository reviewRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
-
-    public ReviewService(ReviewRepository reviewRepository, BookRepository bookRepository, UserRepository userRepository) {
+    private final BookRatingWriter bookRatingWriter;
+    private final BookSuggestionIndex suggestionIndex;
+    private final BookVersionRegistry versionRegistry;
+    private final BookCache bookCache;
+    private final BookRatingCoalescer coalescer;
+
+    public ReviewService(ReviewRepository reviewRepository, BookRepository bookRepository, UserRepository userRepository,
+                         BookRatingWriter bookRatingWriter, BookSuggestionIndex suggestionIndex,
+                         BookVersionRegistry versionRegistry, BookCache bookCache, BookRatingCoalescer coalescer) {
         this.reviewRepository = reviewRepository;
         this.bookRepository = bookRepository;
         this.userRepository = userRepository;
+        this.bookRatingWriter = bookRatingWriter;
+        this.suggestionIndex = suggestionIndex;
+        this.versionRegistry = versionRegistry;
+        this.bookCache = bookCache;
+        this.coalescer = coalescer;
     }
 
     public Optional<Review> findByBookIdAndUserId(Long bookId, Long userId) {
         return reviewRepository.findByBookIdAndUserId(bookId, userId);
     }
 
-    public List<Review> findByBookId(Long bookId) {
-        return reviewRepository.findByBookIdOrderByCreatedAtDesc(bookId);
+    public List<ReviewSummary> findByBookId(Long bookId) {
+        return reviewRepository.findSummariesByBookId(bookId);
+    }
+
+    /**
+     * Keyset pagination over one book's reviews, newest first ({@code recent}) or best
+     * rated first ({@code rating}), ties broken by id. Each page is one indexed range scan
+     * that reads only the display columns.
+     *
+     * @param after cursor from the previous page, or blank for the first page
+     * @throws IllegalArgumentException if the sort is unknown, or the cursor is malformed or was issued for another sort
+     */
+    public CursorPage<ReviewItem> scrollByBook(Long bookId, String after, String sort, int size) {
+        ReviewCursor.Order order = ReviewCursor.Order.of(sort);
+        ReviewCursor cursor = null;
+        if (after != null && !after.isBlank()) {
+            cursor = ReviewCursor.decode(after);
+            if (cursor.order() != order) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+        int limit = Math.max(1, Math.min(size, MAX_SCROLL_SIZE));
+        Limit fetch = Limit.of(limit + 1);
+
+        List<ReviewItem> rows;
+        if (order == ReviewCursor.Order.RECENT) {
+            rows = cursor == null
+                    ? reviewRepository.findRecentItems(bookId, fetch)
+                    : reviewRepository.findRecentItemsAfter(bookId, (LocalDateTime) cursor.key(), cursor.id(), fetch);
+        } else {
+            rows = cursor == null
+                    ? reviewRepository.findTopRatedItems(bookId, fetch)
+                    : reviewRepository.findTopRatedItemsAfter(bookId, (Double) cursor.key(), cursor.id(), fetch);
+        }
+
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null, null);
+        }
+        List<ReviewItem> items = List.copyOf(rows.subList(0, limit));
+        return new CursorPage<>(items, ReviewCursor.after(items.get(limit - 1), order).encode(), null);
     }
 
-    public List<Review> findByUserId(Long userId) {
-        return reviewRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    public List<ReviewSummary> findByUserId(Long userId) {
+        return reviewRepository.findSummariesByUserId(userId);
     }
 
     @Transactional
@@ -45,13 +102,8 @@ public class ReviewService {
             throw new IllegalArgumentException("Rating must be between 1 and 5");
         }
 
-        Book book = bookRepository.findById(bookId)
-                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+        Optional<Review> existingReview = reviewRepository.findByBookIdAndUserIdForUpdate(bookId, userId);
 
-        Optional<Review> existingReview = reviewRepository.findByBookIdAndUserId(bookId, userId);
-        
         Review review;
         if (existingReview.isPresent()) {
             // Update existing review
@@ -60,6 +112,10 @@ public class ReviewService {
             review.setRating(rating.doubleValue());
         } else {
             // Create new review
+            Book book = bookRepository.findById(bookId)
+                    .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+            User user = userRepository.findById(userId)
+                    .orElseThrow(() -> new IllegalArgumentException("User not found"));
             review = new Review();
             review.setBook(book);
             review.setUser(user);
@@ -67,40 +123,67 @@ public class ReviewService {
             review.setRating(rating.doubleValue());
         }
 
+        if (coalescer.isCoalescing()) {
+            review = reviewRepository.save(review);
+            if (review.getRating().equals(review.getCountedRating())) {
+                // Nothing for the flush to count, but the text changed: bump the version for the ETags
+                updateBookAggregates(review.getBook(), new BookRatingWriter.Delta());
+            } else {
+                // Counted by the next flush; the book row is not touched here
+                coalescer.record(bookId, review.getId());
+            }
+            return review;
+        }
+        // Counts the difference to what the aggregates hold for this review, which may
+        // still be pending from coalesced mode
+        BookRatingWriter.Delta delta = new BookRatingWriter.Delta();
+        Double counted = review.getCountedRating();
+        if (counted != null) {
+            delta.remove(counted);
+        }
+        delta.add(rating);
+        review.setCountedRating(rating.doubleValue());
         review = reviewRepository.save(review);
-        updateBookAggregates(bookId);
+        updateBookAggregates(review.getBook(), delta);
         return review;
     }
 
     @Transactional
     public void deleteReview(Long reviewId, Long userId) {
-        Review review = reviewRepository.findById(reviewId)
+        Review review = reviewRepository.findByIdForUpdate(reviewId)
                 .orElseThrow(() -> new IllegalArgumentException("Review not found"));
         
         if (!review.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("Cannot delete another user's review");
         }
 
-        Long bookId = review.getBook().getId();
         reviewRepository.delete(review);
-        updateBookAggregates(bookId);
+        // Deletes are applied right away in both modes; a rating never counted has nothing to
+        // undo, but the book's version still moves so its review list ETag changes
+        Double counted = review.getCountedRating();
+        BookRatingWriter.Delta delta = new BookRatingWriter.Delta();
+        updateBookAggregates(review.getBook(), counted == null ? delta : delta.remove(counted));
     }
 
-    private void updateBookAggregates(Long bookId) {
-        Double avgRating = reviewRepository.getAverageRatingByBookId(bookId);
-        Long reviewCount = reviewRepository.getReviewCountByBookId(bookId);
-
-        Book book = bookRepository.findById(bookId).orElseThrow();
-        
-        // Round to 1 decimal place
-        if (avgRating != null) {
-            BigDecimal rounded = BigDecimal.valueOf(avgRating).setScale(1, RoundingMode.HALF_UP);
-            book.setAvgRating(rounded.doubleValue());
-        } else {
-            book.setAvgRating(null);
-        }
-        
-        book.setReviewCount(reviewCount);
-        bookRepository.save(book);
+    // Applies the delta of one review in a single UPDATE, then mirrors the result on the loaded
+    // book (for the response) and, once committed, on the in-memory indexes and caches
+    private void updateBookAggregates(Book book, BookRatingWriter.Delta delta) {
+        BookRatingWriter.Aggregates aggregates = bookRatingWriter.adjust(book.getId(), delta)
+                .orElseThrow(() -> new IllegalArgumentException("Book not found"));
+        book.setRatingSum(aggregates.ratingSum());
+        book.setReviewCount(aggregates.reviewCount());
+        book.setAvgRating(aggregates.avgRating());
+        book.setStarCounts(aggregates.starCounts());
+        book.setVersion(aggregates.version());
+
+        Long id = book.getId();
+        String title = book.getTitle();
+        String author = book.getAuthor();
+        BookSnapshot snapshot = BookSnapshot.of(book);
+        BookIndexListener.afterCommit(() -> {
+            suggestionIndex.put(id, title, author, aggregates.avgRating(), aggregates.reviewCount());
+            versionRegistry.record(id, aggregates.version());
+            bookCache.put(snapshot);
+        });
     }
 }
@@ -0,0 +1,15 @@
+-- Composite (sort key, id) indexes for keyset pagination on /books?after= (PostgreSQL).
+-- They replace the single-column title/author/year indexes. Safe to re-run.
+-- CONCURRENTLY cannot run inside a transaction block: run with psql in autocommit mode.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_title_id ON books (title, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_author_id ON books (author, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_year_id ON books (year, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_avg_rating_id ON books (avg_rating, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_review_count_id ON books (review_count, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_books_title;
+DROP INDEX CONCURRENTLY IF EXISTS idx_books_author;
+DROP INDEX CONCURRENTLY IF EXISTS idx_books_year;
+
+ANALYZE books;
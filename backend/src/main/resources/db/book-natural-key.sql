@@ -0,0 +1,31 @@
+-- Natural keys for catalog re-imports (PostgreSQL 11+), for databases created before
+-- books.natural_key existed. Safe to re-run.
+-- The key must match BookDigests.naturalKey: first 32 hex chars of
+-- sha256(lower(trim(collapsed title)) || chr(31) || lower(trim(collapsed author))).
+-- Where existing rows already collide, only the lowest id gets the key; the next
+-- import then updates that row and leaves the duplicates alone.
+-- content_hash stays NULL, so each book is rewritten once by the first re-import.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS natural_key VARCHAR(32);
+ALTER TABLE books ADD COLUMN IF NOT EXISTS content_hash BIGINT;
+
+WITH keyed AS (
+    SELECT id,
+           left(encode(sha256(convert_to(
+               lower(btrim(regexp_replace(title, '\s+', ' ', 'g'))) || chr(31) ||
+               lower(btrim(regexp_replace(author, '\s+', ' ', 'g'))), 'UTF8')), 'hex'), 32) AS natural_key
+    FROM books
+    WHERE natural_key IS NULL
+), first_per_key AS (
+    SELECT DISTINCT ON (natural_key) id, natural_key
+    FROM keyed
+    ORDER BY natural_key, id
+)
+UPDATE books b
+SET natural_key = f.natural_key
+FROM first_per_key f
+WHERE b.id = f.id
+  AND NOT EXISTS (SELECT 1 FROM books o WHERE o.natural_key = f.natural_key);
+
+-- CONCURRENTLY cannot run inside a transaction block: run with psql in autocommit mode.
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS uk_books_natural_key ON books (natural_key);
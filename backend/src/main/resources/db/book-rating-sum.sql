@@ -0,0 +1,22 @@
+-- Running rating sums behind the incremental review aggregates, for databases created
+-- before books.rating_sum or reviews.counted_rating existed. Safe to re-run: every book's sum, count and average
+-- are recomputed from its reviews. Run it while no reviews are being written; a review
+-- committed during the backfill can be miscounted, and re-running fixes that.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS rating_sum DOUBLE PRECISION NOT NULL DEFAULT 0;
+
+UPDATE books b
+SET rating_sum = coalesce((SELECT sum(r.rating) FROM reviews r WHERE r.book_id = b.id), 0),
+    review_count = (SELECT count(*) FROM reviews r WHERE r.book_id = b.id),
+    avg_rating = (SELECT round(CAST(sum(r.rating) / count(*) AS NUMERIC(20, 10)), 1)
+                  FROM reviews r WHERE r.book_id = b.id HAVING count(*) > 0);
+
+-- The rating each review contributes to its book's aggregates; behind coalesced mode
+-- (app.reviews.aggregates.mode=coalesced), where it lags the rating until the next flush.
+-- Every existing review is counted by the recompute above.
+ALTER TABLE reviews ADD COLUMN IF NOT EXISTS counted_rating DOUBLE PRECISION;
+UPDATE reviews SET counted_rating = rating WHERE counted_rating IS DISTINCT FROM rating;
+
+-- Serves the recovery sweep for reviews not yet counted; stays tiny
+CREATE INDEX IF NOT EXISTS idx_reviews_uncounted ON reviews (id)
+    WHERE counted_rating IS NULL OR counted_rating <> rating;
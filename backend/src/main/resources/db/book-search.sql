@@ -0,0 +1,27 @@
+-- Full-text and trigram search for /books (PostgreSQL 12+).
+-- Apply once, then set BOOK_SEARCH_MODE=fulltext. Safe to re-run.
+-- CONCURRENTLY cannot run inside a transaction block: run with psql in autocommit mode.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Title words weighted A, author B, genres C; maintained by PostgreSQL on every write.
+-- 'simple' config: no stemming or stop words, titles are matched as written.
+ALTER TABLE books ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(author, '')), 'B') ||
+        setweight(to_tsvector('simple', coalesce(genres, '')), 'C')
+    ) STORED;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_search_vector
+    ON books USING gin (search_vector);
+
+-- Serve ILIKE '%term%' and the word-similarity (<%) typo matching
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_title_trgm
+    ON books USING gin (title gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_author_trgm
+    ON books USING gin (author gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_books_genres_trgm
+    ON books USING gin (genres gin_trgm_ops);
+
+ANALYZE books;
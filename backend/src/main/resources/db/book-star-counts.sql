@@ -0,0 +1,29 @@
+-- Per-star review counters behind the book rating distribution (starCounts), for
+-- databases created before books.stars_1 .. stars_5 existed. Safe to re-run: every
+-- book's counters are recomputed from the ratings counted in its aggregates, in one
+-- grouped pass over the reviews. A rating falls in the star it rounds to, half up.
+-- Books whose counters change get a new version, so other nodes reload their cached
+-- copy. Run it while no reviews are being written; re-running fixes a miscount.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS stars_1 BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS stars_2 BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS stars_3 BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS stars_4 BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE books ADD COLUMN IF NOT EXISTS stars_5 BIGINT NOT NULL DEFAULT 0;
+
+UPDATE books b
+SET stars_1 = s.stars_1, stars_2 = s.stars_2, stars_3 = s.stars_3, stars_4 = s.stars_4, stars_5 = s.stars_5,
+    version = b.version + 1
+FROM (SELECT bk.id,
+             count(*) FILTER (WHERE r.star = 1) AS stars_1,
+             count(*) FILTER (WHERE r.star = 2) AS stars_2,
+             count(*) FILTER (WHERE r.star = 3) AS stars_3,
+             count(*) FILTER (WHERE r.star = 4) AS stars_4,
+             count(*) FILTER (WHERE r.star = 5) AS stars_5
+      FROM books bk
+      LEFT JOIN (SELECT book_id, least(5, greatest(1, floor(counted_rating + 0.5))) AS star
+                 FROM reviews WHERE counted_rating IS NOT NULL) r ON r.book_id = bk.id
+      GROUP BY bk.id) s
+WHERE s.id = b.id
+  AND (b.stars_1, b.stars_2, b.stars_3, b.stars_4, b.stars_5)
+      IS DISTINCT FROM (s.stars_1, s.stars_2, s.stars_3, s.stars_4, s.stars_5);
@@ -0,0 +1,5 @@
+-- Per-book version counters behind the HTTP ETags, for databases created before
+-- books.version existed. Safe to re-run. Every book starts at version 0; the column
+-- only ever grows (rating changes and catalog re-imports bump it).
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,21 @@
+-- Transactional email outbox drained by EmailOutboxDispatcher (PostgreSQL), for databases
+-- created before the email_outbox table existed. Safe to re-run.
+
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id              bigserial PRIMARY KEY,
+    recipient       varchar(100) NOT NULL,
+    subject         varchar(255) NOT NULL,
+    text_body       text NOT NULL,
+    html_body       text,
+    status          varchar(10) NOT NULL CHECK (status IN ('PENDING', 'SENT', 'DEAD')),
+    attempts        integer NOT NULL,
+    next_attempt_at timestamp(6) with time zone NOT NULL,
+    last_error      varchar(500),
+    created_at      timestamp(6),
+    sent_at         timestamp(6) with time zone
+);
+
+-- Dispatchers claim due rows with status = 'PENDING' AND next_attempt_at <= now()
+-- ORDER BY next_attempt_at FOR UPDATE SKIP LOCKED; this index lets each claim read
+-- only due rows in order instead of scanning and locking past sent ones.
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox (status, next_attempt_at);
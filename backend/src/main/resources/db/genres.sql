@@ -0,0 +1,38 @@
+-- Normalized genres for /books genre filters and facets (PostgreSQL).
+-- Creates the tables if Hibernate has not, then backfills them from books.genres. Safe to re-run.
+
+CREATE TABLE IF NOT EXISTS genres (
+    id   bigserial PRIMARY KEY,
+    name varchar(100) NOT NULL,
+    slug varchar(100) NOT NULL,
+    CONSTRAINT uk_genres_slug UNIQUE (slug)
+);
+
+CREATE TABLE IF NOT EXISTS book_genres (
+    book_id  bigint NOT NULL REFERENCES books (id),
+    genre_id bigint NOT NULL REFERENCES genres (id),
+    PRIMARY KEY (book_id, genre_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_book_genres_genre ON book_genres (genre_id);
+
+-- Same split and slug rules as BookService.splitGenres / Genre.slugOf
+INSERT INTO genres (name, slug)
+SELECT DISTINCT ON (slug) name, slug
+FROM (
+    SELECT btrim(part) AS name, lower(regexp_replace(btrim(part), '\s+', ' ', 'g')) AS slug, b.id
+    FROM books b, regexp_split_to_table(b.genres, '[,;|]') AS part
+) parts
+WHERE slug <> ''
+ORDER BY slug, id
+ON CONFLICT (slug) DO NOTHING;
+
+INSERT INTO book_genres (book_id, genre_id)
+SELECT DISTINCT b.id, g.id
+FROM books b
+CROSS JOIN LATERAL regexp_split_to_table(b.genres, '[,;|]') AS part
+JOIN genres g ON g.slug = lower(regexp_replace(btrim(part), '\s+', ' ', 'g'))
+ON CONFLICT DO NOTHING;
+
+ANALYZE genres;
+ANALYZE book_genres;
@@ -0,0 +1,20 @@
+-- Rotating refresh tokens behind POST /auth/refresh (PostgreSQL), for databases created
+-- before the refresh_tokens table existed. Safe to re-run. Only the SHA-256 digest of
+-- each token is stored; family_id groups a token with the successors it was rotated into.
+
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id             bigserial PRIMARY KEY,
+    user_id        bigint NOT NULL,
+    token_hash     varchar(64) NOT NULL,
+    family_id      varchar(36) NOT NULL,
+    security_epoch bigint NOT NULL,
+    expires_at     timestamp(6) with time zone NOT NULL,
+    revoked_at     timestamp(6) with time zone,
+    created_at     timestamp(6),
+    CONSTRAINT uk_refresh_tokens_hash UNIQUE (token_hash),
+    CONSTRAINT fk_refresh_tokens_user_id FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family ON refresh_tokens (family_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user ON refresh_tokens (user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expires ON refresh_tokens (expires_at);
@@ -0,0 +1,11 @@
+-- Composite (book_id, sort key, id) indexes for keyset pages of a book's reviews on
+-- /reviews/book/{id}?after= (PostgreSQL). They replace the single-column book_id index,
+-- which both cover as their leading column. Safe to re-run.
+-- CONCURRENTLY cannot run inside a transaction block: run with psql in autocommit mode.
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reviews_book_created_id ON reviews (book_id, created_at DESC, id);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_reviews_book_rating_id ON reviews (book_id, rating DESC, id);
+
+DROP INDEX CONCURRENTLY IF EXISTS idx_reviews_book;
+
+ANALYZE reviews;
@@ -0,0 +1,10 @@
+-- Access tokens revoked by POST /auth/logout before they expire (PostgreSQL), for
+-- databases created before the revoked_tokens table existed. Safe to re-run. Rows
+-- outlive their token only until the next cleanup, which deletes by expires_at.
+
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+    token_id   varchar(36) PRIMARY KEY,
+    expires_at timestamp(6) with time zone NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_tokens_expires ON revoked_tokens (expires_at);
@@ -0,0 +1,5 @@
+-- Per-user security epochs behind JWT invalidation, for databases created before
+-- users.security_epoch existed. Safe to re-run. Every user starts at epoch 0; password
+-- and role changes bump it, which rejects every token issued before the change.
+
+ALTER TABLE users ADD COLUMN IF NOT EXISTS security_epoch BIGINT NOT NULL DEFAULT 0;
@@ -2,31 +2,41 @@ package com.bookreview.controller;
 
 import com.bookreview.dto.AuthResponse;
 import com.bookreview.dto.LoginRequest;
+import com.bookreview.dto.RefreshTokenRequest;
 import com.bookreview.dto.SignupRequest;
 import com.bookreview.model.Role;
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
 import com.bookreview.security.JwtService;
-import com.bookreview.service.EmailService;
+import com.bookreview.security.PasswordHashingRejectedException;
+import com.bookreview.security.RevokedTokenRegistry;
+import com.bookreview.security.VerifiedToken;
+import com.bookreview.service.AuthService;
+import com.bookreview.service.RefreshTokenService;
+import io.jsonwebtoken.ExpiredJwtException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Instant;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -45,7 +55,13 @@ class AuthControllerTest {
     private JwtService jwtService;
 
     @Mock
-    private EmailService emailService;
+    private AuthService authService;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
+
+    @Mock
+    private RevokedTokenRegistry revokedTokens;
 
     @Mock
     private Authentication authentication;
@@ -81,8 +97,9 @@ class AuthControllerTest {
         // Given
         when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(false);
         when(passwordEncoder.encode(signupRequest.getPassword())).thenReturn("hashedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(user);
-        when(jwtService.generateToken(anyString(), any(Map.class))).thenReturn("jwt-token");
+        when(authService.register(any(User.class))).thenReturn(user);
+        when(jwtService.generateToken(user)).thenReturn("jwt-token");
+        when(refreshTokenService.issue(1L, 0L)).thenReturn("refresh-token");
 
         // When
         ResponseEntity<?> response = authController.signup(signupRequest);
@@ -92,12 +109,12 @@ class AuthControllerTest {
         assertThat(response.getBody()).isInstanceOf(AuthResponse.class);
         AuthResponse authResponse = (AuthResponse) response.getBody();
         assertThat(authResponse.getToken()).isEqualTo("jwt-token");
+        assertThat(authResponse.getRefreshToken()).isEqualTo("refresh-token");
 
         verify(userRepository).existsByEmail(signupRequest.getEmail());
         verify(passwordEncoder).encode(signupRequest.getPassword());
-        verify(userRepository).save(any(User.class));
-        verify(jwtService).generateToken(user.getEmail(), Map.of("roles", java.util.List.of("USER")));
-        verify(emailService).sendSignupEmail(user.getEmail(), user.getName());
+        verify(authService).register(any(User.class));
+        verify(jwtService).generateToken(user);
     }
 
     @Test
@@ -116,8 +133,7 @@ class AuthControllerTest {
         assertThat(responseBody.get("error")).isEqualTo("Email already registered");
 
         verify(userRepository).existsByEmail(signupRequest.getEmail());
-        verify(userRepository, never()).save(any(User.class));
-        verify(emailService, never()).sendSignupEmail(anyString(), anyString());
+        verify(authService, never()).register(any(User.class));
     }
 
     @Test
@@ -125,8 +141,10 @@ class AuthControllerTest {
         // Given
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authentication);
-        when(authentication.getName()).thenReturn(loginRequest.getEmail());
-        when(jwtService.generateToken(loginRequest.getEmail(), Map.of())).thenReturn("jwt-token");
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        when(authentication.getPrincipal()).thenReturn(principal);
+        when(jwtService.generateToken(principal)).thenReturn("jwt-token");
+        when(refreshTokenService.issue(1L, 0L)).thenReturn("refresh-token");
 
         // When
         ResponseEntity<AuthResponse> response = (ResponseEntity<AuthResponse>) authController.login(loginRequest);
@@ -135,15 +153,82 @@ class AuthControllerTest {
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).isNotNull();
         assertThat(response.getBody().getToken()).isEqualTo("jwt-token");
+        assertThat(response.getBody().getRefreshToken()).isEqualTo("refresh-token");
 
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtService).generateToken(loginRequest.getEmail(), Map.of());
+        verify(jwtService).generateToken(principal);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void refresh_shouldRotateTokenWithoutPasswordCheck() {
+        // Given
+        RefreshTokenRequest request = refreshRequest("old-refresh");
+        AuthenticatedUser principal = AuthenticatedUser.from(user);
+        when(refreshTokenService.rotate("old-refresh"))
+                .thenReturn(new RefreshTokenService.Rotation(principal, "new-refresh"));
+        when(jwtService.generateToken(principal)).thenReturn("jwt-token");
+
+        // When
+        ResponseEntity<?> response = authController.refresh(request);
+
+        // Then
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        AuthResponse authResponse = (AuthResponse) response.getBody();
+        assertThat(authResponse.getToken()).isEqualTo("jwt-token");
+        assertThat(authResponse.getRefreshToken()).isEqualTo("new-refresh");
+        verifyNoInteractions(authenticationManager, passwordEncoder);
+    }
+
+    @Test
+    void refresh_shouldReturnUnauthorized_whenTokenRejected() {
+        // Given
+        when(refreshTokenService.rotate("reused")).thenThrow(new BadCredentialsException("Refresh token already used"));
+
+        // When
+        ResponseEntity<?> response = authController.refresh(refreshRequest("reused"));
+
+        // Then
+        assertThat(response.getStatusCodeValue()).isEqualTo(401);
+        @SuppressWarnings("unchecked")
+        Map<String, String> responseBody = (Map<String, String>) response.getBody();
+        assertThat(responseBody.get("error")).isEqualTo("Invalid refresh token");
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    void logout_shouldRevokeAccessAndRefreshToken() {
+        // Given
+        VerifiedToken verified = new VerifiedToken("jti-1", "test@example.com", 1L, List.of("USER"), 0L,
+                Instant.now(), Instant.now().plusSeconds(60));
+        when(jwtService.verify("jwt-token")).thenReturn(verified);
+
+        // When
+        ResponseEntity<?> response = authController.logout("Bearer jwt-token", refreshRequest("refresh-token"));
+
+        // Then
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verify(revokedTokens).revoke(verified);
+        verify(refreshTokenService).revoke("refresh-token");
+    }
+
+    @Test
+    void logout_shouldIgnoreInvalidAccessToken() {
+        // Given
+        when(jwtService.verify("expired")).thenThrow(new ExpiredJwtException(null, null, "expired"));
+
+        // When
+        ResponseEntity<?> response = authController.logout("Bearer expired", null);
+
+        // Then
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        verifyNoInteractions(revokedTokens);
     }
 
     @Test
     void logout_shouldReturnSuccessMessage() {
         // When
-        ResponseEntity<?> response = authController.logout();
+        ResponseEntity<?> response = authController.logout(null, null);
 
         // Then
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
@@ -151,5 +236,24 @@ class AuthControllerTest {
         @SuppressWarnings("unchecked")
         Map<String, String> responseBody = (Map<String, String>) response.getBody();
         assertThat(responseBody.get("message")).isEqualTo("Logged out");
+        verifyNoInteractions(refreshTokenService);
+    }
+
+    @Test
+    void hashingRejected_shouldReturnServiceUnavailableWithRetryAfter() {
+        ResponseEntity<?> response = authController.handleHashingRejected(
+                new PasswordHashingRejectedException("busy", 3));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("3");
+        @SuppressWarnings("unchecked")
+        Map<String, String> responseBody = (Map<String, String>) response.getBody();
+        assertThat(responseBody.get("error")).isEqualTo("Server busy, please retry");
+    }
+
+    private static RefreshTokenRequest refreshRequest(String token) {
+        RefreshTokenRequest request = new RefreshTokenRequest();
+        request.setRefreshToken(token);
+        return request;
     }
 }
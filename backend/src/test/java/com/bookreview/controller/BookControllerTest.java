@@ -1,19 +1,35 @@
 package com.bookreview.controller;
 
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ImportJobStatus;
+import com.bookreview.dto.ReconciliationReport;
 import com.bookreview.model.Book;
+import com.bookreview.service.BookAggregateReconciler;
+import com.bookreview.service.BookGenreIndex;
+import com.bookreview.service.BookImportService;
 import com.bookreview.service.BookService;
+import com.bookreview.service.BookSuggestionIndex;
+import com.bookreview.service.BookVersionRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.data.domain.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.context.request.ServletWebRequest;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -24,12 +40,33 @@ class BookControllerTest {
     @Mock
     private BookService bookService;
 
-    @InjectMocks
+    @Mock
+    private BookSuggestionIndex suggestionIndex;
+
+    @Mock
+    private BookImportService importService;
+
+    @Mock
+    private BookVersionRegistry versionRegistry;
+
+    @Mock
+    private BookAggregateReconciler reconciler;
+
     private BookController bookController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        bookController = new BookController(bookService, suggestionIndex, importService, new CatalogEtags(versionRegistry),
+                reconciler);
+    }
+
+    private static ServletWebRequest get(String uri, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
     }
 
     @Test
@@ -53,17 +90,17 @@ class BookControllerTest {
         book2.setGenres("Non-Fiction");
         book2.setYear(2021);
 
-        Page<Book> expectedPage = new PageImpl<>(List.of(book1, book2));
-        when(bookService.search(any(), any(), any(), any(), any(Pageable.class))).thenReturn(expectedPage);
+        Page<BookSummary> expectedPage = new PageImpl<>(List.of(BookSummary.of(book1), BookSummary.of(book2)));
+        when(bookService.search(any(), any(), any(), anyBoolean(), any(), any(Pageable.class))).thenReturn(expectedPage);
 
         // Act
-        ResponseEntity<Page<Book>> response = bookController.searchBooks("book", "author", "Fiction", 2020, Pageable.unpaged());
+        ResponseEntity<Page<BookSummary>> response = bookController.searchBooks("book", "author", "Fiction", "any", 2020, Pageable.unpaged());
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(2, response.getBody().getTotalElements());
-        verify(bookService).search("book", "author", "Fiction", 2020, Pageable.unpaged());
+        verify(bookService).search("book", "author", "Fiction", false, 2020, Pageable.unpaged());
     }
 
     @Test
@@ -78,15 +115,35 @@ class BookControllerTest {
         expectedBook.setGenres("Fiction");
         expectedBook.setYear(2020);
         
-        when(bookService.findById(1L)).thenReturn(Optional.of(expectedBook));
+        when(bookService.findById(1L)).thenReturn(Optional.of(BookSnapshot.of(expectedBook)));
+        when(versionRegistry.version(1L)).thenReturn(3L);
+        ServletWebRequest request = get("/books/1", null);
 
         // Act
-        ResponseEntity<Book> response = bookController.getBookById(1L);
+        ResponseEntity<BookSnapshot> response = bookController.getBookById(1L, request);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(expectedBook, response.getBody());
+        assertEquals(BookSnapshot.of(expectedBook), response.getBody());
+        assertEquals("\"book-1-v3\"", request.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals("max-age=0, public, s-maxage=60", response.getHeaders().getCacheControl());
+    }
+
+    @Test
+    void getBookById_matchingEtag_isNotModified_withoutLoadingTheBook() {
+        when(versionRegistry.version(1L)).thenReturn(3L);
+
+        ResponseEntity<BookSnapshot> response = bookController.getBookById(1L, get("/books/1", "\"book-1-v3\""));
+
+        assertEquals(304, response.getStatusCode().value());
+        assertNull(response.getBody());
+        verifyNoInteractions(bookService);
+
+        // Any rating change bumps the version and so the tag
+        when(versionRegistry.version(1L)).thenReturn(4L);
+        when(bookService.findById(1L)).thenReturn(Optional.of(BookSnapshot.of(new Book())));
+        assertEquals(200, bookController.getBookById(1L, get("/books/1", "\"book-1-v3\"")).getStatusCode().value());
     }
 
     @Test
@@ -95,7 +152,7 @@ class BookControllerTest {
         when(bookService.findById(999L)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<Book> response = bookController.getBookById(999L);
+        ResponseEntity<BookSnapshot> response = bookController.getBookById(999L, get("/books/999", null));
 
         // Assert
         assertNotNull(response);
@@ -103,7 +160,7 @@ class BookControllerTest {
     }
 
     @Test
-    void importBooks_shouldReturnImportResult() throws Exception {
+    void importBooks_shouldQueueJobAndReturnAccepted() throws Exception {
         // Arrange
         MockMultipartFile file = new MockMultipartFile(
             "file",
@@ -111,15 +168,125 @@ class BookControllerTest {
             "text/csv",
             "title,author,description,cover_url,genres,year\nBook 1,Author 1,Desc 1,url1,Fiction,2020".getBytes()
         );
-        when(bookService.importCsv(any())).thenReturn(1);
+        ImportJobStatus queued = new ImportJobStatus("job-1", ImportJobStatus.State.QUEUED, 0, 0, 0, 0, 0, 0, null,
+                Instant.now(), null, null, null);
+        when(importService.submit(file)).thenReturn(queued);
 
         // Act
-        ResponseEntity<BookController.ImportResponse> response = bookController.importBooks(file);
+        ResponseEntity<?> response = bookController.importBooks(file);
 
         // Assert
-        assertNotNull(response);
+        assertEquals(202, response.getStatusCodeValue());
+        assertSame(queued, response.getBody());
+        assertEquals("/admin/books/import/job-1", response.getHeaders().getLocation().toString());
+    }
+
+    @Test
+    void importBooks_queueFull_returns503() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("file", "books.csv", "text/csv", new byte[0]);
+        when(importService.submit(file)).thenThrow(new RejectedExecutionException());
+
+        ResponseEntity<?> response = bookController.importBooks(file);
+
+        assertEquals(503, response.getStatusCodeValue());
+        assertTrue(((Map<?, ?>) response.getBody()).containsKey("error"));
+    }
+
+    @Test
+    void importLocalBooks_queuesJob_orRejectsBadPath() throws Exception {
+        ImportJobStatus queued = new ImportJobStatus("job-2", ImportJobStatus.State.QUEUED, 0, 0, 0, 0, 0, 0, null,
+                Instant.now(), null, null, null);
+        when(importService.submitLocal("catalog.csv")).thenReturn(queued);
+        when(importService.submitLocal("../etc/passwd")).thenThrow(new IllegalArgumentException("No such file"));
+
+        ResponseEntity<?> accepted = bookController.importLocalBooks("catalog.csv");
+        assertEquals(202, accepted.getStatusCodeValue());
+        assertSame(queued, accepted.getBody());
+
+        ResponseEntity<?> rejected = bookController.importLocalBooks("../etc/passwd");
+        assertEquals(400, rejected.getStatusCodeValue());
+        assertEquals("No such file", ((Map<?, ?>) rejected.getBody()).get("error"));
+    }
+
+    @Test
+    void importStatus_knownAndUnknownJobs() {
+        ImportJobStatus done = new ImportJobStatus("job-1", ImportJobStatus.State.COMPLETED, 3, 2, 0, 0, 1, 0, 1500.0,
+                Instant.now(), Instant.now(), Instant.now(), null);
+        when(importService.find("job-1")).thenReturn(Optional.of(done));
+        when(importService.find("nope")).thenReturn(Optional.empty());
+
+        assertSame(done, bookController.importStatus("job-1").getBody());
+        assertEquals(404, bookController.importStatus("nope").getStatusCodeValue());
+    }
+
+    @Test
+    void suggestBooks_shouldReturnIndexMatches() {
+        List<BookSuggestionIndex.Suggestion> expected = List.of(
+                new BookSuggestionIndex.Suggestion(1L, "Dune", "Frank Herbert", 4.5, 10L));
+        when(suggestionIndex.suggest("du", 5)).thenReturn(expected);
+
+        ResponseEntity<List<BookSuggestionIndex.Suggestion>> response = bookController.suggestBooks("du", 5);
+
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(1, response.getBody().imported());
-        verify(bookService).importCsv(any());
+        assertEquals(expected, response.getBody());
+    }
+
+    @Test
+    void searchBooks_genreMatchAll_requestsEveryGenre() {
+        when(bookService.search(any(), any(), any(), anyBoolean(), any(), any(Pageable.class))).thenReturn(Page.empty());
+
+        bookController.searchBooks(null, null, "Fiction,Classics", "ALL", null, Pageable.unpaged());
+
+        verify(bookService).search(null, null, "Fiction,Classics", true, null, Pageable.unpaged());
+    }
+
+    @Test
+    void bookFacets_shouldReturnCountsOrUnavailable() {
+        BookGenreIndex.Facets facets = new BookGenreIndex.Facets(2, java.util.Map.of("Fiction", 2), java.util.Map.of(2020, 2));
+        when(bookService.facets("Fiction", false, null)).thenReturn(Optional.of(facets));
+        when(bookService.facets(null, false, null)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> ok = bookController.bookFacets("Fiction", "any", null);
+        assertEquals(200, ok.getStatusCode().value());
+        assertEquals(facets, ok.getBody());
+
+        assertEquals(503, bookController.bookFacets(null, "any", null).getStatusCode().value());
+    }
+
+    @Test
+    void scrollBooks_shouldPassCursorAndSort() {
+        Pageable pageable = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "year"));
+        CursorPage<BookSummary> expected = new CursorPage<>(List.of(BookSummary.of(new Book())), "next", 42L);
+        when(bookService.scroll(null, null, "Fiction", false, null, "abc", 5, pageable.getSort(), true)).thenReturn(expected);
+
+        ResponseEntity<?> response = bookController.scrollBooks(null, null, "Fiction", "any", null, "abc", true, pageable);
+
+        assertEquals(200, response.getStatusCode().value());
+        assertEquals(expected, response.getBody());
+    }
+
+    @Test
+    void scrollBooks_invalidCursor_returnsBadRequest() {
+        when(bookService.scroll(any(), any(), any(), anyBoolean(), any(), eq("bogus"), anyInt(), any(), anyBoolean()))
+                .thenThrow(new IllegalArgumentException("Invalid cursor"));
+
+        ResponseEntity<?> response = bookController.scrollBooks(null, null, null, "any", null, "bogus", false, PageRequest.of(0, 20));
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals(java.util.Map.of("error", "Invalid cursor"), response.getBody());
+    }
+
+    @Test
+    void reconcileAggregates_reportsCorrections_orConflictsWhileRunning() {
+        ReconciliationReport report = new ReconciliationReport(3, 0, 2, 150);
+        when(reconciler.reconcile()).thenReturn(Optional.of(report)).thenReturn(Optional.empty());
+
+        ResponseEntity<?> done = bookController.reconcileAggregates();
+        assertEquals(200, done.getStatusCode().value());
+        assertEquals(report, done.getBody());
+
+        ResponseEntity<?> busy = bookController.reconcileAggregates();
+        assertEquals(409, busy.getStatusCode().value());
+        assertEquals(Map.of("error", "A reconciliation is already running"), busy.getBody());
     }
 }
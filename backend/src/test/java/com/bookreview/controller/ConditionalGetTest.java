@@ -0,0 +1,121 @@
+package com.bookreview.controller;
+
+import com.bookreview.model.Book;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.JwtService;
+import com.bookreview.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end check of the catalog ETags through the security filter chain: a repeat
+ * view is a 304 without a single SQL statement, and a new review changes the tags of
+ * the book, its reviews and the top-rated list.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalGetTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    JwtService jwtService;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ReviewRepository reviewRepository;
+
+    String bearer;
+    Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("etag@example.com", "hash", "Reader", Set.of(Role.USER)));
+        Book book = new Book();
+        book.setTitle("Dune");
+        book.setAuthor("Frank Herbert");
+        bookId = bookRepository.save(book).getId();
+        bearer = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private String etag(String uri) throws Exception {
+        return mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, public, s-maxage=60"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+
+    private void assertNotModified(String uri, String etag) throws Exception {
+        SqlStatementCounter.clear();
+        mockMvc.perform(get(uri).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=0, public, s-maxage=60"));
+        assertEquals(List.of(), SqlStatementCounter.statements());
+    }
+
+    @Test
+    void repeatViews_areNotModified_untilARatingChanges() throws Exception {
+        String bookUri = "/books/" + bookId;
+        String reviewsUri = "/reviews/book/" + bookId;
+        String topRatedUri = "/recommendations/top-rated";
+        String bookTag = etag(bookUri);
+        String reviewsTag = etag(reviewsUri);
+        String topRatedTag = etag(topRatedUri);
+        assertNotEquals(bookTag, reviewsTag);
+
+        assertNotModified(bookUri, bookTag);
+        assertNotModified(reviewsUri, reviewsTag);
+        assertNotModified(topRatedUri, topRatedTag);
+
+        mockMvc.perform(post("/reviews/book/" + bookId)
+                        .header(HttpHeaders.AUTHORIZATION, bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"text\":\"Great\",\"rating\":5}"))
+                .andExpect(status().isOk());
+
+        for (String[] view : new String[][]{{bookUri, bookTag}, {reviewsUri, reviewsTag}, {topRatedUri, topRatedTag}}) {
+            String fresh = mockMvc.perform(get(view[0]).header(HttpHeaders.IF_NONE_MATCH, view[1]))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotEquals(view[1], fresh);
+            assertNotModified(view[0], fresh);
+        }
+        mockMvc.perform(get(bookUri))
+                .andExpect(jsonPath("$.reviewCount").value(1))
+                .andExpect(jsonPath("$.starCounts").value(contains(0, 0, 0, 0, 1)));
+    }
+}
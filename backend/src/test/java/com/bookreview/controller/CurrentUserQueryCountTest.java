@@ -0,0 +1,120 @@
+package com.bookreview.controller;
+
+import com.bookreview.model.Book;
+import com.bookreview.model.Favourite;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.FavouriteRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.JwtService;
+import com.bookreview.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Counts the SQL issued by protected endpoints to prove that resolving the caller's
+ * id never costs a user query of its own.
+ */
+class CurrentUserQueryCountTest {
+
+    abstract static class Base {
+        @Autowired
+        MockMvc mockMvc;
+        @Autowired
+        JwtService jwtService;
+        @Autowired
+        UserRepository userRepository;
+        @Autowired
+        BookRepository bookRepository;
+        @Autowired
+        FavouriteRepository favouriteRepository;
+        @Autowired
+        ReviewRepository reviewRepository;
+
+        String bearer;
+        Long bookId;
+
+        @BeforeEach
+        void setUp() {
+            User user = userRepository.save(new User("reader@example.com", "hash", "Reader", Set.of(Role.USER)));
+            Book book = new Book();
+            book.setTitle("Dune");
+            book.setAuthor("Frank Herbert");
+            book = bookRepository.save(book);
+            bookId = book.getId();
+            favouriteRepository.save(Favourite.builder().user(user).book(book).build());
+            bearer = "Bearer " + jwtService.generateToken(user);
+            SqlStatementCounter.clear();
+        }
+
+        @AfterEach
+        void tearDown() {
+            reviewRepository.deleteAll();
+            favouriteRepository.deleteAll();
+            bookRepository.deleteAll();
+            userRepository.deleteAll();
+        }
+
+        long userLookupsFor(String path) throws Exception {
+            SqlStatementCounter.clear();
+            mockMvc.perform(get(path).header(HttpHeaders.AUTHORIZATION, bearer))
+                    .andExpect(status().isOk());
+            return SqlStatementCounter.userLookups();
+        }
+    }
+
+    @Nested
+    @SpringBootTest
+    @AutoConfigureMockMvc
+    @ActiveProfiles("test")
+    class DatabaseBackedAuthentication extends Base {
+
+        @Test
+        void protectedEndpoints_onlyLookUpUserOnceForAuthentication() throws Exception {
+            // Cold user-details cache: the filter's lookup is the only user query
+            assertEquals(1, userLookupsFor("/favourites/my"));
+            // Warm cache: authentication needs no user query at all
+            assertEquals(0, userLookupsFor("/reviews/my"));
+            assertEquals(0, userLookupsFor("/favourites/book/" + bookId + "/check"));
+        }
+
+        @Test
+        void userUpdate_evictsCachedDetails() throws Exception {
+            assertEquals(1, userLookupsFor("/favourites/my"));
+            User user = userRepository.findByEmail("reader@example.com").orElseThrow();
+            user.setName("Renamed Reader");
+            userRepository.save(user);
+            assertEquals(1, userLookupsFor("/favourites/my"));
+        }
+    }
+
+    @Nested
+    @SpringBootTest(properties = "app.jwt.stateless=true")
+    @AutoConfigureMockMvc
+    @ActiveProfiles("test")
+    class StatelessAuthentication extends Base {
+
+        @Test
+        void protectedEndpoints_issueNoUserQueries() throws Exception {
+            assertEquals(0, userLookupsFor("/favourites/my"));
+            assertEquals(0, userLookupsFor("/reviews/my"));
+            assertEquals(0, userLookupsFor("/favourites/book/" + bookId + "/check"));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.bookreview.controller;
 
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.FavouriteSummary;
+import com.bookreview.model.Book;
 import com.bookreview.model.Favourite;
-import com.bookreview.service.AuthService;
 import com.bookreview.service.FavouriteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,7 +11,6 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 
 import java.util.Arrays;
 import java.util.List;
@@ -20,14 +21,10 @@ import static org.mockito.Mockito.*;
 
 class FavouriteControllerTest {
 
-    @Mock
-    private FavouriteService favouriteService;
+    private static final Long USER_ID = 1L;
 
     @Mock
-    private AuthService authService;
-
-    @Mock
-    private Authentication authentication;
+    private FavouriteService favouriteService;
 
     @InjectMocks
     private FavouriteController favouriteController;
@@ -35,31 +32,25 @@ class FavouriteControllerTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(authService.extractUserId(any())).thenReturn(1L);
     }
 
     @Test
     void getMyFavourites_shouldReturnFavourites() {
         // Arrange
-        Favourite favourite1 = Favourite.builder()
-            .id(1L)
-            .build();
-        
-        Favourite favourite2 = Favourite.builder()
-            .id(2L)
-            .build();
-
-        List<Favourite> expectedFavourites = Arrays.asList(favourite1, favourite2);
-        when(favouriteService.findByUserId(1L)).thenReturn(expectedFavourites);
+        BookSummary book = new BookSummary(1L, "Dune", "Frank Herbert", null, null, 1965, null, 0L);
+        List<FavouriteSummary> expectedFavourites = Arrays.asList(
+            new FavouriteSummary(1L, null, book),
+            new FavouriteSummary(2L, null, book));
+        when(favouriteService.findSummariesByUserId(1L)).thenReturn(expectedFavourites);
 
         // Act
-        ResponseEntity<List<Favourite>> response = favouriteController.getMyFavourites(authentication);
+        ResponseEntity<List<FavouriteSummary>> response = favouriteController.getMyFavourites(USER_ID);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(2, response.getBody().size());
-        verify(favouriteService).findByUserId(1L);
+        verify(favouriteService).findSummariesByUserId(1L);
     }
 
     @Test
@@ -68,7 +59,7 @@ class FavouriteControllerTest {
         when(favouriteService.isFavourite(1L, 1L)).thenReturn(true);
 
         // Act
-        ResponseEntity<Boolean> response = favouriteController.checkFavourite(1L, authentication);
+        ResponseEntity<Boolean> response = favouriteController.checkFavourite(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
@@ -80,25 +71,29 @@ class FavouriteControllerTest {
     @Test
     void addFavourite_shouldReturnCreatedFavourite() {
         // Arrange
+        Book book = new Book();
+        book.setId(1L);
+        book.setTitle("Dune");
         Favourite expectedFavourite = Favourite.builder()
             .id(1L)
+            .book(book)
             .build();
         when(favouriteService.addFavourite(1L, 1L)).thenReturn(expectedFavourite);
 
         // Act
-        ResponseEntity<Favourite> response = favouriteController.addFavourite(1L, authentication);
+        ResponseEntity<FavouriteSummary> response = favouriteController.addFavourite(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(expectedFavourite, response.getBody());
+        assertEquals(FavouriteSummary.of(expectedFavourite), response.getBody());
         verify(favouriteService).addFavourite(1L, 1L);
     }
 
     @Test
     void removeFavourite_shouldCallService() {
         // Act
-        ResponseEntity<Void> response = favouriteController.removeFavourite(1L, authentication);
+        ResponseEntity<Void> response = favouriteController.removeFavourite(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
@@ -109,7 +104,7 @@ class FavouriteControllerTest {
     @Test
     void toggleFavourite_shouldCallService() {
         // Act
-        ResponseEntity<Void> response = favouriteController.toggleFavourite(1L, authentication);
+        ResponseEntity<Void> response = favouriteController.toggleFavourite(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
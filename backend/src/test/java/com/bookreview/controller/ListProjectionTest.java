@@ -0,0 +1,169 @@
+package com.bookreview.controller;
+
+import com.bookreview.model.Book;
+import com.bookreview.model.Favourite;
+import com.bookreview.model.Review;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.FavouriteRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.JwtService;
+import com.bookreview.support.SqlStatementCounter;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end check that list endpoints keep the nested JSON shape the frontend reads
+ * while neither selecting nor serializing book descriptions or user credentials.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ListProjectionTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    JwtService jwtService;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    FavouriteRepository favouriteRepository;
+    @Autowired
+    ReviewRepository reviewRepository;
+
+    String bearer;
+    Long bookId;
+
+    @BeforeEach
+    void setUp() {
+        User user = userRepository.save(new User("reader@example.com", "hash", "Reader", Set.of(Role.USER)));
+        Book book = new Book();
+        book.setTitle("Dune");
+        book.setAuthor("Frank Herbert");
+        book.setDescription("A long blurb that list views never render.");
+        book = bookRepository.save(book);
+        bookId = book.getId();
+        Review review = new Review();
+        review.setUser(user);
+        review.setBook(book);
+        review.setText("Great");
+        review.setRating(5.0);
+        reviewRepository.save(review);
+        favouriteRepository.save(Favourite.builder().user(user).book(book).build());
+        bearer = "Bearer " + jwtService.generateToken(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        favouriteRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private void assertSlimSql() {
+        for (String sql : SqlStatementCounter.statements()) {
+            String lower = sql.toLowerCase(Locale.ROOT);
+            if (lower.contains("from reviews") || lower.contains("from favourites") || lower.contains("from books")) {
+                assertFalse(lower.contains("description"), sql);
+                assertFalse(lower.contains("password_hash"), sql);
+            }
+        }
+    }
+
+    @Test
+    void reviewLists_renderCardsAndReviewerNameOnly() throws Exception {
+        SqlStatementCounter.clear();
+        mockMvc.perform(get("/reviews/book/" + bookId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].text").value("Great"))
+                .andExpect(jsonPath("$[0].user.name").value("Reader"))
+                .andExpect(jsonPath("$[0].user", not(hasKey("passwordHash"))))
+                .andExpect(jsonPath("$[0].user", not(hasKey("email"))))
+                .andExpect(jsonPath("$[0].book.title").value("Dune"))
+                .andExpect(jsonPath("$[0].book", not(hasKey("description"))));
+        mockMvc.perform(get("/reviews/my").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].book.author").value("Frank Herbert"))
+                .andExpect(jsonPath("$[0].user", not(hasKey("passwordHash"))));
+        assertSlimSql();
+    }
+
+    @Test
+    void reviewPages_coverEveryReviewOnce_withDisplayFieldsOnly() throws Exception {
+        Book book = bookRepository.findById(bookId).orElseThrow();
+        for (int i = 0; i < 4; i++) {
+            Review review = new Review();
+            review.setUser(userRepository.save(new User("page" + i + "@example.com", "hash", "Page " + i, Set.of(Role.USER))));
+            review.setBook(book);
+            review.setText("Review " + i);
+            review.setRating(i % 2 == 0 ? 4.0 : 5.0); // ties on the rating key
+            reviewRepository.save(review);
+        }
+
+        for (String sort : new String[] {"recent", "rating"}) {
+            SqlStatementCounter.clear();
+            List<Object> seen = new ArrayList<>();
+            String after = "";
+            do {
+                String body = mockMvc.perform(get("/reviews/book/" + bookId).param("after", after)
+                                .param("sort", sort).param("size", "2"))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.items[0].reviewerName").exists())
+                        .andExpect(jsonPath("$.items[0]", not(hasKey("book"))))
+                        .andExpect(jsonPath("$.items[0]", not(hasKey("user"))))
+                        .andReturn().getResponse().getContentAsString();
+                seen.addAll(JsonPath.read(body, "$.items[*].id"));
+                after = JsonPath.read(body, "$.nextCursor");
+            } while (after != null);
+            assertEquals(5, seen.size(), sort);
+            assertEquals(5, new HashSet<>(seen).size(), sort);
+            assertSlimSql();
+            // One range scan per page, no entity loads of the reviews' books or users
+            assertEquals(3, SqlStatementCounter.statements().size(), sort);
+        }
+    }
+
+    @Test
+    void favouritesAndBooks_renderCardsWithoutDescription() throws Exception {
+        SqlStatementCounter.clear();
+        mockMvc.perform(get("/favourites/my").header(HttpHeaders.AUTHORIZATION, bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].createdAt").exists())
+                .andExpect(jsonPath("$[0].book.id").value(bookId))
+                .andExpect(jsonPath("$[0].book", not(hasKey("description"))))
+                .andExpect(jsonPath("$[0]", not(hasKey("user"))));
+        mockMvc.perform(get("/books"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].title").value("Dune"))
+                .andExpect(jsonPath("$.content[0]", not(hasKey("description"))));
+        assertSlimSql();
+    }
+}
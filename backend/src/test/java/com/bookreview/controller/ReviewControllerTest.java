@@ -1,19 +1,30 @@
 package com.bookreview.controller;
 
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ReviewItem;
+import com.bookreview.dto.ReviewSummary;
+import com.bookreview.model.Book;
 import com.bookreview.model.Review;
-import com.bookreview.service.AuthService;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.service.BookVersionRegistry;
 import com.bookreview.service.ReviewService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -21,63 +32,110 @@ import static org.mockito.Mockito.*;
 
 class ReviewControllerTest {
 
-    @Mock
-    private ReviewService reviewService;
+    private static final Long USER_ID = 1L;
 
     @Mock
-    private AuthService authService;
+    private ReviewService reviewService;
 
     @Mock
-    private Authentication authentication;
+    private BookVersionRegistry versionRegistry;
 
-    @InjectMocks
     private ReviewController reviewController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        when(authService.extractUserId(any())).thenReturn(1L);
+        reviewController = new ReviewController(reviewService, new CatalogEtags(versionRegistry));
+    }
+
+    private static ServletWebRequest get(String uri, String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+
+    private static Review review(Long id, String text, double rating) {
+        Book book = new Book();
+        book.setId(10L);
+        book.setTitle("Dune");
+        User user = new User("reader@example.com", "secret-hash", "Reader", Set.of(Role.USER));
+        user.setId(USER_ID);
+        Review review = new Review();
+        review.setId(id);
+        review.setText(text);
+        review.setRating(rating);
+        review.setBook(book);
+        review.setUser(user);
+        return review;
+    }
+
+    private static ReviewSummary summary(Long id, String text, double rating) {
+        return new ReviewSummary(id, text, rating, null, null,
+                new BookSummary(10L, "Dune", null, null, null, null, null, 0L), new ReviewSummary.Reviewer(USER_ID, "Reader"));
     }
 
     @Test
     void getReviewsByBook_shouldReturnReviews() {
         // Arrange
-        Review review1 = new Review();
-        review1.setId(1L);
-        review1.setText("Great book!");
-        review1.setRating(5.0);
-
-        Review review2 = new Review();
-        review2.setId(2L);
-        review2.setText("Good read");
-        review2.setRating(4.0);
-
-        List<Review> expectedReviews = Arrays.asList(review1, review2);
+        List<ReviewSummary> expectedReviews = Arrays.asList(summary(1L, "Great book!", 5.0), summary(2L, "Good read", 4.0));
         when(reviewService.findByBookId(1L)).thenReturn(expectedReviews);
 
         // Act
-        ResponseEntity<List<Review>> response = reviewController.getReviewsByBook(1L);
+        ServletWebRequest request = get("/reviews/book/1", null);
+        ResponseEntity<List<ReviewSummary>> response = reviewController.getReviewsByBook(1L, request);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
         assertEquals(2, response.getBody().size());
+        assertEquals("\"reviews-1-v0\"", request.getResponse().getHeader(HttpHeaders.ETAG));
         verify(reviewService).findByBookId(1L);
     }
 
+    @Test
+    void getReviewsByBook_matchingEtag_isNotModified_withoutQuerying() {
+        when(versionRegistry.version(1L)).thenReturn(7L);
+
+        ResponseEntity<List<ReviewSummary>> response = reviewController.getReviewsByBook(1L,
+                get("/reviews/book/1", "\"reviews-1-v7\""));
+
+        assertEquals(304, response.getStatusCode().value());
+        verifyNoInteractions(reviewService);
+    }
+
+    @Test
+    void scrollReviewsByBook_returnsCursorPage() {
+        CursorPage<ReviewItem> page = new CursorPage<>(
+                List.of(new ReviewItem(3L, 5.0, "Great book!", "Reader", null, null)), "next", null);
+        when(reviewService.scrollByBook(1L, "", "rating", 10)).thenReturn(page);
+
+        ResponseEntity<?> response = reviewController.scrollReviewsByBook(1L, "", "rating", 10, get("/reviews/book/1", null));
+
+        assertEquals(200, response.getStatusCode().value());
+        assertSame(page, response.getBody());
+    }
+
+    @Test
+    void scrollReviewsByBook_badSortOrCursor_isBadRequest() {
+        when(reviewService.scrollByBook(1L, "x", "helpful", 20))
+                .thenThrow(new IllegalArgumentException("Unsupported sort: use recent or rating"));
+
+        ResponseEntity<?> response = reviewController.scrollReviewsByBook(1L, "x", "helpful", 20, get("/reviews/book/1", null));
+
+        assertEquals(400, response.getStatusCode().value());
+        assertEquals(Map.of("error", "Unsupported sort: use recent or rating"), response.getBody());
+    }
+
     @Test
     void getMyReviews_shouldReturnUsersReviews() {
         // Arrange
-        Review review = new Review();
-        review.setId(1L);
-        review.setText("Great book!");
-        review.setRating(5.0);
-
-        List<Review> expectedReviews = List.of(review);
+        List<ReviewSummary> expectedReviews = List.of(summary(1L, "Great book!", 5.0));
         when(reviewService.findByUserId(1L)).thenReturn(expectedReviews);
 
         // Act
-        ResponseEntity<List<Review>> response = reviewController.getMyReviews(authentication);
+        ResponseEntity<List<ReviewSummary>> response = reviewController.getMyReviews(USER_ID);
 
         // Assert
         assertNotNull(response);
@@ -89,20 +147,18 @@ class ReviewControllerTest {
     @Test
     void getMyReviewForBook_shouldReturnReviewWhenExists() {
         // Arrange
-        Review expectedReview = new Review();
-        expectedReview.setId(1L);
-        expectedReview.setText("Great book!");
-        expectedReview.setRating(5.0);
-        
+        Review expectedReview = review(1L, "Great book!", 5.0);
+
         when(reviewService.findByBookIdAndUserId(1L, 1L)).thenReturn(Optional.of(expectedReview));
 
         // Act
-        ResponseEntity<Review> response = reviewController.getMyReviewForBook(1L, authentication);
+        ResponseEntity<ReviewSummary> response = reviewController.getMyReviewForBook(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(expectedReview, response.getBody());
+        assertEquals(ReviewSummary.of(expectedReview), response.getBody());
+        assertEquals(new ReviewSummary.Reviewer(USER_ID, "Reader"), response.getBody().user());
     }
 
     @Test
@@ -111,7 +167,7 @@ class ReviewControllerTest {
         when(reviewService.findByBookIdAndUserId(999L, 1L)).thenReturn(Optional.empty());
 
         // Act
-        ResponseEntity<Review> response = reviewController.getMyReviewForBook(999L, authentication);
+        ResponseEntity<ReviewSummary> response = reviewController.getMyReviewForBook(999L, USER_ID);
 
         // Assert
         assertNotNull(response);
@@ -121,28 +177,25 @@ class ReviewControllerTest {
     @Test
     void createOrUpdateReview_shouldCreateNewReview() {
         // Arrange
-        Review expectedReview = new Review();
-        expectedReview.setId(1L);
-        expectedReview.setText("Great book!");
-        expectedReview.setRating(5.0);
-        
+        Review expectedReview = review(1L, "Great book!", 5.0);
+
         ReviewController.ReviewRequest request = new ReviewController.ReviewRequest("Great book!", 5);
         when(reviewService.createOrUpdateReview(1L, 1L, "Great book!", 5)).thenReturn(expectedReview);
 
         // Act
-        ResponseEntity<Review> response = reviewController.createOrUpdateReview(1L, request, authentication);
+        ResponseEntity<ReviewSummary> response = reviewController.createOrUpdateReview(1L, request, USER_ID);
 
         // Assert
         assertNotNull(response);
         assertEquals(200, response.getStatusCodeValue());
-        assertEquals(expectedReview, response.getBody());
+        assertEquals(ReviewSummary.of(expectedReview), response.getBody());
         verify(reviewService).createOrUpdateReview(1L, 1L, "Great book!", 5);
     }
 
     @Test
     void deleteReview_shouldCallService() {
         // Act
-        ResponseEntity<Void> response = reviewController.deleteReview(1L, authentication);
+        ResponseEntity<Void> response = reviewController.deleteReview(1L, USER_ID);
 
         // Assert
         assertNotNull(response);
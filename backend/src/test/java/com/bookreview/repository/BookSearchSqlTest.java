@@ -0,0 +1,72 @@
+package com.bookreview.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookSearchSqlTest {
+
+    @Test
+    void prefixTsQuery_keepsOnlyWordCharactersAndAppliesWeight() {
+        assertEquals("lord:*A & of:*A & the:*A & ri:*A", BookSearchSql.prefixTsQuery("Lord of the Ri", 'A'));
+        assertEquals("o:*B & brian:*B", BookSearchSql.prefixTsQuery("O'Brian", 'B'));
+        assertEquals("café:*A", BookSearchSql.prefixTsQuery("  Café!! ", 'A'));
+        assertNull(BookSearchSql.prefixTsQuery("&|!:*", 'A'));
+    }
+
+    @Test
+    void likePattern_escapesWildcards() {
+        assertEquals("%100\\% pure\\_fun%", BookSearchSql.likePattern(" 100% pure_fun "));
+    }
+
+    @Test
+    void build_titleSearch_usesIndexedPredicatesAndRanksByRelevance() {
+        BookSearchSql sql = BookSearchSql.build("Dune", null, null, false, null,
+                PageRequest.of(2, 20, Sort.by("title")));
+
+        assertTrue(sql.selectSql.contains("b.title ILIKE :titleLike"));
+        assertTrue(sql.selectSql.contains(":title <% b.title"));
+        assertTrue(sql.selectSql.contains("b.search_vector @@ to_tsquery('simple', :titleTsq)"));
+        assertTrue(sql.selectSql.contains("ORDER BY ts_rank(b.search_vector, to_tsquery('simple', :titleTsq)) + word_similarity(:title, b.title) DESC, b.title ASC, b.id"));
+        assertTrue(sql.selectSql.endsWith("LIMIT 20 OFFSET 40"));
+        assertFalse(sql.selectSql.contains("LIKE '%"), "no leading-wildcard literal");
+        assertEquals("dune:*A", sql.params.get("titleTsq"));
+        assertEquals("%Dune%", sql.params.get("titleLike"));
+        assertEquals("Dune", sql.params.get("title"));
+    }
+
+    @Test
+    void build_filtersOnly_keepRequestedSortAndIgnoreUnknownProperties() {
+        BookSearchSql sql = BookSearchSql.build(null, " ", List.of("sci-fi"), false, 1965,
+                PageRequest.of(0, 10, Sort.by(Sort.Order.desc("year"), Sort.Order.asc("bogus"))));
+
+        String where = " WHERE 1=1 AND EXISTS (SELECT 1 FROM book_genres bg JOIN genres g ON g.id = bg.genre_id"
+                + " WHERE bg.book_id = b.id AND g.slug IN (:genreSlugs)) AND b.year = :year";
+        assertEquals("SELECT " + BookSearchSql.SUMMARY_COLUMNS + " FROM books b" + where + " ORDER BY b.year DESC, b.id LIMIT 10 OFFSET 0", sql.selectSql);
+        assertEquals("SELECT count(*) FROM books b" + where, sql.countSql);
+        assertEquals(List.of("sci-fi"), sql.params.get("genreSlugs"));
+        assertEquals(1965, sql.params.get("year"));
+        assertFalse(sql.params.containsKey("author"));
+    }
+
+    @Test
+    void build_matchAllGenres_requiresEveryGenre() {
+        BookSearchSql sql = BookSearchSql.build(null, null, List.of("fiction", "classics"), true, null, PageRequest.of(0, 10));
+
+        assertTrue(sql.countSql.endsWith(" AND (SELECT count(*) FROM book_genres bg JOIN genres g ON g.id = bg.genre_id"
+                + " WHERE bg.book_id = b.id AND g.slug IN (:genreSlugs)) = :genreCount"));
+        assertEquals(2L, sql.params.get("genreCount"));
+    }
+
+    @Test
+    void build_punctuationOnlyTerm_fallsBackToTrigramMatching() {
+        BookSearchSql sql = BookSearchSql.build("?!", null, null, false, null, PageRequest.of(0, 10));
+
+        assertFalse(sql.selectSql.contains("titleTsq"));
+        assertTrue(sql.selectSql.contains(":title <% b.title"));
+    }
+}
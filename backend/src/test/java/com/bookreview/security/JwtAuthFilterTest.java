@@ -7,7 +7,6 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpHeaders;
@@ -18,7 +17,9 @@ import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Collections;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -42,13 +43,27 @@ class JwtAuthFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @InjectMocks
+    @Mock
+    private SecurityEpochRegistry epochRegistry;
+
+    @Mock
+    private RevokedTokenRegistry revokedTokens;
+
     private JwtAuthFilter jwtAuthFilter;
 
+    private static VerifiedToken verifiedToken(String subject) {
+        return new VerifiedToken("jti-" + subject, subject, null, List.of(), 0L, Instant.now(), Instant.now().plusSeconds(3600));
+    }
+
+    private static VerifiedToken selfContainedToken(String subject, long userId, long epoch) {
+        return new VerifiedToken("jti-" + subject, subject, userId, List.of("USER"), epoch, Instant.now(), Instant.now().plusSeconds(3600));
+    }
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
         SecurityContextHolder.clearContext();
+        jwtAuthFilter = new JwtAuthFilter(jwtService, userDetailsService, epochRegistry, revokedTokens, false);
     }
 
     @Test
@@ -85,14 +100,14 @@ class JwtAuthFilterTest {
     void doFilterInternal_shouldContinueFilterChainWhenJwtExtractionFails() throws ServletException, IOException {
         // Arrange
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer invalidtoken");
-        when(jwtService.extractUsername("invalidtoken")).thenThrow(new RuntimeException("Invalid token"));
+        when(jwtService.verify("invalidtoken")).thenThrow(new RuntimeException("Invalid token"));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername("invalidtoken");
+        verify(jwtService).verify("invalidtoken");
         verifyNoInteractions(userDetailsService);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
@@ -106,18 +121,16 @@ class JwtAuthFilterTest {
             Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
 
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, username)).thenReturn(true);
+        when(jwtService.verify(token)).thenReturn(verifiedToken(username));
+        when(userDetailsService.loadCachedUser(username)).thenReturn(userDetails);
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(token);
-        verify(userDetailsService).loadUserByUsername(username);
-        verify(jwtService).isTokenValid(token, username);
+        verify(jwtService).verify(token);
+        verify(userDetailsService).loadCachedUser(username);
 
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         assertNotNull(authentication);
@@ -126,26 +139,24 @@ class JwtAuthFilterTest {
     }
 
     @Test
-    void doFilterInternal_shouldNotSetAuthenticationWhenTokenIsInvalid() throws ServletException, IOException {
+    void doFilterInternal_shouldNotSetAuthenticationWhenSubjectDoesNotMatchUser() throws ServletException, IOException {
         // Arrange
         String token = "invalidtoken";
         String username = "test@example.com";
-        UserDetails userDetails = new User(username, "password", 
+        UserDetails userDetails = new User("other@example.com", "password",
             Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
 
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
-        when(jwtService.isTokenValid(token, username)).thenReturn(false);
+        when(jwtService.verify(token)).thenReturn(verifiedToken(username));
+        when(userDetailsService.loadCachedUser(username)).thenReturn(userDetails);
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(token);
-        verify(userDetailsService).loadUserByUsername(username);
-        verify(jwtService).isTokenValid(token, username);
+        verify(jwtService).verify(token);
+        verify(userDetailsService).loadCachedUser(username);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
@@ -155,14 +166,14 @@ class JwtAuthFilterTest {
         String token = "validtoken";
 
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(null);
+        when(jwtService.verify(token)).thenReturn(verifiedToken(null));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(token);
+        verify(jwtService).verify(token);
         verifyNoInteractions(userDetailsService);
         assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
@@ -181,14 +192,14 @@ class JwtAuthFilterTest {
                 existingUser, null, existingUser.getAuthorities()));
 
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
+        when(jwtService.verify(token)).thenReturn(verifiedToken(username));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername(token);
+        verify(jwtService).verify(token);
         verifyNoInteractions(userDetailsService);
         
         // Authentication should remain the existing one
@@ -201,13 +212,16 @@ class JwtAuthFilterTest {
     void doFilterInternal_shouldHandleEmptyBearerToken() throws ServletException, IOException {
         // Arrange
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer ");
+        when(jwtService.verify("")).thenThrow(new IllegalArgumentException("JWT String argument cannot be null or empty."));
 
         // Act
         jwtAuthFilter.doFilterInternal(request, response, filterChain);
 
         // Assert
         verify(filterChain).doFilter(request, response);
-        verify(jwtService).extractUsername("");
+        verify(jwtService).verify("");
+        verifyNoInteractions(userDetailsService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 
     @Test
@@ -217,15 +231,97 @@ class JwtAuthFilterTest {
         String username = "test@example.com";
 
         when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
-        when(jwtService.extractUsername(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenThrow(new RuntimeException("User not found"));
+        when(jwtService.verify(token)).thenReturn(verifiedToken(username));
+        when(userDetailsService.loadCachedUser(username)).thenThrow(new RuntimeException("User not found"));
 
         // Act & Assert
         assertThrows(RuntimeException.class, () -> {
             jwtAuthFilter.doFilterInternal(request, response, filterChain);
         });
 
-        verify(jwtService).extractUsername(token);
-        verify(userDetailsService).loadUserByUsername(username);
+        verify(jwtService).verify(token);
+        verify(userDetailsService).loadCachedUser(username);
+    }
+
+    @Test
+    void doFilterInternal_statelessMode_shouldAuthenticateFromClaimsWithoutUserLookup() throws ServletException, IOException {
+        // Arrange
+        JwtAuthFilter statelessFilter = new JwtAuthFilter(jwtService, userDetailsService, epochRegistry, revokedTokens, true);
+        String token = "validtoken";
+        String username = "test@example.com";
+
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
+        when(jwtService.verify(token)).thenReturn(selfContainedToken(username, 42L, 0L));
+        when(epochRegistry.isCurrent(42L, 0L)).thenReturn(true);
+
+        // Act
+        statelessFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(authentication);
+        assertEquals(username, authentication.getName());
+        assertTrue(authentication.getAuthorities().contains(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Test
+    void doFilterInternal_statelessMode_shouldFallBackToUserLookupForLegacyTokens() throws ServletException, IOException {
+        // Arrange
+        JwtAuthFilter statelessFilter = new JwtAuthFilter(jwtService, userDetailsService, epochRegistry, revokedTokens, true);
+        String token = "legacytoken";
+        String username = "test@example.com";
+        UserDetails userDetails = new User(username, "password",
+            Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")));
+
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
+        when(jwtService.verify(token)).thenReturn(verifiedToken(username));
+        when(userDetailsService.loadCachedUser(username)).thenReturn(userDetails);
+
+        // Act
+        statelessFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(userDetailsService).loadCachedUser(username);
+        assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_shouldRejectTokenFromOlderSecurityEpoch() throws ServletException, IOException {
+        // Arrange
+        JwtAuthFilter statelessFilter = new JwtAuthFilter(jwtService, userDetailsService, epochRegistry, revokedTokens, true);
+        String token = "staletoken";
+
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
+        when(jwtService.verify(token)).thenReturn(selfContainedToken("test@example.com", 42L, 1L));
+        when(epochRegistry.isCurrent(42L, 1L)).thenReturn(false);
+
+        // Act
+        statelessFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
+    }
+
+    @Test
+    void doFilterInternal_shouldRejectRevokedToken() throws ServletException, IOException {
+        // Arrange
+        String token = "revokedtoken";
+        VerifiedToken verified = selfContainedToken("test@example.com", 42L, 0L);
+
+        when(request.getHeader(HttpHeaders.AUTHORIZATION)).thenReturn("Bearer " + token);
+        when(jwtService.verify(token)).thenReturn(verified);
+        when(revokedTokens.isRevoked(verified)).thenReturn(true);
+
+        // Act
+        jwtAuthFilter.doFilterInternal(request, response, filterChain);
+
+        // Assert
+        verify(filterChain).doFilter(request, response);
+        verifyNoInteractions(userDetailsService);
+        assertNull(SecurityContextHolder.getContext().getAuthentication());
     }
 }
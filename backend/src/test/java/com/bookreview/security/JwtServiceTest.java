@@ -5,6 +5,8 @@ import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -20,14 +22,21 @@ import static org.junit.jupiter.api.Assertions.*;
 class JwtServiceTest {
 
     private JwtService jwtService;
+    private MeterRegistry meterRegistry;
     private final String testSecret = Base64.getEncoder().encodeToString("mySecretKeyForTestingPurposesOnly123456789".getBytes());
     private final long testExpirationMillis = 3600000; // 1 hour
 
     @BeforeEach
     void setUp() {
-        jwtService = new JwtService();
-        ReflectionTestUtils.setField(jwtService, "secret", testSecret);
-        ReflectionTestUtils.setField(jwtService, "expirationMillis", testExpirationMillis);
+        meterRegistry = new SimpleMeterRegistry();
+        jwtService = newJwtService(testExpirationMillis);
+    }
+
+    private JwtService newJwtService(long expirationMillis) {
+        JwtService service = new JwtService(new VerifiedTokenCache(1000, meterRegistry), meterRegistry);
+        ReflectionTestUtils.setField(service, "secret", testSecret);
+        ReflectionTestUtils.setField(service, "expirationMillis", expirationMillis);
+        return service;
     }
 
     @Test
@@ -110,9 +119,7 @@ class JwtServiceTest {
         String username = "test@example.com";
         
         // Create a service with very short expiration
-        JwtService shortExpiryService = new JwtService();
-        ReflectionTestUtils.setField(shortExpiryService, "secret", testSecret);
-        ReflectionTestUtils.setField(shortExpiryService, "expirationMillis", 1L); // 1 millisecond
+        JwtService shortExpiryService = newJwtService(1L); // 1 millisecond
         
         String token = shortExpiryService.generateToken(username, new HashMap<>());
         
@@ -198,4 +205,80 @@ class JwtServiceTest {
         // Assert
         assertNull(nonExistentClaim);
     }
+
+    @Test
+    void verify_shouldReturnTypedClaims() {
+        // Arrange
+        Map<String, Object> extraClaims = new HashMap<>();
+        extraClaims.put("roles", java.util.List.of("USER"));
+        String token = jwtService.generateToken("test@example.com", extraClaims);
+
+        // Act
+        VerifiedToken verified = jwtService.verify(token);
+
+        // Assert
+        assertEquals("test@example.com", verified.subject());
+        assertEquals(java.util.List.of("USER"), verified.roles());
+        assertNotNull(verified.issuedAt());
+        assertTrue(verified.expiresAt().isAfter(verified.issuedAt()));
+    }
+
+    @Test
+    void verify_shouldParseOnceAndServeRepeatsFromCache() {
+        // Arrange
+        String token = jwtService.generateToken("test@example.com", new HashMap<>());
+
+        // Act
+        jwtService.extractUsername(token);
+        jwtService.isTokenValid(token, "test@example.com");
+        jwtService.verify(token);
+
+        // Assert
+        assertEquals(1, meterRegistry.get("jwt.verify").timer().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "jwtVerifiedTokens").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void verify_shouldNotCacheRejectedTokens() {
+        // Arrange
+        String token = jwtService.generateToken("test@example.com", new HashMap<>());
+        String tampered = token.substring(0, token.length() - 2) + "xx";
+
+        // Act & Assert
+        assertThrows(Exception.class, () -> jwtService.verify(tampered));
+        assertThrows(Exception.class, () -> jwtService.verify(tampered));
+        assertEquals(2, meterRegistry.get("jwt.verify").timer().count());
+    }
+
+    @Test
+    void generateToken_forUser_shouldEmbedIdRolesAndEpoch() {
+        // Arrange
+        com.bookreview.model.User user = new com.bookreview.model.User();
+        user.setId(7L);
+        user.setEmail("test@example.com");
+        user.setRoles(java.util.Set.of(com.bookreview.model.Role.ADMIN, com.bookreview.model.Role.USER));
+        user.setSecurityEpoch(3L);
+
+        // Act
+        VerifiedToken verified = jwtService.verify(jwtService.generateToken(user));
+
+        // Assert
+        assertTrue(verified.isSelfContained());
+        assertEquals("test@example.com", verified.subject());
+        assertEquals(7L, verified.userId());
+        assertEquals(java.util.List.of("ADMIN", "USER"), verified.roles());
+        assertEquals(3L, verified.epoch());
+    }
+
+    @Test
+    void generateToken_shouldAssignUniqueTokenIds() {
+        // Act
+        VerifiedToken first = jwtService.verify(jwtService.generateToken("test@example.com", new HashMap<>()));
+        VerifiedToken second = jwtService.verify(jwtService.generateToken("test@example.com", new HashMap<>()));
+
+        // Assert
+        assertNotNull(first.tokenId());
+        assertNotEquals(first.tokenId(), second.tokenId());
+    }
 }
@@ -0,0 +1,54 @@
+package com.bookreview.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RevocationBloomFilterTest {
+
+    @Test
+    void neverReportsFalseNegatives() {
+        RevocationBloomFilter filter = RevocationBloomFilter.create(1_000, 0.001);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String id = UUID.randomUUID().toString();
+            ids.add(id);
+            filter.put(id);
+        }
+
+        for (String id : ids) {
+            assertTrue(filter.mightContain(id));
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        RevocationBloomFilter filter = RevocationBloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(UUID.randomUUID().toString());
+        }
+
+        int falsePositives = 0;
+        int probes = 100_000;
+        for (int i = 0; i < probes; i++) {
+            if (filter.mightContain(UUID.randomUUID().toString())) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < probes * 0.02, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        RevocationBloomFilter filter = RevocationBloomFilter.create(0, 0.001);
+
+        assertFalse(filter.mightContain("anything"));
+        assertEquals(0, filter.bitCount() % 64);
+        assertTrue(filter.hashCount() >= 1);
+    }
+}
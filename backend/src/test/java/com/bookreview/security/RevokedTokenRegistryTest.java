@@ -0,0 +1,78 @@
+package com.bookreview.security;
+
+import com.bookreview.model.RevokedToken;
+import com.bookreview.repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class RevokedTokenRegistryTest {
+    private RevokedTokenRepository repository;
+    private RevokedTokenRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        repository = mock(RevokedTokenRepository.class);
+        registry = new RevokedTokenRegistry(repository, new SimpleMeterRegistry(), 1_000, 0.001);
+    }
+
+    private static VerifiedToken token(String jti, Instant expiresAt) {
+        return new VerifiedToken(jti, "jane@example.com", 1L, List.of("USER"), 0L, Instant.now(), expiresAt);
+    }
+
+    @Test
+    void unrevokedToken_isClearedWithoutDatabaseLookup() {
+        assertFalse(registry.isRevoked(token("jti-1", Instant.now().plusSeconds(60))));
+        assertFalse(registry.isRevoked(token(null, Instant.now().plusSeconds(60))));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void revokedToken_isConfirmedByExactLookup() {
+        VerifiedToken token = token("jti-1", Instant.now().plusSeconds(60));
+        registry.revoke(token);
+        when(repository.existsById("jti-1")).thenReturn(true);
+
+        assertTrue(registry.isRevoked(token));
+        verify(repository).save(any(RevokedToken.class));
+        verify(repository).existsById("jti-1");
+    }
+
+    @Test
+    void expiredToken_isNotStored() {
+        registry.revoke(token("jti-1", Instant.now().minusSeconds(1)));
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void rebuild_loadsLiveRowsAndTrimsExpiredOnes() {
+        when(repository.countByExpiresAtAfter(any())).thenReturn(1L);
+        when(repository.findLiveTokenIds(any())).thenReturn(List.of("jti-remote"));
+        when(repository.existsById(anyString())).thenReturn(true);
+
+        registry.rebuild();
+
+        verify(repository).deleteExpired(any(Instant.class));
+        assertTrue(registry.isRevoked(token("jti-remote", Instant.now().plusSeconds(60))));
+    }
+
+    @Test
+    void failedRebuild_keepsPreviousFilter() {
+        VerifiedToken token = token("jti-1", Instant.now().plusSeconds(60));
+        registry.revoke(token);
+        when(repository.deleteExpired(any())).thenThrow(new IllegalStateException("db down"));
+        when(repository.existsById("jti-1")).thenReturn(true);
+
+        registry.rebuild();
+
+        assertTrue(registry.isRevoked(token));
+    }
+}
@@ -0,0 +1,64 @@
+package com.bookreview.security;
+
+import com.bookreview.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SecurityEpochRegistryTest {
+    private UserRepository userRepository;
+    private SecurityEpochRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        userRepository = Mockito.mock(UserRepository.class);
+        registry = new SecurityEpochRegistry(userRepository);
+    }
+
+    private static UserRepository.SecurityEpochView epoch(long userId, long epoch) {
+        UserRepository.SecurityEpochView view = mock(UserRepository.SecurityEpochView.class);
+        when(view.getId()).thenReturn(userId);
+        when(view.getSecurityEpoch()).thenReturn(epoch);
+        return view;
+    }
+
+    @Test
+    void unknownUsers_acceptAnyEpoch() {
+        assertTrue(registry.isCurrent(1L, 0L));
+    }
+
+    @Test
+    void record_rejectsOlderTokens_andNeverMovesBackwards() {
+        registry.record(1L, 2L);
+        registry.record(1L, 1L);
+        assertFalse(registry.isCurrent(1L, 1L));
+        assertTrue(registry.isCurrent(1L, 2L));
+    }
+
+    @Test
+    void reload_replacesTableFromRepository() {
+        registry.record(9L, 5L);
+        List<UserRepository.SecurityEpochView> views = List.of(epoch(1L, 3L));
+        when(userRepository.findBySecurityEpochGreaterThan(0L)).thenReturn(views);
+
+        registry.reload();
+
+        assertFalse(registry.isCurrent(1L, 2L));
+        assertTrue(registry.isCurrent(9L, 0L));
+    }
+
+    @Test
+    void reload_failure_keepsPreviousTable() {
+        registry.record(1L, 2L);
+        when(userRepository.findBySecurityEpochGreaterThan(0L)).thenThrow(new RuntimeException("db down"));
+
+        registry.reload();
+
+        assertFalse(registry.isCurrent(1L, 1L));
+    }
+}
@@ -0,0 +1,115 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.ReconciliationReport;
+import com.bookreview.model.Book;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Reconciliation against the database: aggregates broken behind the service's back
+ * (a manual SQL fix, a bulk delete) are recomputed from the reviews over several
+ * chunks, only the drifted books are rewritten, and the cached books follow.
+ */
+@SpringBootTest(properties = "app.reviews.aggregates.reconcile.chunkSize=2")
+@ActiveProfiles("test")
+class AggregateReconciliationTest {
+
+    @Autowired
+    BookAggregateReconciler reconciler;
+    @Autowired
+    ReviewService reviewService;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ReviewRepository reviewRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void reconcile_correctsOnlyDriftedBooks_andRefreshesTheirCachedCopies() {
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            users.add(userRepository.save(new User("reconcile" + i + "@example.com", "hash", "Reader " + i,
+                    Set.of(Role.USER))).getId());
+        }
+        List<Long> books = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author");
+            books.add(bookRepository.save(book).getId());
+        }
+        for (int i = 0; i < books.size(); i++) {
+            for (int u = 0; u < users.size(); u++) {
+                reviewService.createOrUpdateReview(books.get(i), users.get(u), "!", 1 + (i + u) % 5);
+            }
+        }
+        Long fixedByHand = books.get(1);
+        Long bulkDeleted = books.get(3);
+        Long untouched = books.get(4);
+        long untouchedVersion = version(untouched);
+        bookService.findById(fixedByHand);
+        jdbcTemplate.update("UPDATE books SET review_count = 7, avg_rating = 1.0, stars_1 = 7 WHERE id = ?", fixedByHand);
+        jdbcTemplate.update("DELETE FROM reviews WHERE book_id = ? AND user_id = ?", bulkDeleted, users.get(0));
+
+        ReconciliationReport report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(2, report.correctedBooks());
+        assertEquals(0, report.failedChunks());
+        assertTrue(report.chunks() >= 3);
+        books.forEach(this::assertMatchesRecompute);
+        assertEquals(untouchedVersion, version(untouched));
+        BookSnapshot cached = bookService.findById(fixedByHand).orElseThrow();
+        assertEquals(3L, cached.reviewCount());
+        assertEquals(bookRepository.findById(fixedByHand).orElseThrow().getStarCounts(), cached.starCounts());
+
+        assertEquals(0, reconciler.reconcile().orElseThrow().correctedBooks());
+    }
+
+    private long version(Long bookId) {
+        return bookRepository.findById(bookId).orElseThrow().getVersion();
+    }
+
+    private void assertMatchesRecompute(Long bookId) {
+        List<Double> ratings = jdbcTemplate.queryForList("SELECT rating FROM reviews WHERE book_id = ?", Double.class,
+                bookId);
+        List<Long> starCounts = new ArrayList<>();
+        for (int star = 1; star <= 5; star++) {
+            double rating = star;
+            starCounts.add(ratings.stream().filter(r -> r == rating).count());
+        }
+        double sum = ratings.stream().mapToDouble(Double::doubleValue).sum();
+        Book stored = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(sum, stored.getRatingSum(), 1e-9);
+        assertEquals((long) ratings.size(), stored.getReviewCount());
+        assertEquals(Math.round(sum / ratings.size() * 10) / 10.0, stored.getAvgRating());
+        assertEquals(starCounts, stored.getStarCounts());
+    }
+}
@@ -2,13 +2,16 @@ package com.bookreview.service;
 
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.security.authentication.TestingAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,12 +19,27 @@ import static org.mockito.Mockito.*;
 
 class AuthServiceTest {
     private UserRepository userRepository;
+    private EmailService emailService;
     private AuthService authService;
 
     @BeforeEach
     void setup() {
         userRepository = Mockito.mock(UserRepository.class);
-        authService = new AuthService(userRepository);
+        emailService = Mockito.mock(EmailService.class);
+        authService = new AuthService(userRepository, emailService);
+    }
+
+    @Test
+    void register_savesUserAndQueuesWelcomeEmail() {
+        User user = new User();
+        user.setEmail("new@example.com");
+        user.setName("New Reader");
+        when(userRepository.save(user)).thenReturn(user);
+
+        assertSame(user, authService.register(user));
+
+        verify(userRepository).save(user);
+        verify(emailService).queueSignupEmail("new@example.com", "New Reader");
     }
 
     @Test
@@ -54,6 +72,17 @@ class AuthServiceTest {
         assertEquals(7L, id);
     }
 
+    @Test
+    void extractUserId_withAuthenticatedUserPrincipal_usesIdWithoutLookup() {
+        AuthenticatedUser principal = new AuthenticatedUser(42L, "alice@example.com", null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER")), 0L);
+        Authentication auth = new TestingAuthenticationToken(principal, null, "ROLE_USER");
+        auth.setAuthenticated(true);
+
+        assertEquals(42L, authService.extractUserId(auth));
+        verifyNoInteractions(userRepository);
+    }
+
     @Test
     void extractUserId_notAuthenticated_throws() {
         Authentication auth = new TestingAuthenticationToken("x", null);
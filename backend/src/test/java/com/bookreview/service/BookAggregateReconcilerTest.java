@@ -0,0 +1,126 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ReconciliationReport;
+import com.bookreview.repository.BookRatingWriter;
+import com.bookreview.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookAggregateReconcilerTest {
+    private static final List<Long> STARS = List.of(0L, 0L, 1L, 1L, 0L);
+
+    private BookRepository bookRepository;
+    private BookRatingWriter ratingWriter;
+    private BookSuggestionIndex suggestionIndex;
+    private BookVersionRegistry versionRegistry;
+    private BookCache bookCache;
+    private BookAggregateReconciler reconciler;
+
+    @BeforeEach
+    void setup() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        ratingWriter = Mockito.mock(BookRatingWriter.class);
+        suggestionIndex = Mockito.mock(BookSuggestionIndex.class);
+        versionRegistry = Mockito.mock(BookVersionRegistry.class);
+        bookCache = Mockito.mock(BookCache.class);
+        reconciler = new BookAggregateReconciler(bookRepository, ratingWriter, suggestionIndex, versionRegistry,
+                bookCache, Mockito.mock(PlatformTransactionManager.class));
+        setField(reconciler, "chunkSize", 10);
+        doAnswer(inv -> Optional.of(inv.<Supplier<?>>getArgument(0).get())).when(ratingWriter).underReconcileLock(any());
+    }
+
+    private static void setField(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void reconcile_checksEveryChunk_andPublishesOnlyTheCorrectedBooks() {
+        when(bookRepository.findMaxId()).thenReturn(25L);
+        when(ratingWriter.reconcile(anyLong(), anyLong())).thenReturn(Map.of());
+        when(ratingWriter.reconcile(11L, 21L))
+                .thenReturn(Map.of(12L, new BookRatingWriter.Aggregates(7.0, 2L, 3.5, STARS, 9L)));
+
+        ReconciliationReport report = reconciler.reconcile().orElseThrow();
+
+        verify(ratingWriter).reconcile(1L, 11L);
+        verify(ratingWriter).reconcile(11L, 21L);
+        verify(ratingWriter).reconcile(21L, 31L);
+        assertEquals(3, report.chunks());
+        assertEquals(0, report.failedChunks());
+        assertEquals(1, report.correctedBooks());
+        verify(suggestionIndex).putRatings(12L, 3.5, 2L);
+        verify(versionRegistry).record(12L, 9L);
+        verify(bookCache).putRatings(12L, 3.5, 2L, STARS, 9L);
+        verifyNoMoreInteractions(suggestionIndex, versionRegistry, bookCache);
+    }
+
+    @Test
+    void reconcile_failedChunk_isReported_andTheOthersKept() {
+        when(bookRepository.findMaxId()).thenReturn(20L);
+        when(ratingWriter.reconcile(1L, 11L)).thenThrow(new RuntimeException("lock timeout"));
+        when(ratingWriter.reconcile(11L, 21L))
+                .thenReturn(Map.of(15L, new BookRatingWriter.Aggregates(0.0, 0L, null, STARS, 4L)));
+
+        ReconciliationReport report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(2, report.chunks());
+        assertEquals(1, report.failedChunks());
+        assertEquals(1, report.correctedBooks());
+        verify(versionRegistry).record(15L, 4L);
+    }
+
+    @Test
+    void reconcile_emptyCatalog_hasNothingToCheck() {
+        when(bookRepository.findMaxId()).thenReturn(null);
+
+        ReconciliationReport report = reconciler.reconcile().orElseThrow();
+
+        assertEquals(0, report.chunks());
+        assertEquals(0, report.correctedBooks());
+        verify(ratingWriter, never()).reconcile(anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcile_lockHeldByAnotherNode_skips() {
+        doReturn(Optional.empty()).when(ratingWriter).underReconcileLock(any());
+
+        assertTrue(reconciler.reconcile().isEmpty());
+        verifyNoInteractions(bookRepository);
+        verify(ratingWriter, never()).reconcile(anyLong(), anyLong());
+    }
+
+    @Test
+    void reconcile_alreadyRunningOnThisNode_skips() {
+        when(bookRepository.findMaxId()).thenAnswer(inv -> {
+            assertTrue(reconciler.reconcile().isEmpty());
+            return null;
+        });
+
+        assertTrue(reconciler.reconcile().isPresent());
+        verify(ratingWriter, times(1)).underReconcileLock(any());
+    }
+
+    @Test
+    void scheduledReconcile_neverThrows() {
+        doThrow(new RuntimeException("db down")).when(ratingWriter).underReconcileLock(any());
+
+        assertDoesNotThrow(() -> reconciler.scheduledReconcile());
+    }
+}
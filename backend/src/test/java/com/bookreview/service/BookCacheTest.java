@@ -0,0 +1,121 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.model.Book;
+import com.bookreview.repository.BookRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookCacheTest {
+    private BookRepository bookRepository;
+    private BookVersionRegistry versions;
+    private SimpleMeterRegistry meterRegistry;
+    private BookCache cache;
+
+    @BeforeEach
+    void setup() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        versions = Mockito.mock(BookVersionRegistry.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BookCache(bookRepository, versions, meterRegistry, 2);
+    }
+
+    private static Book book(long id, String title, long version) {
+        Book book = new Book();
+        book.setId(id);
+        book.setTitle(title);
+        book.setAuthor("Author");
+        book.setVersion(version);
+        return book;
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", BookCache.CACHE_NAME).tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    void get_loadsOnce_thenServesFromMemory() {
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1L, "Dune", 0L)));
+
+        assertEquals("Dune", cache.get(1L).orElseThrow().title());
+        assertEquals("Dune", cache.get(1L).orElseThrow().title());
+
+        verify(bookRepository, times(1)).findById(1L);
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    void get_unknownBook_isNotCached() {
+        when(bookRepository.findById(9L)).thenReturn(Optional.empty());
+
+        assertTrue(cache.get(9L).isEmpty());
+        assertTrue(cache.get(9L).isEmpty());
+
+        verify(bookRepository, times(2)).findById(9L);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_writesThrough_butNeverRollsABookBack() {
+        cache.put(BookSnapshot.of(book(1L, "v2", 2L)));
+        cache.put(BookSnapshot.of(book(1L, "v1", 1L)));
+
+        assertEquals("v2", cache.get(1L).orElseThrow().title());
+        verifyNoInteractions(bookRepository);
+    }
+
+    @Test
+    void get_snapshotOlderThanRegistry_isReloaded() {
+        cache.put(BookSnapshot.of(book(1L, "old", 1L)));
+        when(versions.version(1L)).thenReturn(2L);
+        when(bookRepository.findById(1L)).thenReturn(Optional.of(book(1L, "changed elsewhere", 2L)));
+
+        assertEquals("changed elsewhere", cache.get(1L).orElseThrow().title());
+        assertEquals("changed elsewhere", cache.get(1L).orElseThrow().title());
+        verify(bookRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void putImported_updatesCachedSnapshotsOnly() {
+        Book cached = book(1L, "Dune", 3L);
+        cached.setAvgRating(4.5);
+        cache.put(BookSnapshot.of(cached));
+        Book imported = book(1L, "Dune", 0L);
+        imported.setDescription("new blurb");
+
+        cache.putImported(imported);
+        cache.putImported(book(2L, "Not cached", 0L));
+
+        BookSnapshot snapshot = cache.get(1L).orElseThrow();
+        assertEquals("new blurb", snapshot.description());
+        assertEquals(4.5, snapshot.avgRating());
+        assertEquals(4L, snapshot.version());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void putRatings_updatesCachedSnapshotsOnly_andNeverRollsBack() {
+        cache.put(BookSnapshot.of(book(1L, "Dune", 3L)));
+
+        cache.putRatings(1L, 4.5, 2L, List.of(0L, 0L, 0L, 1L, 1L), 4L);
+        cache.putRatings(1L, 1.0, 1L, List.of(1L, 0L, 0L, 0L, 0L), 2L);
+        cache.putRatings(2L, 3.0, 1L, List.of(0L, 0L, 1L, 0L, 0L), 1L);
+
+        BookSnapshot snapshot = cache.get(1L).orElseThrow();
+        assertEquals(4.5, snapshot.avgRating());
+        assertEquals(2L, snapshot.reviewCount());
+        assertEquals(List.of(0L, 0L, 0L, 1L, 1L), snapshot.starCounts());
+        assertEquals(4L, snapshot.version());
+        assertEquals(1, cache.size());
+    }
+}
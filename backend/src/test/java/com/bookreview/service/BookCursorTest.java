@@ -0,0 +1,44 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCursorTest {
+
+    @Test
+    void encodeDecode_roundTripsEveryKeyType() {
+        BookSummary book = new BookSummary(42L, "Dune: Messiah", "Frank Herbert", null, null, 1969, 4.25, 7L);
+
+        for (String property : BookCursor.KEY_TYPES.keySet()) {
+            BookCursor cursor = BookCursor.after(book, property, Sort.Direction.DESC);
+            assertEquals(cursor, BookCursor.decode(cursor.encode()), property);
+        }
+        assertEquals("Dune: Messiah", BookCursor.decode(BookCursor.after(book, "title", Sort.Direction.ASC).encode()).key());
+    }
+
+    @Test
+    void encodeDecode_keepsNullKeys() {
+        BookSummary book = new BookSummary(3L, "Untitled", "Anonymous", null, null, null, null, 0L);
+
+        BookCursor decoded = BookCursor.decode(BookCursor.after(book, "year", Sort.Direction.ASC).encode());
+
+        assertNull(decoded.key());
+        assertEquals(3L, decoded.id());
+        assertEquals(Sort.Direction.ASC, decoded.direction());
+    }
+
+    @Test
+    void decode_rejectsMalformedTokens() {
+        for (String raw : new String[] {"title:a:1", "secret:a:1:=x", "year:x:1:=2000", "year:a:one:=2000", "year:a:1:=soon", "year:a:1:2000"}) {
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> BookCursor.decode(token), raw);
+        }
+        assertThrows(IllegalArgumentException.class, () -> BookCursor.decode("not base64!"));
+    }
+}
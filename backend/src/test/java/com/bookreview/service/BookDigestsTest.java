@@ -0,0 +1,40 @@
+package com.bookreview.service;
+
+import com.bookreview.model.Book;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDigestsTest {
+
+    private static Book book(String description, Integer year) {
+        Book book = new Book();
+        book.setTitle("Dune");
+        book.setAuthor("Frank Herbert");
+        book.setDescription(description);
+        book.setYear(year);
+        return book;
+    }
+
+    @Test
+    void naturalKey_ignoresCaseAndSpacing() {
+        String key = BookDigests.naturalKey("Dune", "Frank Herbert");
+        assertEquals(32, key.length());
+        assertEquals(key, BookDigests.naturalKey("  dune ", "FRANK \t herbert"));
+        assertNotEquals(key, BookDigests.naturalKey("Dune Messiah", "Frank Herbert"));
+        // The separator keeps the boundary between title and author
+        assertNotEquals(BookDigests.naturalKey("a b", "c"), BookDigests.naturalKey("a", "b c"));
+    }
+
+    @Test
+    void contentHash_changesWithAnyImportedColumn() {
+        long hash = BookDigests.contentHash(book("desc", 1965));
+        assertEquals(hash, BookDigests.contentHash(book("desc", 1965)));
+        assertNotEquals(hash, BookDigests.contentHash(book("desc", 1966)));
+        assertNotEquals(hash, BookDigests.contentHash(book("desc", null)));
+        assertNotEquals(hash, BookDigests.contentHash(book("other", 1965)));
+        Book retitled = book("desc", 1965);
+        retitled.setTitle("DUNE");
+        assertNotEquals(hash, BookDigests.contentHash(retitled));
+    }
+}
@@ -0,0 +1,160 @@
+package com.bookreview.service;
+
+import com.bookreview.model.Genre;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.GenreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookGenreIndexTest {
+    private BookRepository bookRepository;
+    private GenreRepository genreRepository;
+    private BookGenreIndex index;
+
+    private static final BookGenreIndex.GenreRef FICTION = new BookGenreIndex.GenreRef(1L, "fiction", "Fiction");
+    private static final BookGenreIndex.GenreRef NON_FICTION = new BookGenreIndex.GenreRef(2L, "non-fiction", "Non-Fiction");
+    private static final BookGenreIndex.GenreRef CLASSICS = new BookGenreIndex.GenreRef(3L, "classics", "Classics");
+
+    @BeforeEach
+    void setup() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        genreRepository = Mockito.mock(GenreRepository.class);
+        index = new BookGenreIndex(bookRepository, genreRepository);
+    }
+
+    private static Genre genre(Long id, String name) {
+        Genre genre = new Genre(name);
+        genre.setId(id);
+        return genre;
+    }
+
+    private static BookRepository.GenreLinkView link(Long bookId, Long genreId) {
+        return new BookRepository.GenreLinkView() {
+            public Long getBookId() { return bookId; }
+            public Long getGenreId() { return genreId; }
+        };
+    }
+
+    private static BookRepository.YearView year(Long bookId, Integer year) {
+        return new BookRepository.YearView() {
+            public Long getBookId() { return bookId; }
+            public Integer getYear() { return year; }
+        };
+    }
+
+    private void loadCatalog() {
+        when(genreRepository.findAll()).thenReturn(List.of(genre(1L, "Fiction"), genre(2L, "Non-Fiction"), genre(3L, "Classics")));
+        when(bookRepository.findAllGenreLinks()).thenReturn(List.of(
+                link(10L, 1L), link(10L, 3L), link(11L, 1L), link(12L, 2L), link(13L, 3L)));
+        when(bookRepository.findAllYears()).thenReturn(List.of(year(10L, 1949), year(11L, 2020), year(12L, 2020)));
+        when(bookRepository.findAllIds()).thenReturn(List.of(10L, 11L, 12L, 13L, 14L));
+        index.rebuild();
+    }
+
+    @Test
+    void match_beforeFirstBuild_isUnavailable() {
+        assertTrue(index.match(List.of("fiction"), false).isEmpty());
+        assertTrue(index.facets(List.of(), false, null).isEmpty());
+    }
+
+    @Test
+    void match_isExactAndSupportsAnyAndAll() {
+        loadCatalog();
+
+        assertEquals(RoaringBitmap.bitmapOf(10, 11), index.match(List.of("fiction"), false).orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(10, 11, 13), index.match(List.of("fiction", "classics"), false).orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(10), index.match(List.of("fiction", "classics"), true).orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(10, 11), index.match(List.of("fiction", "unknown"), false).orElseThrow());
+        assertTrue(index.match(List.of("fiction", "unknown"), true).orElseThrow().isEmpty());
+    }
+
+    @Test
+    void match_returnsCopiesThatCallersMayModify() {
+        loadCatalog();
+
+        index.match(List.of("fiction"), false).orElseThrow().add(99);
+
+        assertEquals(RoaringBitmap.bitmapOf(10, 11), index.match(List.of("fiction"), false).orElseThrow());
+    }
+
+    @Test
+    void facets_countGenresWithinSelectionAndYearsIgnoringYearFilter() {
+        loadCatalog();
+
+        BookGenreIndex.Facets all = index.facets(List.of(), false, null).orElseThrow();
+        assertEquals(5, all.total());
+        assertEquals(List.of("Classics", "Fiction", "Non-Fiction"), List.copyOf(all.genres().keySet()));
+        assertEquals(Map.of("Classics", 2, "Fiction", 2, "Non-Fiction", 1), all.genres());
+        assertEquals(List.of(2020, 1949), List.copyOf(all.years().keySet()));
+        assertEquals(2, all.years().get(2020));
+
+        BookGenreIndex.Facets fiction2020 = index.facets(List.of("fiction"), false, 2020).orElseThrow();
+        assertEquals(1, fiction2020.total());
+        assertEquals(Map.of("Fiction", 1), fiction2020.genres());
+        assertEquals(Map.of(2020, 1, 1949, 1), fiction2020.years());
+    }
+
+    @Test
+    void put_movesBookBetweenYearsAndReplacesGenresOnlyWhenGiven() {
+        loadCatalog();
+
+        index.put(11L, 2021, null);
+        assertEquals(RoaringBitmap.bitmapOf(10, 11), index.match(List.of("fiction"), false).orElseThrow());
+        assertEquals(Map.of(2021, 1, 1949, 1), index.facets(List.of("fiction"), false, null).orElseThrow().years());
+
+        index.put(11L, 2021, List.of(NON_FICTION, new BookGenreIndex.GenreRef(4L, "poetry", "Poetry")));
+        assertEquals(RoaringBitmap.bitmapOf(10), index.match(List.of("fiction"), false).orElseThrow());
+        assertEquals(RoaringBitmap.bitmapOf(11), index.match(List.of("poetry"), false).orElseThrow());
+
+        index.put(20L, null, List.of(FICTION, CLASSICS));
+        assertEquals(RoaringBitmap.bitmapOf(10, 20), index.match(List.of("fiction", "classics"), true).orElseThrow());
+        assertEquals(6, index.facets(List.of(), false, null).orElseThrow().total());
+    }
+
+    @Test
+    void remove_dropsBookFromEveryBitmap() {
+        loadCatalog();
+
+        index.remove(10L);
+
+        assertEquals(RoaringBitmap.bitmapOf(11), index.match(List.of("fiction"), false).orElseThrow());
+        BookGenreIndex.Facets facets = index.facets(List.of(), false, null).orElseThrow();
+        assertEquals(4, facets.total());
+        assertFalse(facets.years().containsKey(1949));
+    }
+
+    @Test
+    void rebuild_replaysUpdatesThatRacedTheLoad() {
+        when(genreRepository.findAll()).thenAnswer(invocation -> {
+            // An import commits while the catalog is being read
+            index.put(30L, 2001, List.of(CLASSICS));
+            return List.of(genre(1L, "Fiction"));
+        });
+        when(bookRepository.findAllGenreLinks()).thenReturn(List.of(link(10L, 1L)));
+        when(bookRepository.findAllYears()).thenReturn(List.of());
+        when(bookRepository.findAllIds()).thenReturn(List.of(10L));
+
+        index.rebuild();
+
+        assertEquals(RoaringBitmap.bitmapOf(30), index.match(List.of("classics"), false).orElseThrow());
+        assertEquals(2, index.facets(List.of(), false, null).orElseThrow().total());
+    }
+
+    @Test
+    void rebuild_failureKeepsPreviousIndex() {
+        loadCatalog();
+        when(genreRepository.findAll()).thenThrow(new RuntimeException("db down"));
+
+        index.rebuild();
+
+        assertEquals(RoaringBitmap.bitmapOf(10, 11), index.match(List.of("fiction"), false).orElseThrow());
+    }
+}
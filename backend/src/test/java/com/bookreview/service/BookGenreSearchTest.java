@@ -0,0 +1,102 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.model.Book;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.GenreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Genre filtering against a real schema: the CSV import populates the join table
+ * and the bitmap index, and both the id-filter and the SQL join paths match genres
+ * exactly.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookGenreSearchTest {
+
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookImportService importService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    GenreRepository genreRepository;
+
+    @BeforeEach
+    void importBooks() throws Exception {
+        String csv = "title,author,description,cover_url,genres,year\n"
+                + "Dune,Frank Herbert,,,\"Fiction, Sci-Fi\",1965\n"
+                + "Sapiens,Yuval Noah Harari,,,Non-Fiction,2011\n"
+                + "Emma,Jane Austen,,,\"fiction ; Classics\",1815\n";
+        String jobId = importService.submit(new MockMultipartFile("file", "books.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))).id();
+        BookImportJobTest.awaitFinished(importService, jobId);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        genreRepository.deleteAll();
+    }
+
+    private static List<String> titles(List<Book> books) {
+        return books.stream().map(Book::getTitle).toList();
+    }
+
+    private static List<String> summaryTitles(List<BookSummary> books) {
+        return books.stream().map(BookSummary::title).toList();
+    }
+
+    @Test
+    void import_createsOneGenreRowPerDistinctName() {
+        assertEquals(4, genreRepository.count());
+    }
+
+    @Test
+    void search_genreIsExactAndSupportsAnyAndAll() {
+        PageRequest byTitle = PageRequest.of(0, 10, Sort.by("title"));
+
+        assertEquals(List.of("Dune", "Emma"), summaryTitles(bookService.search(null, null, "fiction", null, byTitle).getContent()));
+        assertEquals(List.of("Dune", "Emma"), summaryTitles(bookService.search(null, null, "Sci-Fi,Classics", null, byTitle).getContent()));
+        assertEquals(List.of("Emma"), summaryTitles(bookService.search(null, null, "fiction,classics", true, null, byTitle).getContent()));
+        assertEquals(List.of("Sapiens"), summaryTitles(bookService.search(null, null, "non-fiction", null, byTitle).getContent()));
+        assertTrue(bookService.search(null, null, "poetry", null, byTitle).isEmpty());
+    }
+
+    @Test
+    void genrePredicate_sqlJoinPathMatchesExactly() {
+        Specification<Book> any = (root, query, cb) -> cb.and(
+                BookService.buildGenrePredicate(List.of("fiction"), false, root, query, cb).toArray(new jakarta.persistence.criteria.Predicate[0]));
+        Specification<Book> all = (root, query, cb) -> cb.and(
+                BookService.buildGenrePredicate(List.of("fiction", "sci-fi"), true, root, query, cb).toArray(new jakarta.persistence.criteria.Predicate[0]));
+
+        assertEquals(List.of("Dune", "Emma"), titles(bookRepository.findAll(any, Sort.by("title"))));
+        assertEquals(List.of("Dune"), titles(bookRepository.findAll(all, Sort.by("title"))));
+    }
+
+    @Test
+    void facets_reflectImportedBooks() {
+        BookGenreIndex.Facets facets = bookService.facets("fiction", false, null).orElseThrow();
+
+        assertEquals(2, facets.total());
+        assertEquals(2, facets.genres().get("Fiction"));
+        assertEquals(1, facets.genres().get("Classics"));
+        assertNull(facets.genres().get("Non-Fiction"));
+        assertEquals(1, facets.years().get(1815));
+    }
+}
@@ -0,0 +1,173 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.ImportJobStatus;
+import com.bookreview.model.Book;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.GenreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs an import job end to end against the schema: JDBC batches with generated ids,
+ * genre links, row-level failures and the index refresh once the job is done; and a
+ * server-local file split into many chunks for parallel parsers and writers.
+ */
+@SpringBootTest(properties = {
+        "app.books.import.batchSize=2",
+        "app.books.import.localDir=target/book-imports",
+        "app.books.import.chunkBytes=128",
+        "app.books.import.parallelism=3",
+        "app.books.import.writers=2"
+})
+@ActiveProfiles("test")
+class BookImportJobTest {
+
+    @Autowired
+    BookImportService importService;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookSuggestionIndex suggestionIndex;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    GenreRepository genreRepository;
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+        genreRepository.deleteAll();
+    }
+
+    static ImportJobStatus awaitFinished(BookImportService importService, String jobId) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ImportJobStatus status = importService.find(jobId).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        fail("Import job " + jobId + " did not finish");
+        return null;
+    }
+
+    private ImportJobStatus importCsv(String csv) throws Exception {
+        String jobId = importService.submit(new MockMultipartFile("file", "books.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8))).id();
+        return awaitFinished(importService, jobId);
+    }
+
+    @Test
+    void reimport_writesOnlyTheDelta_andNeverDuplicates() throws Exception {
+        String header = "title,author,description,cover_url,genres,year\n";
+        importCsv(header
+                + "Dune,Frank Herbert,desc,,\"Fiction, Sci-Fi\",1965\n"
+                + "Emma,Jane Austen,,,Classics,1815\n"
+                + "Sapiens,Yuval Noah Harari,,,Non-Fiction,2011\n");
+        Long emmaId = bookRepository.findAll(Sort.by("title")).get(1).getId();
+        assertEquals("", bookService.findById(emmaId).orElseThrow().description()); // now cached
+
+        ImportJobStatus status = importCsv(header
+                + "Dune,Frank Herbert,desc,,\"Fiction, Sci-Fi\",1965\n"
+                + "emma,JANE AUSTEN,A new blurb,,\"Classics, Romance\",1815\n"
+                + "Sapiens,Yuval Noah Harari,,,Non-Fiction,2011\n"
+                + "Foundation,Isaac Asimov,,,Sci-Fi,1951\n");
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(2, status.unchanged());
+        assertEquals(1, status.updated());
+        assertEquals(1, status.inserted());
+        List<Book> books = bookRepository.findAll(Sort.by("title"));
+        assertEquals(List.of("Dune", "Foundation", "Sapiens", "emma"), books.stream().map(Book::getTitle).toList());
+        Book emma = books.get(3);
+        assertEquals(emmaId, emma.getId());
+        assertEquals("A new blurb", emma.getDescription());
+        assertEquals("A new blurb", bookService.findById(emmaId).orElseThrow().description());
+        assertEquals(2, bookRepository.findAllGenreLinks().stream().filter(link -> link.getBookId().equals(emmaId)).count());
+        assertEquals(List.of("emma"), bookService.search(null, null, "romance", null,
+                PageRequest.of(0, 10)).map(BookSummary::title).getContent());
+
+        // Re-running the same file is a no-op
+        ImportJobStatus again = importCsv(header + "Foundation,Isaac Asimov,,,Sci-Fi,1951\n");
+        assertEquals(1, again.unchanged());
+        assertEquals(0, again.inserted() + again.updated());
+        assertEquals(4, bookRepository.count());
+    }
+
+    @Test
+    void localImport_writesChunksConcurrently_withoutLosingRows() throws Exception {
+        Path dir = Files.createDirectories(Path.of("target/book-imports"));
+        StringBuilder csv = new StringBuilder("title,author,description,cover_url,genres,year\n");
+        for (int i = 0; i < 60; i++) {
+            csv.append("Book ").append(i).append(",Author ").append(i % 5)
+               .append(",\"Line one\nline two\",,\"Fiction, Genre ").append(i % 3).append("\",2000\n");
+        }
+        Files.writeString(dir.resolve("catalog.csv"), csv.toString(), StandardCharsets.UTF_8);
+
+        ImportJobStatus status = awaitFinished(importService, importService.submitLocal("catalog.csv").id());
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state(), status.error());
+        assertEquals(60, status.rowsRead());
+        assertEquals(60, status.inserted());
+        assertNotNull(status.rowsPerSecondPerCore());
+        assertEquals(60, bookRepository.count());
+        assertEquals(4, genreRepository.count());
+        assertEquals(120, bookRepository.findAllGenreLinks().size());
+        assertEquals("Line one\nline two", bookRepository.findAll().get(0).getDescription());
+        assertEquals(60, suggestionIndex.size());
+
+        ImportJobStatus again = awaitFinished(importService, importService.submitLocal("catalog.csv").id());
+        assertEquals(60, again.unchanged());
+        assertEquals(60, bookRepository.count());
+    }
+
+    @Test
+    void import_insertsBatchesAndLinksGenres() throws Exception {
+        String csv = "title,author,description,cover_url,genres,year\n"
+                + "Dune,Frank Herbert,desc,,\"Fiction, Sci-Fi\",1965\n"
+                + ",Nobody,,,,\n"
+                + "Emma,Jane Austen,,,Classics,1815\n"
+                + "X".repeat(300) + ",Too Long,,,Fiction,2000\n"
+                + "Sapiens,Yuval Noah Harari,,,Non-Fiction,\n"
+                + "Foundation,Isaac Asimov,,,sci-fi,1951\n";
+
+        String jobId = importService.submit(new MockMultipartFile("file", "books.csv", "text/csv",
+                csv.getBytes(StandardCharsets.UTF_8))).id();
+        ImportJobStatus status = awaitFinished(importService, jobId);
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(6, status.rowsRead());
+        assertEquals(4, status.inserted());
+        assertEquals(1, status.skipped());
+        assertEquals(1, status.failed());
+
+        List<Book> books = bookRepository.findAll(Sort.by("title"));
+        assertEquals(List.of("Dune", "Emma", "Foundation", "Sapiens"), books.stream().map(Book::getTitle).toList());
+        Long duneId = books.get(0).getId();
+        assertEquals(2, bookRepository.findAllGenreLinks().stream().filter(link -> link.getBookId().equals(duneId)).count());
+        assertEquals(5, bookRepository.findAllGenreLinks().size());
+        assertEquals(0L, books.get(0).getReviewCount());
+        assertNull(books.get(3).getYear());
+        assertEquals(4, genreRepository.count());
+
+        // Indexes were rebuilt after the JDBC writes
+        assertEquals(List.of("Foundation"), suggestionIndex.suggest("asim", 10).stream()
+                .map(BookSuggestionIndex.Suggestion::title).toList());
+        assertEquals(List.of("Dune", "Foundation"), bookService.search(null, null, "sci-fi", null,
+                PageRequest.of(0, 10, Sort.by("title"))).map(BookSummary::title).getContent());
+    }
+}
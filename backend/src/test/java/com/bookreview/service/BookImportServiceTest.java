@@ -0,0 +1,341 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ImportJobStatus;
+import com.bookreview.model.Book;
+import com.bookreview.model.Genre;
+import com.bookreview.repository.BookBatchWriter;
+import com.bookreview.repository.GenreRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookImportServiceTest {
+    private BookBatchWriter batchWriter;
+    private GenreRepository genreRepository;
+    private BookSuggestionIndex suggestionIndex;
+    private BookGenreIndex genreIndex;
+    private BookVersionRegistry versionRegistry;
+    private BookCache bookCache;
+    private List<List<Book>> batches;
+    private Map<String, BookBatchWriter.Digest> stored;
+    // The genres table: saving a slug that exists fails like the unique constraint
+    private Map<String, Genre> genreTable;
+
+    @BeforeEach
+    void setup() {
+        batchWriter = Mockito.mock(BookBatchWriter.class);
+        genreRepository = Mockito.mock(GenreRepository.class);
+        suggestionIndex = Mockito.mock(BookSuggestionIndex.class);
+        genreIndex = Mockito.mock(BookGenreIndex.class);
+        versionRegistry = Mockito.mock(BookVersionRegistry.class);
+        bookCache = Mockito.mock(BookCache.class);
+        batches = new ArrayList<>();
+        stored = new HashMap<>();
+        genreTable = new ConcurrentHashMap<>();
+        when(genreRepository.findBySlug(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(genreTable.get(invocation.<String>getArgument(0))));
+        when(genreRepository.save(any(Genre.class))).thenAnswer(invocation -> {
+            Genre genre = invocation.getArgument(0);
+            if (genreTable.putIfAbsent(genre.getSlug(), genre) != null) {
+                throw new DataIntegrityViolationException("uk_genres_slug");
+            }
+            return genre;
+        });
+        when(batchWriter.loadDigests()).thenReturn(stored);
+        doAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            books.forEach(b -> b.setId(idFor(b)));
+            return batches.add(List.copyOf(books));
+        }).when(batchWriter).upsert(anyList());
+    }
+
+    // Existing rows keep their id, new ones get the next one
+    private Long idFor(Book book) {
+        return book.getId() != null ? book.getId() : 100L + batches.stream().mapToLong(List::size).sum();
+    }
+
+    private BookImportService service(Executor executor, int batchSize) {
+        BookImportService service = new BookImportService(batchWriter, genreRepository, suggestionIndex, genreIndex,
+                versionRegistry, bookCache, Mockito.mock(PlatformTransactionManager.class), executor, 60);
+        setField(service, "batchSize", batchSize);
+        return service;
+    }
+
+    private static void setField(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private BookImportService localService(Path dir) {
+        BookImportService service = service(Runnable::run, 3);
+        setField(service, "localDir", dir.toString());
+        setField(service, "parallelism", 3);
+        setField(service, "writers", 2);
+        setField(service, "chunkBytes", 64L);
+        return service;
+    }
+
+    private static MockMultipartFile csv(String content) {
+        return new MockMultipartFile("file", "books.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void import_writesValidRowsInBatches_andCountsSkipped() throws Exception {
+        BookImportService service = service(Runnable::run, 2);
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,desc,,Sci-Fi,1965\n" +
+                     ",No Author,desc,,Genre,2000\n" +
+                     "Foundation,Isaac Asimov,desc,,Sci-Fi,notayear\n" +
+                     "Emma,Jane Austen,desc,,Classics,1815\n";
+
+        ImportJobStatus status = service.find(service.submit(csv(csv)).id()).orElseThrow();
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(4, status.rowsRead());
+        assertEquals(3, status.inserted());
+        assertEquals(1, status.skipped());
+        assertEquals(0, status.failed());
+        assertNotNull(status.finishedAt());
+        assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+        assertNull(batches.get(0).get(1).getYear());
+        verify(suggestionIndex).rebuild();
+        verify(genreIndex).rebuild();
+        verify(versionRegistry).reload();
+    }
+
+    @Test
+    void import_linksNormalizedGenres_reusingExistingOnes() throws Exception {
+        Genre existing = new Genre("Classics");
+        existing.setId(7L);
+        when(genreRepository.findBySlug("classics")).thenReturn(Optional.of(existing));
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,desc,,\"Sci-Fi, Classics\",1965\n" +
+                     "Foundation,Isaac Asimov,desc,,sci-fi,1951\n";
+
+        service(Runnable::run, 1000).submit(csv(csv));
+
+        Book dune = batches.get(0).get(0);
+        Book foundation = batches.get(0).get(1);
+        assertEquals(2, dune.getGenreSet().size());
+        assertTrue(dune.getGenreSet().contains(existing));
+        assertEquals("Sci-Fi, Classics", dune.getGenres());
+        // One new genre row, shared by both books
+        verify(genreRepository, times(1)).save(any(Genre.class));
+        assertSame(foundation.getGenreSet().iterator().next(),
+                dune.getGenreSet().stream().filter(g -> g != existing).findFirst().orElseThrow());
+    }
+
+    @Test
+    void import_rejectedBatch_isRetriedRowByRow() throws Exception {
+        doAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            if (books.stream().anyMatch(b -> b.getTitle().equals("Bad"))) {
+                throw new DataIntegrityViolationException("value too long");
+            }
+            books.forEach(b -> b.setId(idFor(b)));
+            batches.add(List.copyOf(books));
+            return null;
+        }).when(batchWriter).upsert(anyList());
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,,,,\n" +
+                     "Bad,Someone,,,,\n" +
+                     "Emma,Jane Austen,,,,\n";
+
+        ImportJobStatus status = service(Runnable::run, 10).submit(csv(csv));
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(2, status.inserted());
+        assertEquals(1, status.failed());
+        assertEquals(List.of(1, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    void reimport_skipsUnchangedRows_andUpdatesChangedOnesById() throws Exception {
+        Book dune = new Book();
+        dune.setTitle("Dune");
+        dune.setAuthor("Frank Herbert");
+        dune.setDescription("desc");
+        dune.setGenres("Sci-Fi");
+        dune.setYear(1965);
+        stored.put(BookDigests.naturalKey("Dune", "Frank Herbert"), new BookBatchWriter.Digest(1L, BookDigests.contentHash(dune)));
+        stored.put(BookDigests.naturalKey("Emma", "Jane Austen"), new BookBatchWriter.Digest(2L, 42L));
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,desc,,Sci-Fi,1965\n" +
+                     "emma ,JANE  austen,new blurb,,Classics,1815\n" +
+                     "Foundation,Isaac Asimov,desc,,Sci-Fi,1951\n";
+
+        ImportJobStatus status = service(Runnable::run, 10).submit(csv(csv));
+
+        assertEquals(1, status.unchanged());
+        assertEquals(1, status.updated());
+        assertEquals(1, status.inserted());
+        List<Book> written = batches.get(0);
+        assertEquals(List.of("emma", "Foundation"), written.stream().map(Book::getTitle).toList());
+        assertEquals(2L, written.get(0).getId());
+        verify(suggestionIndex).rebuild();
+    }
+
+    @Test
+    void import_repeatedBookInOneFile_writesFirstThenUpdatesIt() throws Exception {
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,first,,,\n" +
+                     "Dune,Frank Herbert,first,,,\n" +
+                     "DUNE,Frank Herbert,second,,,\n";
+
+        ImportJobStatus status = service(Runnable::run, 10).submit(csv(csv));
+
+        assertEquals(1, status.inserted());
+        assertEquals(1, status.unchanged());
+        assertEquals(1, status.updated());
+        assertEquals(2, batches.size());
+        assertEquals(batches.get(0).get(0).getId(), batches.get(1).get(0).getId());
+    }
+
+    @Test
+    void import_emptyFile_completesWithoutRebuildingIndexes() throws Exception {
+        ImportJobStatus status = service(Runnable::run, 10).submit(csv("title,author,description,cover_url,genres,year\n"));
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(0, status.rowsRead());
+        verify(batchWriter, never()).upsert(anyList());
+        verifyNoInteractions(suggestionIndex, genreIndex);
+    }
+
+    @Test
+    void import_malformedCsv_failsJob() throws Exception {
+        String invalidCsv = "id,name,age\n"
+                + "1,John Doe,30\n"
+                + "2,Jane Smith,\"twenty-five\n"
+                + "3,Bob,40,extra-field\n"
+                + ",MissingId,22\n";
+
+        ImportJobStatus status = service(Runnable::run, 10).submit(csv(invalidCsv));
+
+        assertEquals(ImportJobStatus.State.FAILED, status.state());
+        assertNotNull(status.error());
+        verify(batchWriter, never()).upsert(anyList());
+    }
+
+    @Test
+    void submit_queuedUntilExecutorRuns() throws Exception {
+        List<Runnable> queued = new ArrayList<>();
+        BookImportService service = service(queued::add, 10);
+
+        ImportJobStatus status = service.submit(csv("title,author\nDune,Frank Herbert\n"));
+        assertEquals(ImportJobStatus.State.QUEUED, status.state());
+
+        queued.get(0).run();
+        assertEquals(1, service.find(status.id()).orElseThrow().inserted());
+    }
+
+    @Test
+    void submit_rejectedByExecutor_forgetsJob() {
+        BookImportService service = service(task -> { throw new RejectedExecutionException(); }, 10);
+
+        assertThrows(RejectedExecutionException.class, () -> service.submit(csv("title,author\n")));
+        verifyNoInteractions(batchWriter);
+    }
+
+    @Test
+    void localImport_parsesChunksInParallel_andWritesEveryRowOnce(@TempDir Path dir) throws Exception {
+        StringBuilder csv = new StringBuilder("title,author,description,cover_url,genres,year\n");
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            expected.add("Book " + i);
+            csv.append("Book ").append(i).append(",Author ").append(i % 7)
+               .append(",\"Multi-line\nblurb, with \"\"quotes\"\"\",,Fiction,").append(1900 + i).append('\n');
+        }
+        csv.append(",Missing Title,,,,\n");
+        Files.writeString(dir.resolve("catalog.csv"), csv.toString(), StandardCharsets.UTF_8);
+        doAnswer(invocation -> {
+            List<Book> books = invocation.getArgument(0);
+            synchronized (batches) {
+                books.forEach(b -> b.setId(idFor(b)));
+                batches.add(List.copyOf(books));
+            }
+            return null;
+        }).when(batchWriter).upsert(anyList());
+
+        ImportJobStatus status = localService(dir).submitLocal("catalog.csv");
+
+        assertEquals(ImportJobStatus.State.COMPLETED, status.state());
+        assertEquals(201, status.rowsRead());
+        assertEquals(200, status.inserted());
+        assertEquals(1, status.skipped());
+        assertNotNull(status.rowsPerSecondPerCore());
+        List<Book> written = batches.stream().flatMap(List::stream).toList();
+        assertEquals(expected, written.stream().map(Book::getTitle).collect(Collectors.toSet()));
+        assertEquals(200, written.size());
+        assertTrue(written.get(0).getDescription().contains("\"quotes\""));
+        assertTrue(batches.stream().allMatch(b -> b.size() <= 3));
+        // Writers racing to create the genre end up linking the one committed row
+        assertEquals(1, genreTable.size());
+        assertEquals(Set.of(genreTable.get("fiction")),
+                written.stream().flatMap(b -> b.getGenreSet().stream()).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void import_genreCreatedMeanwhileByAnotherWriter_isFoundOnRetry() throws Exception {
+        Genre committedElsewhere = new Genre("Fiction");
+        committedElsewhere.setId(9L);
+        // Not visible on the first lookup; the insert then hits the slug constraint
+        when(genreRepository.findBySlug("fiction"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(committedElsewhere));
+        genreTable.put("fiction", committedElsewhere);
+        String csv = "title,author,description,cover_url,genres,year\n" +
+                     "Dune,Frank Herbert,desc,,Fiction,1965\n";
+
+        BookImportService service = service(Runnable::run, 1000);
+        ImportJobStatus status = service.find(service.submit(csv(csv)).id()).orElseThrow();
+
+        assertEquals(1, status.inserted());
+        assertEquals(0, status.failed());
+        assertEquals(Set.of(committedElsewhere), batches.get(0).get(0).getGenreSet());
+    }
+
+    @Test
+    void localImport_rejectsPathsOutsideTheDirectory(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("catalog.csv"), "title,author\n");
+        BookImportService service = localService(dir.resolve("imports"));
+        Files.createDirectory(dir.resolve("imports"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.submitLocal("../catalog.csv"));
+        assertThrows(IllegalArgumentException.class, () -> service.submitLocal("missing.csv"));
+        assertThrows(IllegalArgumentException.class, () -> service.submitLocal(" "));
+        assertThrows(IllegalArgumentException.class, () -> service(Runnable::run, 10).submitLocal("catalog.csv"));
+    }
+
+    @Test
+    void find_unknownJob_isEmpty() {
+        assertTrue(service(Runnable::run, 10).find("missing").isEmpty());
+    }
+}
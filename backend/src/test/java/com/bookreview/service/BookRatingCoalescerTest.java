@@ -0,0 +1,105 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRatingWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookRatingCoalescerTest {
+    private static final List<Long> STARS = List.of(0L, 1L, 3L, 9L, 7L);
+
+    private BookRatingWriter ratingWriter;
+    private BookSuggestionIndex suggestionIndex;
+    private BookVersionRegistry versionRegistry;
+    private BookCache bookCache;
+    private BookRatingCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        ratingWriter = Mockito.mock(BookRatingWriter.class);
+        suggestionIndex = Mockito.mock(BookSuggestionIndex.class);
+        versionRegistry = Mockito.mock(BookVersionRegistry.class);
+        bookCache = Mockito.mock(BookCache.class);
+        coalescer = coalescer("coalesced");
+    }
+
+    private BookRatingCoalescer coalescer(String mode) {
+        return new BookRatingCoalescer(ratingWriter, suggestionIndex, versionRegistry, bookCache,
+                Mockito.mock(PlatformTransactionManager.class), mode, 4);
+    }
+
+    private static void setField(Object target, String field, Object value) {
+        try {
+            Field f = target.getClass().getDeclaredField(field);
+            f.setAccessible(true);
+            f.set(target, value);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void mode_coalescesOnlyWhenAskedTo() {
+        assertTrue(coalescer.isCoalescing());
+        assertFalse(coalescer("immediate").isCoalescing());
+        assertFalse(coalescer("").isCoalescing());
+    }
+
+    @Test
+    void flush_appliesEveryRecordedReview_fromAllStripes_andPublishes() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (long review = 1; review <= 40; review++) {
+            long reviewId = review;
+            pool.execute(() -> coalescer.record(reviewId % 2 == 0 ? 2L : 1L, reviewId));
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(40, coalescer.pendingCount());
+        coalescer.record(1L, 1L); // twice in one window, from another stripe: applied once
+        when(ratingWriter.applyPending(anyList()))
+                .thenReturn(Map.of(1L, new BookRatingWriter.Aggregates(80.0, 20L, 4.0, STARS, 3L)));
+
+        coalescer.flush();
+
+        verify(ratingWriter).applyPending(argThat(ids -> ids.size() == 40 && ids.stream().distinct().count() == 40));
+        verify(suggestionIndex).putRatings(1L, 4.0, 20L);
+        verify(versionRegistry).record(1L, 3L);
+        verify(bookCache).putRatings(1L, 4.0, 20L, STARS, 3L);
+        assertEquals(0, coalescer.pendingCount());
+
+        coalescer.flush();
+        verifyNoMoreInteractions(ratingWriter);
+    }
+
+    @Test
+    void flush_failure_isLeftToTheRecoverySweep() {
+        coalescer.record(1L, 7L);
+        when(ratingWriter.applyPending(List.of(7L))).thenThrow(new RuntimeException("db down"));
+
+        assertDoesNotThrow(() -> coalescer.flush());
+        verifyNoInteractions(versionRegistry, bookCache);
+    }
+
+    @Test
+    void recover_appliesPendingReviewsInBatches_untilNoneAreLeft() {
+        setField(coalescer, "batchSize", 2);
+        when(ratingWriter.findPendingReviewIds(2)).thenReturn(List.of(1L, 2L)).thenReturn(List.of(3L));
+
+        coalescer.recover();
+
+        verify(ratingWriter).applyPending(List.of(1L, 2L));
+        verify(ratingWriter).applyPending(List.of(3L));
+        verify(ratingWriter, times(2)).findPendingReviewIds(2);
+    }
+}
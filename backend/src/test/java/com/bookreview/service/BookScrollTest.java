@@ -0,0 +1,107 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSummary;
+import com.bookreview.dto.CursorPage;
+import com.bookreview.model.Book;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Walks whole result sets page by page through the keyset cursor and checks that
+ * the concatenated pages equal the single sorted query, including NULL sort keys
+ * and ties.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BookScrollTest {
+
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookRepository bookRepository;
+
+    @BeforeEach
+    void createBooks() {
+        Integer[] years = {1965, null, 1951, 1965, null, 2001, 1951, 1965, 1990, null, 2001};
+        Double[] ratings = {4.5, null, 4.0, 4.5, 3.0, null, 4.0, 2.5, null, 4.5, 3.0};
+        for (int i = 0; i < years.length; i++) {
+            Book book = new Book();
+            book.setTitle(i % 3 == 0 ? "Same Title" : "Book " + (char) ('K' - i));
+            book.setAuthor("Author " + (i % 4));
+            book.setYear(years[i]);
+            book.setAvgRating(ratings[i]);
+            book.setGenres(i % 2 == 0 ? "Fiction" : "History");
+            bookRepository.save(book);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        bookRepository.deleteAll();
+    }
+
+    private List<Long> scrollAll(String genre, Sort sort, int size) {
+        List<Long> ids = new ArrayList<>();
+        String after = "";
+        int pages = 0;
+        do {
+            CursorPage<BookSummary> page = bookService.scroll(null, null, genre, false, null, after, size, sort, false);
+            page.items().forEach(book -> ids.add(book.id()));
+            after = page.nextCursor();
+            assertTrue(++pages < 50, "cursor did not advance");
+        } while (after != null);
+        return ids;
+    }
+
+    private List<Long> sortedIds(Sort.Order order) {
+        Sort sort = "id".equals(order.getProperty()) ? Sort.by(order) : Sort.by(order, new Sort.Order(order.getDirection(), "id"));
+        return bookRepository.findAll(sort).stream().map(Book::getId).toList();
+    }
+
+    @Test
+    void scroll_visitsEveryRowOnceInSortOrder() {
+        for (String property : List.of("title", "author", "year", "avgRating", "reviewCount", "id")) {
+            for (Sort.Direction direction : Sort.Direction.values()) {
+                Sort.Order order = new Sort.Order(direction, property);
+                assertEquals(sortedIds(order), scrollAll(null, Sort.by(order), 3), order.toString());
+            }
+        }
+    }
+
+    @Test
+    void scroll_unsupportedSortFallsBackToTitle() {
+        assertEquals(sortedIds(Sort.Order.asc("title")), scrollAll(null, Sort.by("description"), 4));
+    }
+
+    @Test
+    void scroll_issuesNoCountQuery() {
+        SqlStatementCounter.clear();
+
+        CursorPage<BookSummary> page = bookService.scroll(null, null, null, false, null, "", 5, Sort.by("title"), false);
+
+        assertEquals(5, page.items().size());
+        assertNotNull(page.nextCursor());
+        assertNull(page.estimatedTotal());
+        assertFalse(SqlStatementCounter.statements().stream().anyMatch(sql -> sql.contains("count(")));
+    }
+
+    @Test
+    void scroll_cursorForAnotherSortIsRejected() {
+        String cursor = bookService.scroll(null, null, null, false, null, "", 2, Sort.by("title"), false).nextCursor();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> bookService.scroll(null, null, null, false, null, cursor, 2, Sort.by("year"), false));
+    }
+}
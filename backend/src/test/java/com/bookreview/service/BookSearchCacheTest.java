@@ -0,0 +1,112 @@
+package com.bookreview.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookSearchCacheTest {
+    private BookVersionRegistry versions;
+    private SimpleMeterRegistry meterRegistry;
+    private BookSearchCache cache;
+
+    @BeforeEach
+    void setup() {
+        versions = Mockito.mock(BookVersionRegistry.class);
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new BookSearchCache(versions, meterRegistry, 100, 60);
+    }
+
+    private static BookSearchCache.Query query(String title, List<String> genres) {
+        return BookSearchCache.Query.of("like", title, null, genres, false, null, PageRequest.of(0, 20, Sort.by("title")));
+    }
+
+    private static BookSearchCache.Result result(Long... ids) {
+        return new BookSearchCache.Result(List.of(ids), ids.length);
+    }
+
+    @Test
+    void query_normalizesCaseGenreOrderAndBlanks() {
+        assertEquals(query("Dune", List.of("sci-fi", "classics")), query("dUNE", List.of("classics", "sci-fi")));
+        assertEquals(query(null, List.of()), query("  ", List.of()));
+        assertNotEquals(query("dune", List.of()), query("dune ", List.of()));
+        assertFalse(BookSearchCache.Query.of("like", null, null, List.of(), true, null, PageRequest.of(0, 5)).matchAllGenres());
+    }
+
+    @Test
+    void get_sameQuery_runsTheLoaderOnce() {
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(query("Dune", List.of()), () -> { loads.incrementAndGet(); return result(1L); });
+        BookSearchCache.Result again = cache.get(query("dune", List.of()), () -> { loads.incrementAndGet(); return result(2L); });
+
+        assertEquals(List.of(1L), again.ids());
+        assertEquals(1, loads.get());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", BookSearchCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void get_afterACatalogChange_runsTheQueryAgain() {
+        cache.get(query("Dune", List.of()), () -> result(1L));
+        when(versions.catalogVersion()).thenReturn(1L);
+
+        assertEquals(List.of(2L), cache.get(query("Dune", List.of()), () -> result(2L)).ids());
+    }
+
+    @Test
+    void get_failedQuery_isNotCached() {
+        assertThrows(IllegalStateException.class, () -> cache.get(query("Dune", List.of()), () -> {
+            throw new IllegalStateException("db down");
+        }));
+
+        assertEquals(List.of(3L), cache.get(query("Dune", List.of()), () -> result(3L)).ids());
+    }
+
+    @Test
+    void get_concurrentMisses_shareOneQuery() throws Exception {
+        int callers = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<BookSearchCache.Result>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(pool.submit(() -> cache.get(query("Dune", List.of()), () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return result(7L);
+                })));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            Thread.sleep(100); // let the other callers reach the shared entry
+            release.countDown();
+            for (Future<BookSearchCache.Result> result : results) {
+                assertEquals(List.of(7L), result.get(5, TimeUnit.SECONDS).ids());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+}
@@ -35,7 +35,7 @@ class BookSearchPredicateTest {
         when(cb.like(lowerTitle, "%dune%")).thenReturn(titlePredicate);
 
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(title, null, null, null, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate(title, null, null, root, cb);
 
         // Then
         assertEquals(1, predicates.size());
@@ -70,7 +70,7 @@ class BookSearchPredicateTest {
         when(cb.like(lowerAuthor, "%herbert%")).thenReturn(authorPredicate);
 
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(null, author, null, null, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate(null, author, null, root, cb);
 
         // Then
         assertEquals(1, predicates.size());
@@ -83,41 +83,6 @@ class BookSearchPredicateTest {
         verifyNoMoreInteractions(root, cb);
     }
 
-    @Test
-    void buildSearchPredicate_withGenreOnly() {
-        // Given
-        String genre = "Sci-Fi";
-        
-        // Setup mocks
-        Root<Book> root = mock(Root.class);
-        CriteriaBuilder cb = mock(CriteriaBuilder.class);
-        
-        // Mock the expression chain: root.get("genres") -> genresPath
-        Path genresPath = mock(Path.class);
-        when(root.get("genres")).thenReturn(genresPath);
-        
-        // Mock the lower() call
-        Expression<String> lowerGenres = mock(Expression.class);
-        when(cb.lower(genresPath)).thenReturn(lowerGenres);
-        
-        // Mock the like() call
-        Predicate genrePredicate = mock(Predicate.class);
-        when(cb.like(lowerGenres, "%sci-fi%")).thenReturn(genrePredicate);
-
-        // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(null, null, genre, null, root, cb);
-
-        // Then
-        assertEquals(1, predicates.size());
-        assertSame(genrePredicate, predicates.get(0));
-        
-        // Verify the interactions
-        verify(root).get("genres");
-        verify(cb).lower(genresPath);
-        verify(cb).like(lowerGenres, "%sci-fi%");
-        verifyNoMoreInteractions(root, cb);
-    }
-
     @Test
     void buildSearchPredicate_withYearOnly() {
         // Given
@@ -136,7 +101,7 @@ class BookSearchPredicateTest {
         when(cb.equal(yearPath, year)).thenReturn(yearPredicate);
 
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(null, null, null, year, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate(null, null, year, root, cb);
 
         // Then
         assertEquals(1, predicates.size());
@@ -153,7 +118,6 @@ class BookSearchPredicateTest {
         // Given
         String title = "Dune";
         String author = "Herbert";
-        String genre = "Sci-Fi";
         int year = 1965;
         
         // Setup mocks
@@ -170,11 +134,6 @@ class BookSearchPredicateTest {
         Expression<String> lowerAuthor = mock(Expression.class);
         Predicate authorPredicate = mock(Predicate.class);
         
-        // Genre mocks
-        Path genresPath = mock(Path.class);
-        Expression<String> lowerGenres = mock(Expression.class);
-        Predicate genrePredicate = mock(Predicate.class);
-        
         // Year mocks
         Path yearPath = mock(Path.class);
         Predicate yearPredicate = mock(Predicate.class);
@@ -182,45 +141,38 @@ class BookSearchPredicateTest {
         // Setup root.get()
         when(root.get("title")).thenReturn(titlePath);
         when(root.get("author")).thenReturn(authorPath);
-        when(root.get("genres")).thenReturn(genresPath);
         when(root.get("year")).thenReturn(yearPath);
         
         // Setup lower()
         when(cb.lower(titlePath)).thenReturn(lowerTitle);
         when(cb.lower(authorPath)).thenReturn(lowerAuthor);
-        when(cb.lower(genresPath)).thenReturn(lowerGenres);
         
         // Setup like()
         when(cb.like(lowerTitle, "%dune%")).thenReturn(titlePredicate);
         when(cb.like(lowerAuthor, "%herbert%")).thenReturn(authorPredicate);
-        when(cb.like(lowerGenres, "%sci-fi%")).thenReturn(genrePredicate);
         
         // Setup equal()
         when(cb.equal(yearPath, year)).thenReturn(yearPredicate);
 
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(title, author, genre, year, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate(title, author, year, root, cb);
 
         // Then
-        assertEquals(4, predicates.size());
+        assertEquals(3, predicates.size());
         assertTrue(predicates.contains(titlePredicate));
         assertTrue(predicates.contains(authorPredicate));
-        assertTrue(predicates.contains(genrePredicate));
         assertTrue(predicates.contains(yearPredicate));
         
         // Verify all interactions
         verify(root).get("title");
         verify(root).get("author");
-        verify(root).get("genres");
         verify(root).get("year");
         
         verify(cb).lower(titlePath);
         verify(cb).lower(authorPath);
-        verify(cb).lower(genresPath);
         
         verify(cb).like(lowerTitle, "%dune%");
         verify(cb).like(lowerAuthor, "%herbert%");
-        verify(cb).like(lowerGenres, "%sci-fi%");
         verify(cb).equal(yearPath, year);
         
         verifyNoMoreInteractions(root, cb);
@@ -233,7 +185,7 @@ class BookSearchPredicateTest {
         CriteriaBuilder cb = mock(CriteriaBuilder.class);
         
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate("", "", "", null, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate("", "", null, root, cb);
 
         // Then
         assertTrue(predicates.isEmpty());
@@ -249,7 +201,7 @@ class BookSearchPredicateTest {
         CriteriaBuilder cb = mock(CriteriaBuilder.class);
         
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate(null, null, null, null, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate(null, null, null, root, cb);
 
         // Then
         assertTrue(predicates.isEmpty());
@@ -265,7 +217,7 @@ class BookSearchPredicateTest {
         CriteriaBuilder cb = mock(CriteriaBuilder.class);
         
         // When
-        List<Predicate> predicates = BookService.buildSearchPredicate("  ", "\t\n", " ", null, root, cb);
+        List<Predicate> predicates = BookService.buildSearchPredicate("  ", "\t\n", null, root, cb);
 
         // Then
         assertTrue(predicates.isEmpty());
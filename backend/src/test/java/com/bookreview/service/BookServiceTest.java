@@ -1,106 +1,154 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.BookSummary;
 import com.bookreview.model.Book;
 import com.bookreview.repository.BookRepository;
-import org.apache.commons.csv.CSVFormat;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.roaringbitmap.RoaringBitmap;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.web.multipart.MultipartFile;
 
-import java.io.ByteArrayInputStream;
-import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class BookServiceTest {
     private BookRepository bookRepository;
+    private BookGenreIndex genreIndex;
+    private BookCache bookCache;
+    private BookSearchCache searchCache;
     private BookService bookService;
 
     @BeforeEach
     void setup() {
         bookRepository = Mockito.mock(BookRepository.class);
-        bookService = new BookService(bookRepository);
+        genreIndex = Mockito.mock(BookGenreIndex.class);
+        when(genreIndex.match(anyCollection(), anyBoolean())).thenReturn(Optional.empty());
+        bookCache = Mockito.mock(BookCache.class);
+        searchCache = Mockito.mock(BookSearchCache.class);
+        // Every lookup misses unless a test says otherwise
+        when(searchCache.get(any(), any())).thenAnswer(inv -> inv.<Supplier<BookSearchCache.Result>>getArgument(1).get());
+        bookService = new BookService(bookRepository, genreIndex, bookCache, searchCache);
     }
 
     @Test
-    void findById_delegatesToRepo() {
+    void search_fullTextMode_delegatesToRankedSearch() throws Exception {
+        java.lang.reflect.Field mode = BookService.class.getDeclaredField("searchMode");
+        mode.setAccessible(true);
+        mode.set(bookService, "fulltext");
+        Pageable pageable = PageRequest.of(0, 10);
+        Page<BookSummary> page = new PageImpl<>(List.of(BookSummary.of(new Book())));
+        when(bookRepository.fullTextSearch("Dune", null, List.of(), false, null, pageable)).thenReturn(page);
+
+        assertSame(page, bookService.search("Dune", null, null, null, pageable));
+        verify(bookRepository, never()).findSummaries(any(), any(Pageable.class));
+    }
+
+    @Test
+    void search_cachedResult_isHydratedFromTheBookCache_withoutSql() {
+        Book dune = new Book(); dune.setId(2L); dune.setTitle("Dune"); dune.setAvgRating(4.5);
+        Book emma = new Book(); emma.setId(1L); emma.setTitle("Emma");
+        doReturn(new BookSearchCache.Result(List.of(2L, 1L), 42)).when(searchCache).get(any(), any());
+        when(bookCache.getAll(List.of(2L, 1L))).thenReturn(List.of(BookSnapshot.of(dune), BookSnapshot.of(emma)));
+
+        Page<BookSummary> page = bookService.search(" DUNE", null, "Sci-Fi", null, PageRequest.of(0, 2));
+
+        assertEquals(List.of("Dune", "Emma"), page.map(BookSummary::title).getContent());
+        assertEquals(4.5, page.getContent().get(0).avgRating());
+        assertEquals(42, page.getTotalElements());
+        verify(bookRepository, never()).findSummaries(any(), any(Pageable.class));
+        ArgumentCaptor<BookSearchCache.Query> query = ArgumentCaptor.forClass(BookSearchCache.Query.class);
+        verify(searchCache).get(query.capture(), any());
+        assertEquals(" dune", query.getValue().title());
+        assertEquals(List.of("sci-fi"), query.getValue().genreSlugs());
+    }
+
+    @Test
+    void search_miss_returnsTheQueriedPage_andCachesItsIds() {
+        Book dune = new Book(); dune.setId(2L); dune.setTitle("Dune");
+        Page<BookSummary> page = new PageImpl<>(List.of(BookSummary.of(dune)), PageRequest.of(0, 1), 5);
+        when(bookRepository.findSummaries(Mockito.<org.springframework.data.jpa.domain.Specification<Book>>any(), any(Pageable.class)))
+                .thenReturn(page);
+        List<BookSearchCache.Result> cached = new ArrayList<>();
+        doAnswer(inv -> {
+            BookSearchCache.Result result = inv.<Supplier<BookSearchCache.Result>>getArgument(1).get();
+            cached.add(result);
+            return result;
+        }).when(searchCache).get(any(), any());
+
+        assertSame(page, bookService.search(null, null, null, null, PageRequest.of(0, 1)));
+        assertEquals(List.of(new BookSearchCache.Result(List.of(2L), 5)), cached);
+        verifyNoInteractions(bookCache);
+    }
+
+    @Test
+    void findById_readsThroughTheBookCache() {
         Book b = new Book(); b.setId(1L);
-        when(bookRepository.findById(1L)).thenReturn(Optional.of(b));
-        Optional<Book> res = bookService.findById(1L);
+        when(bookCache.get(1L)).thenReturn(Optional.of(BookSnapshot.of(b)));
+        Optional<BookSnapshot> res = bookService.findById(1L);
         assertTrue(res.isPresent());
-        assertEquals(1L, res.get().getId());
-        verify(bookRepository).findById(1L);
+        assertEquals(1L, res.get().id());
+        verify(bookRepository, never()).findById(any());
     }
     
     @Test
     void findById_notFound_returnsEmpty() {
-        when(bookRepository.findById(999L)).thenReturn(Optional.empty());
-        Optional<Book> res = bookService.findById(999L);
+        when(bookCache.get(999L)).thenReturn(Optional.empty());
+        Optional<BookSnapshot> res = bookService.findById(999L);
         assertTrue(res.isEmpty());
-        verify(bookRepository).findById(999L);
+        verify(bookCache).get(999L);
     }
 
     @Test
     void search_buildsSpec_callsRepo() {
-        Page<Book> page = new PageImpl<>(List.of(new Book()));
-        when(bookRepository.findAll(Mockito.<org.springframework.data.jpa.domain.Specification<com.bookreview.model.Book>>any(), any(Pageable.class))).thenReturn(page);
+        Page<BookSummary> page = new PageImpl<>(List.of(BookSummary.of(new Book())));
+        when(bookRepository.findSummaries(Mockito.<org.springframework.data.jpa.domain.Specification<com.bookreview.model.Book>>any(), any(Pageable.class))).thenReturn(page);
         
         // Test with all parameters
-        Page<Book> res = bookService.search("Dune", "Herbert", "Sci-Fi", 1965, PageRequest.of(0, 10));
+        Page<BookSummary> res = bookService.search("Dune", "Herbert", "Sci-Fi", 1965, PageRequest.of(0, 10));
         assertEquals(1, res.getTotalElements());
         
         // Test with null/empty parameters
         res = bookService.search(null, "", null, null, PageRequest.of(0, 10));
         assertEquals(1, res.getTotalElements());
         
-        verify(bookRepository, times(2)).findAll(Mockito.<org.springframework.data.jpa.domain.Specification<com.bookreview.model.Book>>any(), any(Pageable.class));
+        verify(bookRepository, times(2)).findSummaries(Mockito.<org.springframework.data.jpa.domain.Specification<com.bookreview.model.Book>>any(), any(Pageable.class));
     }
 
     @Test
-    void importCsv_parsesAndSavesValidRows_only() throws Exception {
-        String csv = "title,author,description,cover_url,genres,year\n" +
-                     "Dune,Frank Herbert,desc,,Sci-Fi,1965\n" +
-                     ",No Author,desc,,Genre,2000\n" +
-                     "Foundation,Isaac Asimov,desc,,Sci-Fi,notayear\n";
-        MultipartFile file = mock(MultipartFile.class);
-        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
-
-        int imported = bookService.importCsv(file);
-        assertEquals(2, imported); // second row skipped (missing title), third saved with null year
-        verify(bookRepository, times(2)).save(any(Book.class));
+    void search_genreWithNoIndexedBooks_skipsTheDatabase() {
+        when(genreIndex.match(List.of("poetry"), false)).thenReturn(Optional.of(new RoaringBitmap()));
+
+        Page<BookSummary> res = bookService.search(null, null, " Poetry ", null, PageRequest.of(0, 10));
+
+        assertEquals(0, res.getTotalElements());
+        verifyNoInteractions(bookRepository);
     }
-    
+
     @Test
-    void importCsv_emptyFile_returnsZero() throws Exception {
-        String csv = "title,author,description,cover_url,genres,year\n";
-        MultipartFile file = mock(MultipartFile.class);
-        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
-        
-        int imported = bookService.importCsv(file);
-        assertEquals(0, imported);
-        verify(bookRepository, never()).save(any(Book.class));
+    void search_genreSlugsAreNormalizedAndPassedToIndex() {
+        when(genreIndex.match(List.of("science fiction", "classics"), true)).thenReturn(Optional.of(RoaringBitmap.bitmapOf(1, 2)));
+        when(bookRepository.findSummaries(Mockito.<org.springframework.data.jpa.domain.Specification<Book>>any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(BookSummary.of(new Book()))));
+
+        bookService.search(null, null, "Science  Fiction;classics,CLASSICS", true, null, PageRequest.of(0, 10));
+
+        verify(genreIndex).match(List.of("science fiction", "classics"), true);
     }
-    
+
     @Test
-    void importCsv_invalidCsv_throwsException() throws Exception {
-        String invalidCsv = "id,name,age\n"
-                + "1,John Doe,30\n"
-                + "2,Jane Smith,\"twenty-five\n"
-                + "3,Bob,40,extra-field\n"
-                + ",MissingId,22\n";
-        MultipartFile file = mock(MultipartFile.class);
-        when(file.getInputStream()).thenReturn(new ByteArrayInputStream(invalidCsv.getBytes(StandardCharsets.UTF_8)));
-        
-        assertThrows(RuntimeException.class, () -> bookService.importCsv(file));
-        verify(bookRepository, never()).save(any(Book.class));
+    void splitGenres_dropsBlanksAndDuplicates() {
+        assertEquals(List.of("Sci-Fi", "classics"), BookService.splitGenres("Sci-Fi, classics | sci-fi ;; Classics ,"));
+        assertTrue(BookService.splitGenres("  ").isEmpty());
     }
 }
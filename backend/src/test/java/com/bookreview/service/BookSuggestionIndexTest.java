@@ -0,0 +1,135 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookSuggestionIndexTest {
+    private BookRepository bookRepository;
+    private BookSuggestionIndex index;
+
+    @BeforeEach
+    void setup() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        index = new BookSuggestionIndex(bookRepository);
+    }
+
+    private static BookRepository.SuggestionView view(Long id, String title, String author, Double rating, Long count) {
+        return new BookRepository.SuggestionView() {
+            public Long getId() { return id; }
+            public String getTitle() { return title; }
+            public String getAuthor() { return author; }
+            public Double getAvgRating() { return rating; }
+            public Long getReviewCount() { return count; }
+        };
+    }
+
+    private static List<Long> ids(List<BookSuggestionIndex.Suggestion> suggestions) {
+        return suggestions.stream().map(BookSuggestionIndex.Suggestion::id).toList();
+    }
+
+    @Test
+    void rebuild_loadsBooksAndMatchesTitleAndAuthorWordPrefixes() {
+        when(bookRepository.findAllSuggestionViewsBy()).thenReturn(List.of(
+                view(1L, "The Hobbit", "J.R.R. Tolkien", 4.7, 120L),
+                view(2L, "Homage to Catalonia", "George Orwell", 4.1, 30L),
+                view(3L, "Nineteen Eighty-Four", "George Orwell", 4.6, 200L)));
+
+        index.rebuild();
+
+        assertEquals(3, index.size());
+        assertEquals(List.of(1L, 2L), ids(index.suggest("ho", 10)));
+        assertEquals(List.of(3L, 2L), ids(index.suggest("orw", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("tolk", 10)));
+        assertEquals(List.of(3L), ids(index.suggest("eighty", 10)));
+    }
+
+    @Test
+    void suggest_requiresEveryTermAndRanksByReviewsThenRating() {
+        index.put(1L, "Animal Farm", "George Orwell", 4.0, 50L);
+        index.put(2L, "Burmese Days", "George Orwell", 3.9, 50L);
+        index.put(3L, "George's Marvellous Medicine", "Roald Dahl", 4.2, 80L);
+
+        assertEquals(List.of(3L, 1L, 2L), ids(index.suggest("geo", 10)));
+        assertEquals(List.of(1L, 2L), ids(index.suggest("george orw", 10)));
+        assertEquals(List.of(3L), ids(index.suggest("geo", 1)));
+        assertTrue(index.suggest("george tolkien", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_foldsCaseAndAccents() {
+        index.put(1L, "Les Misérables", "Victor Hugo", null, 0L);
+
+        assertEquals(List.of(1L), ids(index.suggest("MISE", 10)));
+        assertEquals(List.of(1L), ids(index.suggest("misé", 10)));
+    }
+
+    @Test
+    void suggest_blankOrNullQueryReturnsNothing() {
+        index.put(1L, "Dune", "Frank Herbert", 4.5, 10L);
+
+        assertTrue(index.suggest(null, 10).isEmpty());
+        assertTrue(index.suggest("  -- ", 10).isEmpty());
+    }
+
+    @Test
+    void put_replacesPreviousWordsAndRemoveDropsBook() {
+        index.put(1L, "Dune", "Frank Herbert", 4.5, 10L);
+        index.put(1L, "Dune Messiah", "Frank Herbert", 4.5, 11L);
+
+        assertEquals(11L, index.suggest("mess", 10).get(0).reviewCount());
+        assertEquals(1, index.suggest("dune", 10).size());
+
+        index.remove(1L);
+
+        assertTrue(index.suggest("dune", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void suggest_shortPrefixReadsRankedPostingsAndFollowsUpdates() {
+        index.put(1L, "Dune", "Frank Herbert", 4.5, 10L);
+        index.put(2L, "Dracula", "Bram Stoker", 4.0, 40L);
+        index.put(3L, "Don Quixote", "Miguel de Cervantes", 4.1, 25L);
+
+        assertEquals(List.of(2L, 3L, 1L), ids(index.suggest("d", 10)));
+        assertEquals(List.of(2L), ids(index.suggest("d", 1)));
+        assertEquals(List.of(1L), ids(index.suggest("du", 10)));
+        assertEquals(List.of(3L), ids(index.suggest("d m", 10)));
+
+        index.put(1L, "Dune", "Frank Herbert", 4.5, 90L);
+        index.remove(2L);
+
+        assertEquals(List.of(1L, 3L), ids(index.suggest("d", 10)));
+        assertTrue(index.suggest("dr", 10).isEmpty());
+    }
+
+    @Test
+    void rebuild_failureKeepsPreviousIndex() {
+        index.put(1L, "Dune", "Frank Herbert", 4.5, 10L);
+        when(bookRepository.findAllSuggestionViewsBy()).thenThrow(new RuntimeException("db down"));
+
+        index.rebuild();
+
+        assertEquals(List.of(1L), ids(index.suggest("du", 10)));
+    }
+
+    @Test
+    void rebuild_liveUpdateDuringLoadWinsOverLoadedRow() {
+        when(bookRepository.findAllSuggestionViewsBy()).thenAnswer(invocation -> {
+            // A rating update commits while the rows are being read
+            index.put(1L, "Dune", "Frank Herbert", 4.8, 99L);
+            return List.of(view(1L, "Dune", "Frank Herbert", 4.5, 10L));
+        });
+
+        index.rebuild();
+
+        assertEquals(99L, index.suggest("dune", 10).get(0).reviewCount());
+    }
+}
@@ -0,0 +1,76 @@
+package com.bookreview.service;
+
+import com.bookreview.repository.BookRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookVersionRegistryTest {
+    private BookRepository bookRepository;
+    private BookVersionRegistry registry;
+
+    @BeforeEach
+    void setup() {
+        bookRepository = Mockito.mock(BookRepository.class);
+        registry = new BookVersionRegistry(bookRepository);
+    }
+
+    private static BookRepository.VersionView version(long bookId, long version) {
+        BookRepository.VersionView view = mock(BookRepository.VersionView.class);
+        when(view.getId()).thenReturn(bookId);
+        when(view.getVersion()).thenReturn(version);
+        return view;
+    }
+
+    @Test
+    void unknownBooks_areAtVersionZero() {
+        assertEquals(0L, registry.version(1L));
+        assertEquals(0L, registry.catalogVersion());
+    }
+
+    @Test
+    void record_neverMovesBackwards_andSumsIntoTheCatalogVersion() {
+        registry.record(5L, 0L); // a new book: no version yet, but the catalog grew
+        registry.record(1L, 2L);
+        registry.record(1L, 1L);
+        registry.record(2L, 3L);
+        registry.record(null, 9L);
+        registry.record(3L, null);
+
+        assertEquals(2L, registry.version(1L));
+        assertEquals(3L, registry.version(2L));
+        assertEquals(0L, registry.version(5L));
+        assertEquals(5L + 5L, registry.catalogVersion());
+    }
+
+    @Test
+    void reload_takesNewerVersionsFromRepository_andKeepsNewerLocalOnes() {
+        registry.record(1L, 5L);
+        registry.record(2L, 1L);
+        List<BookRepository.VersionView> views = List.of(version(1L, 4L), version(2L, 3L), version(3L, 1L));
+        when(bookRepository.findByVersionGreaterThan(0L)).thenReturn(views);
+        when(bookRepository.findMaxId()).thenReturn(10L);
+
+        registry.reload();
+
+        assertEquals(5L, registry.version(1L));
+        assertEquals(3L, registry.version(2L));
+        assertEquals(1L, registry.version(3L));
+        assertEquals(9L + 10L, registry.catalogVersion());
+    }
+
+    @Test
+    void reload_failure_keepsPreviousTable() {
+        registry.record(1L, 2L);
+        when(bookRepository.findByVersionGreaterThan(0L)).thenThrow(new RuntimeException("db down"));
+
+        registry.reload();
+
+        assertEquals(2L, registry.version(1L));
+    }
+}
@@ -0,0 +1,86 @@
+package com.bookreview.service;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvChunkerTest {
+
+    @TempDir
+    Path dir;
+
+    private FileChannel channel(String content) throws Exception {
+        Path file = dir.resolve("books.csv");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    private static List<String> firstColumn(FileChannel channel, CsvChunker.Chunk chunk) throws Exception {
+        List<String> values = new ArrayList<>();
+        try (CSVParser parser = new CSVParser(new InputStreamReader(CsvChunker.open(channel, chunk), StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT)) {
+            for (CSVRecord record : parser) {
+                values.add(record.get(0));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    void plan_cutsOnlyBetweenRecords_evenInsideQuotedNewlines() throws Exception {
+        StringBuilder csv = new StringBuilder("title,description\n");
+        List<String> titles = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            titles.add("Book " + i + " ü");
+            csv.append("\"Book ").append(i).append(" ü\",\"line one\nline \"\"two\"\"\n\"\n");
+        }
+        try (FileChannel channel = channel(csv.toString())) {
+            CsvChunker.Plan plan = CsvChunker.plan(channel, 50);
+
+            assertEquals(List.of("title"), firstColumn(channel, plan.header()));
+            assertTrue(plan.chunks().size() > 5);
+            long expectedStart = plan.header().end();
+            List<String> parsed = new ArrayList<>();
+            for (CsvChunker.Chunk chunk : plan.chunks()) {
+                assertEquals(expectedStart, chunk.start());
+                expectedStart = chunk.end();
+                parsed.addAll(firstColumn(channel, chunk));
+            }
+            assertEquals(channel.size(), expectedStart);
+            assertEquals(titles, parsed);
+        }
+    }
+
+    @Test
+    void plan_lastRecordWithoutNewline_isIncluded() throws Exception {
+        try (FileChannel channel = channel("title\nA\nB")) {
+            CsvChunker.Plan plan = CsvChunker.plan(channel, 1);
+            assertEquals(List.of(new CsvChunker.Chunk(6, 8), new CsvChunker.Chunk(8, 9)), plan.chunks());
+        }
+    }
+
+    @Test
+    void plan_headerOnlyAndEmptyFiles_haveNoChunks() throws Exception {
+        try (FileChannel channel = channel("title,author\n")) {
+            assertTrue(CsvChunker.plan(channel, 1).chunks().isEmpty());
+        }
+        try (FileChannel channel = channel("")) {
+            CsvChunker.Plan plan = CsvChunker.plan(channel, 1);
+            assertEquals(0, plan.header().length());
+            assertTrue(plan.chunks().isEmpty());
+        }
+    }
+}
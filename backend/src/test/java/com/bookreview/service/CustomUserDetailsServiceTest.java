@@ -2,6 +2,10 @@ package com.bookreview.service;
 
 import com.bookreview.model.User;
 import com.bookreview.repository.UserRepository;
+import com.bookreview.security.AuthenticatedUser;
+import com.bookreview.security.SecurityEpochRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -16,17 +20,22 @@ import static org.mockito.Mockito.*;
 
 class CustomUserDetailsServiceTest {
     private UserRepository userRepository;
+    private SecurityEpochRegistry epochRegistry;
     private CustomUserDetailsService service;
+    private MeterRegistry meterRegistry;
 
     @BeforeEach
     void setup() {
         userRepository = Mockito.mock(UserRepository.class);
-        service = new CustomUserDetailsService(userRepository);
+        meterRegistry = new SimpleMeterRegistry();
+        epochRegistry = new SecurityEpochRegistry(userRepository);
+        service = new CustomUserDetailsService(userRepository, epochRegistry, meterRegistry, 100, 300);
     }
 
     @Test
     void loadUserByUsername_mapsUserAndRoles() {
         User u = new User();
+        u.setId(11L);
         u.setEmail("jane@example.com");
         u.setPasswordHash("hash");
         // If roles is null-safe in entity, this can be empty. Set via reflection if needed.
@@ -37,6 +46,7 @@ class CustomUserDetailsServiceTest {
         assertEquals("jane@example.com", ud.getUsername());
         assertEquals("hash", ud.getPassword());
         assertTrue(ud.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_USER")));
+        assertEquals(11L, assertInstanceOf(AuthenticatedUser.class, ud).getId());
     }
 
     @Test
@@ -44,4 +54,94 @@ class CustomUserDetailsServiceTest {
         when(userRepository.findByEmail("missing@example.com")).thenReturn(Optional.empty());
         assertThrows(UsernameNotFoundException.class, () -> service.loadUserByUsername("missing@example.com"));
     }
+
+    private User user(long id, String email) {
+        User u = new User();
+        u.setId(id);
+        u.setEmail(email);
+        u.setPasswordHash("hash");
+        u.setRoles(Set.of(com.bookreview.model.Role.USER));
+        return u;
+    }
+
+    private double gets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "userDetails").tag("result", result)
+                .functionCounter().count();
+    }
+
+    @Test
+    void loadCachedUser_servesRepeatsFromCache() {
+        when(userRepository.findByEmail("jane@example.com")).thenReturn(Optional.of(user(1L, "jane@example.com")));
+
+        UserDetails first = service.loadCachedUser("jane@example.com");
+        UserDetails second = service.loadCachedUser("jane@example.com");
+
+        assertSame(first, second);
+        verify(userRepository, times(1)).findByEmail("jane@example.com");
+        assertEquals(1.0, gets("hit"));
+        assertEquals(1.0, gets("miss"));
+    }
+
+    @Test
+    void loadUserByUsername_alwaysReadsTheStoredUser_forLogins() {
+        User before = user(5L, "reset@example.com");
+        User after = user(5L, "reset@example.com");
+        after.setPasswordHash("new-hash");
+        when(userRepository.findByEmail("reset@example.com")).thenReturn(Optional.of(before)).thenReturn(Optional.of(after));
+
+        service.loadCachedUser("reset@example.com");
+        // Password reset on another node: this node never saw the eviction
+        assertEquals("new-hash", service.loadUserByUsername("reset@example.com").getPassword());
+        assertEquals("new-hash", service.loadCachedUser("reset@example.com").getPassword());
+    }
+
+    @Test
+    void loadCachedUser_reloads_whenTheSecurityEpochMoved() {
+        User reset = user(6L, "epoch@example.com");
+        reset.setSecurityEpoch(1L);
+        when(userRepository.findByEmail("epoch@example.com"))
+                .thenReturn(Optional.of(user(6L, "epoch@example.com")))
+                .thenReturn(Optional.of(reset));
+        service.loadCachedUser("epoch@example.com");
+
+        epochRegistry.record(6L, 1L);
+
+        assertEquals(1L, ((AuthenticatedUser) service.loadCachedUser("epoch@example.com")).getSecurityEpoch());
+        verify(userRepository, times(2)).findByEmail("epoch@example.com");
+    }
+
+    @Test
+    void loadCachedUser_doesNotCacheUnknownUsers() {
+        when(userRepository.findByEmail("late@example.com"))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(user(2L, "late@example.com")));
+
+        assertThrows(UsernameNotFoundException.class, () -> service.loadCachedUser("late@example.com"));
+        assertEquals("late@example.com", service.loadCachedUser("late@example.com").getUsername());
+    }
+
+    @Test
+    void evict_reloadsOnNextLookup_evenAfterEmailChange() {
+        when(userRepository.findByEmail("old@example.com")).thenReturn(Optional.of(user(3L, "old@example.com")));
+        service.loadCachedUser("old@example.com");
+
+        service.evict(3L, "new@example.com");
+        service.loadCachedUser("old@example.com");
+
+        verify(userRepository, times(2)).findByEmail("old@example.com");
+    }
+
+    @Test
+    void updatePassword_storesRehashWithoutInvalidatingTokens() {
+        User u = user(4L, "rehash@example.com");
+        u.setSecurityEpoch(7L);
+        when(userRepository.findByEmail("rehash@example.com")).thenReturn(Optional.of(u));
+        when(userRepository.save(u)).thenReturn(u);
+
+        UserDetails updated = service.updatePassword(AuthenticatedUser.from(u), "$2a$12$newhash");
+
+        assertEquals("$2a$12$newhash", u.getPasswordHash());
+        assertEquals(7L, u.getSecurityEpoch());
+        assertEquals("$2a$12$newhash", updated.getPassword());
+    }
 }
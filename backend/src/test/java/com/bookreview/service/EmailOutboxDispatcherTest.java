@@ -0,0 +1,133 @@
+package com.bookreview.service;
+
+import com.bookreview.model.EmailOutboxMessage;
+import com.bookreview.repository.EmailOutboxRepository;
+import com.bookreview.repository.RefreshTokenRepository;
+import com.bookreview.repository.UserRepository;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import javax.mail.internet.MimeMessage;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * End-to-end outbox delivery against an in-process GreenMail SMTP server. The
+ * scheduler is effectively disabled (hour-long poll) so each test drives dispatch itself.
+ */
+@SpringBootTest(properties = {
+        "email.enabled=true",
+        "email.sender=no-reply@bookreview.test",
+        "email.outbox.pollMillis=3600000",
+        "email.outbox.maxAttempts=2",
+        "email.outbox.backoffMillis=0",
+        "spring.mail.host=localhost",
+        "spring.mail.port=3025",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EmailOutboxDispatcherTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    EmailOutboxDispatcher dispatcher;
+    @Autowired
+    EmailOutboxRepository outboxRepository;
+    @Autowired
+    RefreshTokenRepository refreshTokenRepository;
+    @Autowired
+    UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        outboxRepository.deleteAll();
+        refreshTokenRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private void signup(String email) throws Exception {
+        mockMvc.perform(post("/auth/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Reader\",\"email\":\"" + email + "\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void signup_queuesEmail_whichDispatcherDelivers() throws Exception {
+        signup("reader@example.com");
+
+        // Nothing is sent on the request thread
+        assertEquals(0, greenMail.getReceivedMessages().length);
+        assertEquals(1, outboxRepository.countByStatus(EmailOutboxMessage.Status.PENDING));
+
+        dispatcher.dispatch();
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(1, received.length);
+        assertEquals("Welcome to Book Review!", received[0].getSubject());
+        assertEquals("reader@example.com", received[0].getAllRecipients()[0].toString());
+        assertEquals(1, outboxRepository.countByStatus(EmailOutboxMessage.Status.SENT));
+    }
+
+    @Test
+    void dispatch_sendsWholeBatch() {
+        for (int i = 0; i < 5; i++) {
+            outboxRepository.save(new EmailOutboxMessage("user" + i + "@example.com", "Hello " + i, "Body " + i, null));
+        }
+
+        dispatcher.dispatch();
+
+        assertEquals(5, greenMail.getReceivedMessages().length);
+        assertEquals(5, outboxRepository.countByStatus(EmailOutboxMessage.Status.SENT));
+    }
+
+    @Test
+    void smtpDown_signupStillSucceeds_andMessageIsRetriedThenDeadLettered() throws Exception {
+        greenMail.stop();
+
+        signup("offline@example.com");
+
+        dispatcher.dispatch();
+        EmailOutboxMessage afterFirst = onlyMessage();
+        assertEquals(EmailOutboxMessage.Status.PENDING, afterFirst.getStatus());
+        assertEquals(1, afterFirst.getAttempts());
+        assertNotNull(afterFirst.getLastError());
+
+        dispatcher.dispatch();
+        EmailOutboxMessage afterSecond = onlyMessage();
+        assertEquals(EmailOutboxMessage.Status.DEAD, afterSecond.getStatus());
+        assertEquals(2, afterSecond.getAttempts());
+    }
+
+    @Test
+    void backoff_growsExponentiallyUpToCap() {
+        assertEquals(30_000, EmailOutboxDispatcher.backoff(1, 30_000, 3_600_000).toMillis());
+        assertEquals(60_000, EmailOutboxDispatcher.backoff(2, 30_000, 3_600_000).toMillis());
+        assertEquals(3_600_000, EmailOutboxDispatcher.backoff(30, 30_000, 3_600_000).toMillis());
+    }
+
+    private EmailOutboxMessage onlyMessage() {
+        List<EmailOutboxMessage> all = outboxRepository.findAll();
+        assertEquals(1, all.size());
+        return all.get(0);
+    }
+}
@@ -1,12 +1,11 @@
 package com.bookreview.service;
 
+import com.bookreview.model.EmailOutboxMessage;
+import com.bookreview.repository.EmailOutboxRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
-import org.springframework.mail.javamail.JavaMailSender;
-
-import jakarta.mail.internet.MimeMessage;
 
 import java.lang.reflect.Field;
 
@@ -14,13 +13,13 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class EmailServiceTest {
-    private JavaMailSender mailSender;
+    private EmailOutboxRepository outboxRepository;
     private EmailService emailService;
 
     @BeforeEach
     void setup() {
-        mailSender = Mockito.mock(JavaMailSender.class);
-        emailService = new EmailService(mailSender);
+        outboxRepository = Mockito.mock(EmailOutboxRepository.class);
+        emailService = new EmailService(outboxRepository);
     }
 
     private static void setField(Object target, String field, Object value) {
@@ -34,20 +33,25 @@ class EmailServiceTest {
     }
 
     @Test
-    void sendSignupEmail_disabled_doesNotSend() {
+    void queueSignupEmail_disabled_doesNotQueue() {
         setField(emailService, "emailEnabled", false);
-        emailService.sendSignupEmail("to@example.com", "Alice");
-        verify(mailSender, never()).send(any(MimeMessage.class));
+        emailService.queueSignupEmail("to@example.com", "Alice");
+        verifyNoInteractions(outboxRepository);
     }
 
     @Test
-    void sendSignupEmail_enabled_sends() {
+    void queueSignupEmail_enabled_writesPendingOutboxRow() {
         setField(emailService, "emailEnabled", true);
-        setField(emailService, "sender", "no-reply@test.com");
-        MimeMessage mime = Mockito.mock(MimeMessage.class);
-        when(mailSender.createMimeMessage()).thenReturn(mime);
 
-        emailService.sendSignupEmail("to@example.com", "Alice");
-        verify(mailSender, times(1)).send(any(MimeMessage.class));
+        emailService.queueSignupEmail("to@example.com", "<Alice>");
+
+        ArgumentCaptor<EmailOutboxMessage> captor = ArgumentCaptor.forClass(EmailOutboxMessage.class);
+        verify(outboxRepository, times(1)).save(captor.capture());
+        EmailOutboxMessage queued = captor.getValue();
+        assertEquals("to@example.com", queued.getRecipient());
+        assertEquals(EmailOutboxMessage.Status.PENDING, queued.getStatus());
+        assertEquals(0, queued.getAttempts());
+        assertNotNull(queued.getNextAttemptAt());
+        assertTrue(queued.getHtmlBody().contains("&lt;Alice&gt;"));
     }
 }
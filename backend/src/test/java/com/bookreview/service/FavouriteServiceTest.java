@@ -1,5 +1,6 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.BookSnapshot;
 import com.bookreview.model.Book;
 import com.bookreview.model.Favourite;
 import com.bookreview.model.User;
@@ -19,6 +20,7 @@ class FavouriteServiceTest {
     private FavouriteRepository favouriteRepository;
     private BookRepository bookRepository;
     private UserRepository userRepository;
+    private BookCache bookCache;
     private FavouriteService service;
 
     @BeforeEach
@@ -26,7 +28,8 @@ class FavouriteServiceTest {
         favouriteRepository = mock(FavouriteRepository.class);
         bookRepository = mock(BookRepository.class);
         userRepository = mock(UserRepository.class);
-        service = new FavouriteService(favouriteRepository, bookRepository, userRepository);
+        bookCache = mock(BookCache.class);
+        service = new FavouriteService(favouriteRepository, bookRepository, userRepository, bookCache);
     }
 
     @Test
@@ -36,12 +39,20 @@ class FavouriteServiceTest {
         verify(favouriteRepository).findByUserIdOrderByCreatedAtDesc(1L);
     }
 
+    @Test
+    void findSummariesByUserId_delegates() {
+        when(favouriteRepository.findSummariesByUserId(1L)).thenReturn(List.of());
+        assertNotNull(service.findSummariesByUserId(1L));
+        verify(favouriteRepository).findSummariesByUserId(1L);
+    }
+
     @Test
     void addFavourite_success() {
         when(favouriteRepository.existsByUserIdAndBookId(1L, 2L)).thenReturn(false);
         Book b = new Book(); b.setId(2L);
         User u = new User(); u.setId(1L);
-        when(bookRepository.findById(2L)).thenReturn(Optional.of(b));
+        when(bookCache.get(2L)).thenReturn(Optional.of(BookSnapshot.of(b)));
+        when(bookRepository.getReferenceById(2L)).thenReturn(b);
         when(userRepository.findById(1L)).thenReturn(Optional.of(u));
         when(favouriteRepository.save(any(Favourite.class))).thenAnswer(inv -> inv.getArgument(0));
 
@@ -50,6 +61,15 @@ class FavouriteServiceTest {
         assertEquals(1L, f.getUser().getId());
     }
 
+    @Test
+    void addFavourite_unknownBook_throws_withoutWriting() {
+        when(favouriteRepository.existsByUserIdAndBookId(1L, 2L)).thenReturn(false);
+        when(bookCache.get(2L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.addFavourite(1L, 2L));
+        verify(favouriteRepository, never()).save(any());
+    }
+
     @Test
     void addFavourite_duplicate_throws() {
         when(favouriteRepository.existsByUserIdAndBookId(1L, 2L)).thenReturn(true);
@@ -73,7 +93,8 @@ class FavouriteServiceTest {
     void toggleFavourite_addsWhenMissing_andRemovesWhenExists() {
         Book b = new Book(); b.setId(2L);
         User u = new User(); u.setId(1L);
-        when(bookRepository.findById(2L)).thenReturn(Optional.of(b));
+        when(bookCache.get(2L)).thenReturn(Optional.of(BookSnapshot.of(b)));
+        when(bookRepository.getReferenceById(2L)).thenReturn(b);
         when(userRepository.findById(1L)).thenReturn(Optional.of(u));
         when(favouriteRepository.save(any(Favourite.class))).thenAnswer(inv -> inv.getArgument(0));
 
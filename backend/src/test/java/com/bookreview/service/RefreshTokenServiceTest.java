@@ -0,0 +1,115 @@
+package com.bookreview.service;
+
+import com.bookreview.model.RefreshToken;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.RefreshTokenRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.security.TokenDigests;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.CredentialsExpiredException;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class RefreshTokenServiceTest {
+    private RefreshTokenRepository refreshTokenRepository;
+    private UserRepository userRepository;
+    private RefreshTokenService service;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        refreshTokenRepository = mock(RefreshTokenRepository.class);
+        userRepository = mock(UserRepository.class);
+        service = new RefreshTokenService(refreshTokenRepository, userRepository, 60_000);
+        user = new User("jane@example.com", "hash", "Jane", Set.of(Role.USER));
+        user.setId(5L);
+        when(refreshTokenRepository.save(any(RefreshToken.class))).thenAnswer(inv -> inv.getArgument(0));
+    }
+
+    private RefreshToken stored(String raw, long epoch, Instant expiresAt) {
+        RefreshToken token = new RefreshToken(user, TokenDigests.sha256(raw), "family-1", epoch, expiresAt);
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256(raw))).thenReturn(Optional.of(token));
+        return token;
+    }
+
+    @Test
+    void issue_storesOnlyDigestInNewFamily() {
+        when(userRepository.getReferenceById(5L)).thenReturn(user);
+
+        String raw = service.issue(5L, 0L);
+
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals(TokenDigests.sha256(raw), saved.getValue().getTokenHash());
+        assertNotEquals(raw, saved.getValue().getTokenHash());
+        assertNotNull(saved.getValue().getFamilyId());
+        assertTrue(saved.getValue().getExpiresAt().isAfter(Instant.now()));
+    }
+
+    @Test
+    void rotate_revokesCurrentAndIssuesSuccessorInSameFamily() {
+        RefreshToken current = stored("raw-1", 0L, Instant.now().plusSeconds(60));
+
+        RefreshTokenService.Rotation rotation = service.rotate("raw-1");
+
+        assertTrue(current.isRevoked());
+        assertEquals(5L, rotation.principal().getId());
+        assertNotEquals("raw-1", rotation.refreshToken());
+        ArgumentCaptor<RefreshToken> saved = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(saved.capture());
+        assertEquals("family-1", saved.getValue().getFamilyId());
+        assertEquals(TokenDigests.sha256(rotation.refreshToken()), saved.getValue().getTokenHash());
+    }
+
+    @Test
+    void rotate_reusedToken_revokesWholeFamily() {
+        RefreshToken current = stored("raw-1", 0L, Instant.now().plusSeconds(60));
+        current.revoke(Instant.now());
+
+        assertThrows(BadCredentialsException.class, () -> service.rotate("raw-1"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any(Instant.class));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_unknownOrExpiredToken_isRejected() {
+        when(refreshTokenRepository.findByTokenHash(anyString())).thenReturn(Optional.empty());
+        assertThrows(BadCredentialsException.class, () -> service.rotate("nope"));
+
+        stored("old", 0L, Instant.now().minusSeconds(1));
+        assertThrows(CredentialsExpiredException.class, () -> service.rotate("old"));
+        verify(refreshTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void rotate_afterPasswordChange_isRejected() {
+        stored("raw-1", 0L, Instant.now().plusSeconds(60));
+        user.changePassword("new-hash");
+
+        assertThrows(BadCredentialsException.class, () -> service.rotate("raw-1"));
+        verify(refreshTokenRepository).revokeFamily(eq("family-1"), any(Instant.class));
+    }
+
+    @Test
+    void revoke_endsFamily_andIgnoresUnknownTokens() {
+        stored("raw-1", 0L, Instant.now().plusSeconds(60));
+        when(refreshTokenRepository.findByTokenHash(TokenDigests.sha256("unknown"))).thenReturn(Optional.empty());
+
+        service.revoke("raw-1");
+        service.revoke("unknown");
+
+        verify(refreshTokenRepository, times(1)).revokeFamily(eq("family-1"), any(Instant.class));
+    }
+}
@@ -0,0 +1,123 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.BookSnapshot;
+import com.bookreview.dto.ReviewSummary;
+import com.bookreview.model.Book;
+import com.bookreview.model.Review;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import com.bookreview.support.SqlStatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Property check of the incremental rating aggregates: after every step of a random
+ * sequence of review creates, rating changes and deletes, each book's stored sum,
+ * count, average and star counts equal a full recompute over its reviews, and the
+ * cached book agrees. Runs a few fixed seeds so a failure is reproducible.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReviewAggregatesPropertyTest {
+
+    private static final int BOOKS = 3;
+    private static final int USERS = 5;
+    private static final int STEPS = 100;
+
+    @Autowired
+    ReviewService reviewService;
+    @Autowired
+    BookService bookService;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ReviewRepository reviewRepository;
+    @Autowired
+    UserRepository userRepository;
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(longs = {1L, 42L, 20261018L})
+    void incrementalAggregates_alwaysEqualAFullRecompute(long seed) {
+        Random random = new Random(seed);
+        List<Long> books = new ArrayList<>();
+        for (int i = 0; i < BOOKS; i++) {
+            Book book = new Book();
+            book.setTitle("Book " + i);
+            book.setAuthor("Author " + i);
+            books.add(bookRepository.save(book).getId());
+        }
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userRepository.save(new User("reader" + i + "-" + seed + "@example.com", "hash",
+                    "Reader " + i, Set.of(Role.USER))).getId());
+        }
+
+        for (int step = 0; step < STEPS; step++) {
+            Long bookId = books.get(random.nextInt(BOOKS));
+            Long userId = users.get(random.nextInt(USERS));
+            Optional<Review> existing = reviewRepository.findByBookIdAndUserId(bookId, userId);
+            SqlStatementCounter.clear();
+            if (existing.isPresent() && random.nextInt(3) == 0) {
+                reviewService.deleteReview(existing.get().getId(), userId);
+            } else {
+                reviewService.createOrUpdateReview(bookId, userId, "step " + step, 1 + random.nextInt(5));
+            }
+            String context = "seed " + seed + ", step " + step;
+            assertTrue(SqlStatementCounter.statements().stream()
+                            .noneMatch(sql -> sql.toLowerCase(Locale.ROOT).startsWith("update books")),
+                    context + ": the entity flush must not write the aggregates");
+            assertMatchesRecompute(bookId, context);
+        }
+    }
+
+    private void assertMatchesRecompute(Long bookId, String context) {
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByBookId(bookId);
+        double sum = reviews.stream().mapToDouble(ReviewSummary::rating).sum();
+        Long count = reviewRepository.getReviewCountByBookId(bookId);
+        Double average = reviewRepository.getAverageRatingByBookId(bookId);
+        Double expectedAverage = average == null ? null
+                : BigDecimal.valueOf(average).setScale(1, RoundingMode.HALF_UP).doubleValue();
+        List<Long> starCounts = new ArrayList<>();
+        for (int star = 1; star <= 5; star++) {
+            double rating = star;
+            starCounts.add(reviews.stream().filter(review -> review.rating() == rating).count());
+        }
+
+        Book stored = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(sum, stored.getRatingSum(), context);
+        assertEquals(count, stored.getReviewCount(), context);
+        assertEquals(expectedAverage, stored.getAvgRating(), context);
+        assertEquals(starCounts, stored.getStarCounts(), context);
+
+        BookSnapshot cached = bookService.findById(bookId).orElseThrow();
+        assertEquals(count, cached.reviewCount(), context);
+        assertEquals(expectedAverage, cached.avgRating(), context);
+        assertEquals(starCounts, cached.starCounts(), context);
+        assertEquals(stored.getVersion(), cached.version(), context);
+    }
+}
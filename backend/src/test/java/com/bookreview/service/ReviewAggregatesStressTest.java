@@ -0,0 +1,164 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ReviewSummary;
+import com.bookreview.model.Book;
+import com.bookreview.model.Role;
+import com.bookreview.model.User;
+import com.bookreview.repository.BookRatingWriter;
+import com.bookreview.repository.BookRepository;
+import com.bookreview.repository.ReviewRepository;
+import com.bookreview.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hundreds of concurrent writers reviewing (and re-rating) one trending book, once with
+ * coalesced aggregates and once with the immediate per-review update for comparison.
+ * Logs the write throughput of both and checks that the final aggregates equal a full
+ * recompute over the committed reviews.
+ */
+@SpringBootTest(properties = {
+        "app.reviews.aggregates.mode=coalesced",
+        "app.reviews.aggregates.flushMillis=100"
+})
+@ActiveProfiles("test")
+class ReviewAggregatesStressTest {
+    private static final Logger log = LoggerFactory.getLogger(ReviewAggregatesStressTest.class);
+
+    private static final int WRITERS = 200;
+    private static final int WRITES_PER_WRITER = 3;
+
+    @Autowired
+    ReviewService reviewService;
+    @Autowired
+    BookRatingCoalescer coalescer;
+    @Autowired
+    BookRatingWriter ratingWriter;
+    @Autowired
+    BookRepository bookRepository;
+    @Autowired
+    ReviewRepository reviewRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    BookSuggestionIndex suggestionIndex;
+    @Autowired
+    BookVersionRegistry versionRegistry;
+    @Autowired
+    BookCache bookCache;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        reviewRepository.deleteAll();
+        bookRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    private interface Writer {
+        void write(Long bookId, Long userId, int rating);
+    }
+
+    @Test
+    void concurrentWritersOnOneBook_keepExactAggregates() throws Exception {
+        List<Long> users = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            users.add(userRepository.save(new User("stress" + i + "@example.com", "hash", "Reader " + i,
+                    Set.of(Role.USER))).getId());
+        }
+
+        Long coalescedBook = book("Trending (coalesced)");
+        double coalesced = run(coalescedBook, users,
+                (bookId, userId, rating) -> reviewService.createOrUpdateReview(bookId, userId, "!", rating));
+        coalescer.flush();
+        // A scheduled flush may still be applying what it drained; the sweep waits for its row locks
+        coalescer.recover();
+        assertEquals(List.of(), ratingWriter.findPendingReviewIds(10));
+        assertMatchesRecompute(coalescedBook);
+
+        // The same workload through the per-review UPDATE, on a service wired for immediate mode
+        BookRatingCoalescer immediate = new BookRatingCoalescer(ratingWriter, suggestionIndex, versionRegistry,
+                bookCache, transactionManager, "immediate", 1);
+        ReviewService immediateService = new ReviewService(reviewRepository, bookRepository, userRepository,
+                ratingWriter, suggestionIndex, versionRegistry, bookCache, immediate);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        Long immediateBook = book("Trending (immediate)");
+        double perReview = run(immediateBook, users, (bookId, userId, rating) -> transaction.executeWithoutResult(
+                status -> immediateService.createOrUpdateReview(bookId, userId, "!", rating)));
+        assertMatchesRecompute(immediateBook);
+
+        log.info("{} writers x {} reviews on one book: coalesced {} writes/s, immediate {} writes/s",
+                WRITERS, WRITES_PER_WRITER, Math.round(coalesced), Math.round(perReview));
+    }
+
+    private Long book(String title) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor("Author");
+        return bookRepository.save(book).getId();
+    }
+
+    /** @return review writes per second */
+    private double run(Long bookId, List<Long> users, Writer writer) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (Long userId : users) {
+                results.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < WRITES_PER_WRITER; i++) {
+                        writer.write(bookId, userId, 1 + ThreadLocalRandom.current().nextInt(5));
+                    }
+                    return null;
+                }));
+            }
+            long started = System.nanoTime();
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(2, TimeUnit.MINUTES);
+            }
+            return WRITERS * WRITES_PER_WRITER / ((System.nanoTime() - started) / 1e9);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void assertMatchesRecompute(Long bookId) {
+        Double average = reviewRepository.getAverageRatingByBookId(bookId);
+        Book stored = bookRepository.findById(bookId).orElseThrow();
+        assertEquals((long) WRITERS, stored.getReviewCount());
+        assertEquals(reviewRepository.getReviewCountByBookId(bookId), stored.getReviewCount());
+        assertEquals(average * WRITERS, stored.getRatingSum(), 1e-9);
+        assertEquals(BigDecimal.valueOf(average).setScale(1, RoundingMode.HALF_UP).doubleValue(), stored.getAvgRating());
+        List<ReviewSummary> reviews = reviewRepository.findSummariesByBookId(bookId);
+        List<Long> starCounts = new ArrayList<>();
+        for (int star = 1; star <= 5; star++) {
+            double rating = star;
+            starCounts.add(reviews.stream().filter(review -> review.rating() == rating).count());
+        }
+        assertEquals(starCounts, stored.getStarCounts());
+    }
+}
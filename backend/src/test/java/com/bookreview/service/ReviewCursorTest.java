@@ -0,0 +1,42 @@
+package com.bookreview.service;
+
+import com.bookreview.dto.ReviewItem;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReviewCursorTest {
+
+    private static final ReviewItem REVIEW = new ReviewItem(42L, 4.0, "Great", "Reader",
+            LocalDateTime.of(2026, 10, 18, 12, 30, 5, 123_456_000), LocalDateTime.of(2026, 10, 18, 13, 0));
+
+    @Test
+    void encodeDecode_roundTripsBothOrders() {
+        for (ReviewCursor.Order order : ReviewCursor.Order.values()) {
+            ReviewCursor cursor = ReviewCursor.after(REVIEW, order);
+            assertEquals(cursor, ReviewCursor.decode(cursor.encode()), order.name());
+        }
+        assertEquals(REVIEW.createdAt(), ReviewCursor.decode(ReviewCursor.after(REVIEW, ReviewCursor.Order.RECENT).encode()).key());
+        assertEquals(4.0, ReviewCursor.decode(ReviewCursor.after(REVIEW, ReviewCursor.Order.RATING).encode()).key());
+    }
+
+    @Test
+    void order_defaultsToRecent_andRejectsOthers() {
+        assertEquals(ReviewCursor.Order.RECENT, ReviewCursor.Order.of(null));
+        assertEquals(ReviewCursor.Order.RATING, ReviewCursor.Order.of("Rating"));
+        assertThrows(IllegalArgumentException.class, () -> ReviewCursor.Order.of("helpful"));
+    }
+
+    @Test
+    void decode_rejectsMalformedTokens() {
+        for (String raw : new String[] {"recent:1", "helpful:1:4.0", "recent:one:2026-10-18T12:30", "recent:1:yesterday", "rating:1:high"}) {
+            String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThrows(IllegalArgumentException.class, () -> ReviewCursor.decode(token), raw);
+        }
+        assertThrows(IllegalArgumentException.class, () -> ReviewCursor.decode("not base64!"));
+    }
+}
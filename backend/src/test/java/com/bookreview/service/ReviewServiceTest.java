@@ -1,17 +1,22 @@
 package com.bookreview.service;
 
+import com.bookreview.dto.CursorPage;
+import com.bookreview.dto.ReviewItem;
 import com.bookreview.model.Book;
 import com.bookreview.model.Review;
 import com.bookreview.model.User;
+import com.bookreview.repository.BookRatingWriter;
 import com.bookreview.repository.BookRepository;
 import com.bookreview.repository.ReviewRepository;
 import com.bookreview.repository.UserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -20,6 +25,11 @@ class ReviewServiceTest {
     private ReviewRepository reviewRepository;
     private BookRepository bookRepository;
     private UserRepository userRepository;
+    private BookRatingWriter bookRatingWriter;
+    private BookSuggestionIndex suggestionIndex;
+    private BookVersionRegistry versionRegistry;
+    private BookCache bookCache;
+    private BookRatingCoalescer coalescer;
     private ReviewService service;
 
     @BeforeEach
@@ -27,60 +37,124 @@ class ReviewServiceTest {
         reviewRepository = mock(ReviewRepository.class);
         bookRepository = mock(BookRepository.class);
         userRepository = mock(UserRepository.class);
-        service = new ReviewService(reviewRepository, bookRepository, userRepository);
+        bookRatingWriter = mock(BookRatingWriter.class);
+        suggestionIndex = mock(BookSuggestionIndex.class);
+        versionRegistry = mock(BookVersionRegistry.class);
+        bookCache = mock(BookCache.class);
+        coalescer = mock(BookRatingCoalescer.class);
+        service = new ReviewService(reviewRepository, bookRepository, userRepository,
+                bookRatingWriter, suggestionIndex, versionRegistry, bookCache, coalescer);
     }
 
     @Test
     void finders_delegate() {
-        when(reviewRepository.findByBookIdOrderByCreatedAtDesc(1L)).thenReturn(List.of());
-        when(reviewRepository.findByUserIdOrderByCreatedAtDesc(2L)).thenReturn(List.of());
+        when(reviewRepository.findSummariesByBookId(1L)).thenReturn(List.of());
+        when(reviewRepository.findSummariesByUserId(2L)).thenReturn(List.of());
         when(reviewRepository.findByBookIdAndUserId(1L, 2L)).thenReturn(Optional.empty());
         assertNotNull(service.findByBookId(1L));
         assertNotNull(service.findByUserId(2L));
         assertTrue(service.findByBookIdAndUserId(1L, 2L).isEmpty());
     }
 
+    private static ReviewItem item(long id, double rating, LocalDateTime createdAt) {
+        return new ReviewItem(id, rating, "text", "Reader", createdAt, createdAt);
+    }
+
     @Test
-    void createOrUpdateReview_creates_whenMissing_andUpdatesAggregates() {
-        Book book = new Book(); book.setId(10L);
+    void scrollByBook_firstPage_fetchesOneExtraRow_forTheNextCursor() {
+        LocalDateTime now = LocalDateTime.of(2026, 10, 18, 12, 0);
+        when(reviewRepository.findRecentItems(10L, Limit.of(3)))
+                .thenReturn(List.of(item(1L, 5.0, now), item(2L, 4.0, now.minusHours(1)), item(3L, 3.0, now.minusHours(2))));
+
+        CursorPage<ReviewItem> page = service.scrollByBook(10L, "", null, 2);
+
+        assertEquals(List.of(1L, 2L), page.items().stream().map(ReviewItem::id).toList());
+        ReviewCursor next = ReviewCursor.decode(page.nextCursor());
+        assertEquals(new ReviewCursor(ReviewCursor.Order.RECENT, now.minusHours(1), 2L), next);
+    }
+
+    @Test
+    void scrollByBook_byRating_seeksAfterTheCursor_andEndsOnAShortPage() {
+        String after = new ReviewCursor(ReviewCursor.Order.RATING, 4.0, 7L).encode();
+        when(reviewRepository.findTopRatedItemsAfter(10L, 4.0, 7L, Limit.of(21)))
+                .thenReturn(List.of(item(9L, 4.0, null), item(2L, 3.0, null)));
+
+        CursorPage<ReviewItem> page = service.scrollByBook(10L, after, "rating", 20);
+
+        assertEquals(2, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void scrollByBook_cursorFromAnotherSort_throws() {
+        String after = new ReviewCursor(ReviewCursor.Order.RATING, 4.0, 7L).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> service.scrollByBook(10L, after, "recent", 20));
+        assertThrows(IllegalArgumentException.class, () -> service.scrollByBook(10L, "", "helpful", 20));
+        verifyNoInteractions(reviewRepository);
+    }
+
+    @Test
+    void createOrUpdateReview_creates_whenMissing_andAddsToTheAggregates() {
+        Book book = new Book(); book.setId(10L); book.setTitle("Dune"); book.setAuthor("Frank Herbert");
         User user = new User(); user.setId(5L);
         when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
         when(userRepository.findById(5L)).thenReturn(Optional.of(user));
-        when(reviewRepository.findByBookIdAndUserId(10L, 5L)).thenReturn(Optional.empty());
+        when(reviewRepository.findByBookIdAndUserIdForUpdate(10L, 5L)).thenReturn(Optional.empty());
         when(reviewRepository.save(any(Review.class))).thenAnswer(inv -> {
             Review r = inv.getArgument(0);
             r.setId(99L);
             return r;
         });
-        when(reviewRepository.getAverageRatingByBookId(10L)).thenReturn(4.26);
-        when(reviewRepository.getReviewCountByBookId(10L)).thenReturn(3L);
-        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        when(bookRatingWriter.adjust(eq(10L), delta(5.0, 1L, 0, 0, 0, 0, 1)))
+                .thenReturn(Optional.of(new BookRatingWriter.Aggregates(13.0, 3L, 4.3, List.of(0L, 0L, 0L, 2L, 1L), 7L)));
 
         Review r = service.createOrUpdateReview(10L, 5L, "Great book", 5);
         assertEquals(99L, r.getId());
         verify(reviewRepository).save(any(Review.class));
-        verify(bookRepository, atLeastOnce()).save(any(Book.class));
-        assertEquals(4.3, book.getAvgRating()); // rounded to 1 dp
+        verify(bookRepository, never()).save(any(Book.class));
+        assertEquals(4.3, book.getAvgRating());
         assertEquals(3L, book.getReviewCount());
+        assertEquals(13.0, book.getRatingSum());
+        assertEquals(List.of(0L, 0L, 0L, 2L, 1L), book.getStarCounts());
+        assertEquals(7L, book.getVersion());
+        // No transaction in this test: the in-memory views are updated straight away
+        verify(suggestionIndex).put(10L, "Dune", "Frank Herbert", 4.3, 3L);
+        verify(versionRegistry).record(10L, 7L);
+        verify(bookCache).put(argThat(snapshot -> snapshot.reviewCount() == 3L && snapshot.version() == 7L
+                && snapshot.starCounts().equals(List.of(0L, 0L, 0L, 2L, 1L))));
     }
 
     @Test
-    void createOrUpdateReview_updates_whenExisting() {
+    void createOrUpdateReview_updates_whenExisting_byTheRatingDifference() {
         Book book = new Book(); book.setId(10L);
         User user = new User(); user.setId(5L);
         Review existing = new Review(); existing.setId(50L); existing.setBook(book); existing.setUser(user);
-        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
-        when(userRepository.findById(5L)).thenReturn(Optional.of(user));
-        when(reviewRepository.findByBookIdAndUserId(10L, 5L)).thenReturn(Optional.of(existing));
+        existing.setRating(5.0);
+        existing.setCountedRating(5.0);
+        when(reviewRepository.findByBookIdAndUserIdForUpdate(10L, 5L)).thenReturn(Optional.of(existing));
         when(reviewRepository.save(existing)).thenReturn(existing);
-        when(reviewRepository.getAverageRatingByBookId(10L)).thenReturn(null);
-        when(reviewRepository.getReviewCountByBookId(10L)).thenReturn(0L);
+        // The review moves from the 5-star to the 3-star counter
+        when(bookRatingWriter.adjust(eq(10L), delta(-2.0, 0L, 0, 0, 1, 0, -1)))
+                .thenReturn(Optional.of(new BookRatingWriter.Aggregates(3.0, 1L, 3.0, List.of(0L, 0L, 1L, 0L, 0L), 2L)));
 
         Review r = service.createOrUpdateReview(10L, 5L, "Updated", 3);
         assertEquals(50L, r.getId());
         assertEquals(3.0, r.getRating());
-        assertNull(book.getAvgRating());
-        assertEquals(0L, book.getReviewCount());
+        assertEquals(3.0, r.getCountedRating());
+        assertEquals(3.0, book.getAvgRating());
+        assertEquals(1L, book.getReviewCount());
+        assertEquals(List.of(0L, 0L, 1L, 0L, 0L), book.getStarCounts());
+        verifyNoInteractions(bookRepository, userRepository);
+    }
+
+    @Test
+    void createOrUpdateReview_unknownBook_throws() {
+        when(reviewRepository.findByBookIdAndUserIdForUpdate(10L, 5L)).thenReturn(Optional.empty());
+        when(bookRepository.findById(10L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.createOrUpdateReview(10L, 5L, "x", 3));
+        verifyNoInteractions(bookRatingWriter);
     }
 
     @Test
@@ -90,18 +164,76 @@ class ReviewServiceTest {
     }
 
     @Test
-    void deleteReview_checksOwnership_andUpdatesAggregates() {
+    void deleteReview_checksOwnership_andSubtractsFromTheAggregates() {
         Book book = new Book(); book.setId(10L);
         User owner = new User(); owner.setId(5L);
         Review review = new Review(); review.setId(77L); review.setBook(book); review.setUser(owner);
-        when(reviewRepository.findById(77L)).thenReturn(Optional.of(review));
-        when(reviewRepository.getAverageRatingByBookId(10L)).thenReturn(4.0);
-        when(reviewRepository.getReviewCountByBookId(10L)).thenReturn(1L);
-        when(bookRepository.findById(10L)).thenReturn(Optional.of(book));
+        review.setRating(4.0);
+        review.setCountedRating(4.0);
+        when(reviewRepository.findByIdForUpdate(77L)).thenReturn(Optional.of(review));
+        when(bookRatingWriter.adjust(eq(10L), delta(-4.0, -1L, 0, 0, 0, -1, 0)))
+                .thenReturn(Optional.of(new BookRatingWriter.Aggregates(0.0, 0L, null, List.of(0L, 0L, 0L, 0L, 0L), 5L)));
+
+        service.deleteReview(77L, 5L);
+        verify(reviewRepository).delete(review);
+        assertNull(book.getAvgRating());
+        assertEquals(0L, book.getReviewCount());
+        assertEquals(5L, book.getVersion());
+        verify(versionRegistry).record(10L, 5L);
+    }
+
+    @Test
+    void deleteReview_ratingNeverCounted_onlyBumpsTheVersion() {
+        Book book = new Book(); book.setId(10L);
+        User owner = new User(); owner.setId(5L);
+        Review review = new Review(); review.setId(77L); review.setBook(book); review.setUser(owner);
+        review.setRating(4.0);
+        when(reviewRepository.findByIdForUpdate(77L)).thenReturn(Optional.of(review));
+        when(bookRatingWriter.adjust(eq(10L), delta(0.0, 0L, 0, 0, 0, 0, 0)))
+                .thenReturn(Optional.of(new BookRatingWriter.Aggregates(4.0, 1L, 4.0, List.of(0L, 0L, 0L, 1L, 0L), 6L)));
 
         service.deleteReview(77L, 5L);
         verify(reviewRepository).delete(review);
-        verify(bookRepository).save(book);
+        assertEquals(1L, book.getReviewCount());
+        verify(versionRegistry).record(10L, 6L);
+    }
+
+    @Test
+    void createOrUpdateReview_coalesced_queuesTheReview_withoutTouchingTheBook() {
+        Book book = new Book(); book.setId(10L);
+        User user = new User(); user.setId(5L);
+        Review existing = new Review(); existing.setId(50L); existing.setBook(book); existing.setUser(user);
+        existing.setRating(5.0);
+        existing.setCountedRating(5.0);
+        when(coalescer.isCoalescing()).thenReturn(true);
+        when(reviewRepository.findByBookIdAndUserIdForUpdate(10L, 5L)).thenReturn(Optional.of(existing));
+        when(reviewRepository.save(existing)).thenReturn(existing);
+
+        Review r = service.createOrUpdateReview(10L, 5L, "Updated", 2);
+        assertEquals(2.0, r.getRating());
+        assertEquals(5.0, r.getCountedRating()); // counted by the flush
+        verify(coalescer).record(10L, 50L);
+        verifyNoInteractions(bookRatingWriter, suggestionIndex, versionRegistry, bookCache);
+    }
+
+    @Test
+    void createOrUpdateReview_coalesced_textOnlyEdit_bumpsTheVersionRightAway() {
+        Book book = new Book(); book.setId(10L);
+        User user = new User(); user.setId(5L);
+        Review existing = new Review(); existing.setId(50L); existing.setBook(book); existing.setUser(user);
+        existing.setRating(4.0);
+        existing.setCountedRating(4.0);
+        when(coalescer.isCoalescing()).thenReturn(true);
+        when(reviewRepository.findByBookIdAndUserIdForUpdate(10L, 5L)).thenReturn(Optional.of(existing));
+        when(reviewRepository.save(existing)).thenReturn(existing);
+        when(bookRatingWriter.adjust(eq(10L), delta(0.0, 0L, 0, 0, 0, 0, 0)))
+                .thenReturn(Optional.of(new BookRatingWriter.Aggregates(4.0, 1L, 4.0, List.of(0L, 0L, 0L, 1L, 0L), 8L)));
+
+        Review r = service.createOrUpdateReview(10L, 5L, "Edited", 4);
+        assertEquals("Edited", r.getText());
+        verify(coalescer, never()).record(any(), any());
+        verify(versionRegistry).record(10L, 8L);
+        verify(bookCache).put(argThat(snapshot -> snapshot.version() == 8L));
     }
 
     @Test
@@ -109,7 +241,12 @@ class ReviewServiceTest {
         Book book = new Book(); book.setId(10L);
         User other = new User(); other.setId(9L);
         Review review = new Review(); review.setId(77L); review.setBook(book); review.setUser(other);
-        when(reviewRepository.findById(77L)).thenReturn(Optional.of(review));
+        when(reviewRepository.findByIdForUpdate(77L)).thenReturn(Optional.of(review));
         assertThrows(IllegalArgumentException.class, () -> service.deleteReview(77L, 5L));
     }
+
+    private static BookRatingWriter.Delta delta(double sum, long count, long... stars) {
+        return argThat(delta -> delta.sum() == sum && delta.count() == count
+                && IntStream.rangeClosed(1, 5).allMatch(star -> delta.stars(star) == stars[star - 1]));
+    }
 }
@@ -0,0 +1,48 @@
+package com.bookreview.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Hibernate statement inspector that records every SQL statement, so tests can
+ * assert on the number and kind of queries an endpoint issues. Recording is per
+ * thread and starts with {@link #clear()}: a test (and MockMvc, which serves requests
+ * on the caller's thread) only sees its own statements, not the scheduled reloads of
+ * other cached application contexts.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    // A lookup whose primary table is users, as opposed to a join from another table
+    private static final Pattern USER_LOOKUP = Pattern.compile("^select .*? from users \\w+ where .*");
+
+    @Override
+    public String inspect(String sql) {
+        List<String> recorded = STATEMENTS.get();
+        if (recorded != null) {
+            recorded.add(sql);
+        }
+        return sql;
+    }
+
+    public static void clear() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    public static List<String> statements() {
+        List<String> recorded = STATEMENTS.get();
+        return recorded == null ? List.of() : List.copyOf(recorded);
+    }
+
+    public static long userLookups() {
+        return statements().stream()
+                .map(sql -> sql.toLowerCase(Locale.ROOT))
+                .filter(sql -> USER_LOOKUP.matcher(sql).matches())
+                .count();
+    }
+}
@@ -1,5 +1,8 @@
 import React, { createContext, useContext, useState, useEffect } from 'react';
 
+// Shared across concurrent callers: a refresh token is single-use
+let refreshInFlight = null;
+
 const AuthContext = createContext();
 
 export const useAuth = () => {
@@ -25,8 +28,45 @@ export const AuthProvider = ({ children }) => {
     setLoading(false);
   }, []);
 
+  const storeTokens = (data) => {
+    localStorage.setItem('jwtToken', data.token);
+    if (data.refreshToken) {
+      localStorage.setItem('refreshToken', data.refreshToken);
+    }
+  };
+
+  const clearTokens = () => {
+    localStorage.removeItem('jwtToken');
+    localStorage.removeItem('refreshToken');
+  };
+
+  // Exchange the refresh token for a new access token (no password needed)
+  const refreshAccessToken = () => {
+    const refreshToken = localStorage.getItem('refreshToken');
+    if (!refreshToken) {
+      return Promise.resolve(false);
+    }
+    if (!refreshInFlight) {
+      refreshInFlight = fetch(`${API_BASE}/auth/refresh`, {
+        method: 'POST',
+        headers: { 'Content-Type': 'application/json' },
+        body: JSON.stringify({ refreshToken }),
+      })
+        .then(async (response) => {
+          if (!response.ok) {
+            return false;
+          }
+          storeTokens(await response.json());
+          return true;
+        })
+        .catch(() => false)
+        .finally(() => { refreshInFlight = null; });
+    }
+    return refreshInFlight;
+  };
+
   // Helper function to make authenticated API calls
-  const apiCall = async (url, options = {}) => {
+  const apiCall = async (url, options = {}, retried = false) => {
     const token = localStorage.getItem('jwtToken');
     const headers = {
       'Content-Type': 'application/json',
@@ -42,6 +82,12 @@ export const AuthProvider = ({ children }) => {
       headers,
     });
 
+    if (response.status === 401 && token && !retried && !url.startsWith('/auth/')) {
+      if (await refreshAccessToken()) {
+        return apiCall(url, options, true);
+      }
+    }
+
     if (response.status === 401) {
       // Token expired or invalid
       logout();
@@ -92,7 +138,7 @@ export const AuthProvider = ({ children }) => {
       const token = data.token;
 
       if (token) {
-        localStorage.setItem('jwtToken', token);
+        storeTokens(data);
         setUser({ authenticated: true, email });
         return { success: true };
       }
@@ -102,12 +148,21 @@ export const AuthProvider = ({ children }) => {
   };
 
   const logout = async () => {
+    const token = localStorage.getItem('jwtToken');
+    const refreshToken = localStorage.getItem('refreshToken');
     try {
-      await apiCall('/auth/logout', { method: 'POST' });
+      await fetch(`${API_BASE}/auth/logout`, {
+        method: 'POST',
+        headers: {
+          'Content-Type': 'application/json',
+          ...(token ? { Authorization: `Bearer ${token}` } : {}),
+        },
+        body: JSON.stringify({ refreshToken }),
+      });
     } catch (error) {
       console.warn('Logout request failed:', error);
     } finally {
-      localStorage.removeItem('jwtToken');
+      clearTokens();
       setUser(null);
     }
   };